@@ -0,0 +1,68 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.BatchEnv;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.GameRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code BatchEnvBenchmark} class measures how many env-steps per second a {@code BatchEnv}
+ * sustains with a growing number of worker threads.
+ * The actions are random and drawn once, so the measured time is only the stepping of the games.
+ * Usage: {@code BatchEnvBenchmark [games] [seconds per run] [board size]}.
+ *
+ * @see         BatchEnv
+ * @author      Tania Argot
+ */
+public final class BatchEnvBenchmark {
+
+    /** Number of steps before every run is measured. */
+    private static final int WARM_UP_STEPS = 200;
+
+    /** Private constructor, the class only has a main method. */
+    private BatchEnvBenchmark() {}
+
+    /**
+     * Runs the benchmark for 1, 2, 4, ... threads up to the number of available cores.
+     *
+     * @param args the number of games, the seconds per run and the board size
+     */
+    public static void main(String[] args) {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 1 << 16;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        int[] actions = new int[games];
+        GameRandom random = new GameRandom(42);
+        for (int i = 0; i < games; i++) {
+            actions[i] = random.nextInt(Direction.values().length);
+        }
+
+        System.out.println("games=" + games + ", board=" + size + "x" + size + ", cores=" + cores);
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                BatchEnv env = new BatchEnv(new Board(size, size), games, 42, 1000, pool);
+                for (int i = 0; i < WARM_UP_STEPS; i++) {
+                    env.step(actions);
+                }
+                long steps = 0;
+                long start = System.nanoTime();
+                long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+                while (System.nanoTime() < deadline) {
+                    env.step(actions);
+                    steps++;
+                }
+                double elapsed = (System.nanoTime() - start) / 1e9;
+                System.out.printf("threads=%d env-steps/s=%.0f%n", threads, steps * games / elapsed);
+            } finally {
+                pool.shutdown();
+            }
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+}
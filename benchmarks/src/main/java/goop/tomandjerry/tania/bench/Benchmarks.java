@@ -0,0 +1,38 @@
+package goop.tomandjerry.tania.bench;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The {@code Benchmarks} class is the main class of the benchmark jar.
+ * It runs the JMH benchmarks with the usual JMH command line options and always adds the GC profiler,
+ * so every result reports the allocated bytes per operation as {@code gc.alloc.rate.norm}.
+ * Usage: {@code java -jar benchmarks/target/benchmarks.jar [JMH options] [benchmark regex]}.
+ *
+ * @see         GameBenchmark
+ * @author      Tania Argot
+ */
+public final class Benchmarks {
+
+    /** Private constructor, the class only has a main method. */
+    private Benchmarks() {}
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args the JMH command line options
+     * @throws CommandLineOptionException if the options are not valid
+     * @throws RunnerException            if a benchmark fails
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,117 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.EntityStore;
+import goop.tomandjerry.tania.Game;
+import goop.tomandjerry.tania.GameRandom;
+import goop.tomandjerry.tania.ParallelCatStrategy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * The {@code CatScalingTest} class measures how the {@code ParallelCatStrategy} scales with the number of threads.
+ * It plays the same game with many cats on pools of 1, 2 and 4 threads, and of 8, 16 and so on
+ * up to all available cores on larger machines, prints the mean time of a cat phase and the speedup over one thread,
+ * and fails if the cats do not end up on exactly the same cells with every pool.
+ * The pools of 2 and 4 threads are always compared, so a machine with a single core still checks
+ * that the result does not depend on the number of threads, even though it cannot measure a speedup.
+ * Usage: {@code CatScalingTest [ticks] [cats] [board size]}.
+ *
+ * @see         ParallelCatStrategy
+ * @author      Tania Argot
+ */
+public final class CatScalingTest {
+
+    /** Seed of the game and of the cat positions. */
+    private static final long SEED = 42;
+
+    /** Pool sizes that are always compared, larger machines add more. */
+    private static final int[] FIXED_THREADS = {1, 2, 4};
+
+    /** Private constructor, the class only has a main method. */
+    private CatScalingTest() {}
+
+    /**
+     * Runs the test.
+     *
+     * @param args the number of measured ticks, the number of cats and the width and height of the board
+     */
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int cats = args.length > 1 ? Integer.parseInt(args[1]) : 500_000;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+        int cores = Runtime.getRuntime().availableProcessors();
+        List<Integer> poolSizes = new ArrayList<>();
+        for (int threads : FIXED_THREADS) {
+            poolSizes.add(threads);
+        }
+        for (int threads = FIXED_THREADS[FIXED_THREADS.length - 1] * 2; threads < cores; threads *= 2) {
+            poolSizes.add(threads);
+        }
+        if (cores > poolSizes.get(poolSizes.size() - 1)) {
+            poolSizes.add(cores);
+        }
+
+        double baseline = 0;
+        long expected = 0;
+        for (int threads : poolSizes) {
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                Game game = newGame(size, cats, pool);
+                for (int tick = 0; tick < ticks; tick++) {
+                    game.update();
+                }
+                game = newGame(size, cats, pool);
+                long start = System.nanoTime();
+                for (int tick = 0; tick < ticks; tick++) {
+                    game.update();
+                }
+                double mean = (System.nanoTime() - start) / (double) ticks;
+
+                long checksum = checksum(game.getEntities());
+                if (threads == 1) {
+                    baseline = mean;
+                    expected = checksum;
+                } else if (checksum != expected) {
+                    throw new IllegalStateException("The cats moved differently with " + threads + " threads.");
+                }
+                System.out.printf("threads=%d cores=%d cats=%d board=%d mean=%.0f us speedup=%.2f%n",
+                        threads, cores, cats, size, mean / 1e3, baseline / mean);
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Creates a game with cats on random cells, which are the same for every call.
+     *
+     * @param size the width and height of the board
+     * @param cats the number of cats
+     * @param pool the pool the cats are moved in
+     * @return the game
+     */
+    private static Game newGame(int size, int cats, ForkJoinPool pool) {
+        Game game = new Game(new Board(size, size), SEED);
+        GameRandom random = new GameRandom(SEED);
+        for (int i = 1; i < cats; i++) {
+            game.addCat(random.nextInt(size), random.nextInt(size));
+        }
+        game.setCatStrategy(new ParallelCatStrategy(pool));
+        return game;
+    }
+
+    /**
+     * Sums up the positions of all entities, weighted by their IDs.
+     *
+     * @param entities the entities
+     * @return the checksum
+     */
+    private static long checksum(EntityStore entities) {
+        long sum = 0;
+        for (int id = 0; id < entities.getSize(); id++) {
+            sum = sum * 31 + ((long) entities.getX(id) << 32 | entities.getY(id));
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,77 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.CatStrategy;
+import goop.tomandjerry.tania.DistanceFieldCatStrategy;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.Game;
+import goop.tomandjerry.tania.GameRandom;
+import goop.tomandjerry.tania.GreedyCatStrategy;
+import goop.tomandjerry.tania.RandomCatStrategy;
+import java.util.function.Supplier;
+
+/**
+ * The {@code CatStrategyBenchmark} class measures the per-tick decision latency of the cat strategies
+ * for growing boards. The mouse moves randomly, so the distance field has to be computed again
+ * whenever the mouse changes its cell.
+ * Usage: {@code CatStrategyBenchmark [ticks]}.
+ *
+ * @see         RandomCatStrategy
+ * @see         GreedyCatStrategy
+ * @see         DistanceFieldCatStrategy
+ * @author      Tania Argot
+ */
+public final class CatStrategyBenchmark {
+
+    /** Radius of the window of the distance field. */
+    private static final int FIELD_RADIUS = 32;
+
+    /** Private constructor, the class only has a main method. */
+    private CatStrategyBenchmark() {}
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of measured ticks per board and strategy
+     */
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        for (int size : new int[] {10, 100, 1_000, 10_000, 100_000}) {
+            Board board = new Board(size, size);
+            measure("random", board, RandomCatStrategy::new, ticks);
+            measure("greedy", board, GreedyCatStrategy::new, ticks);
+            measure("distance-field", board, () -> new DistanceFieldCatStrategy(FIELD_RADIUS), ticks);
+        }
+    }
+
+    /**
+     * Measures the time of the cat strategy in each tick, after a warm-up.
+     *
+     * @param name     the name of the strategy
+     * @param board    the board
+     * @param strategy creates the strategy
+     * @param ticks    the number of measured ticks
+     */
+    private static void measure(String name, Board board, Supplier<CatStrategy> strategy, int ticks) {
+        Game game = new Game(board, 1);
+        CatStrategy cats = strategy.get();
+        GameRandom random = new GameRandom(2);
+        Direction[] moves = Direction.values();
+
+        long total = 0;
+        long worst = 0;
+        for (int tick = -ticks; tick < ticks; tick++) {
+            game.moveMouse(moves[random.nextInt(moves.length)].getDx(), moves[random.nextInt(moves.length)].getDy());
+            long start = System.nanoTime();
+            cats.moveCats(game);
+            long elapsed = System.nanoTime() - start;
+            if (tick >= 0) {
+                total += elapsed;
+                worst = Math.max(worst, elapsed);
+            }
+            if (game.isGameOver()) {
+                game.reset();
+            }
+        }
+        System.out.printf("board=%d strategy=%s mean=%.0f ns max=%d ns%n", board.getWidth(), name, (double) total / ticks, worst);
+    }
+}
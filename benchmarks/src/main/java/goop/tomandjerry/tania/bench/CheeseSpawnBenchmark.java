@@ -0,0 +1,79 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.FreeCellSet;
+import goop.tomandjerry.tania.Game;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code CheeseSpawnBenchmark} class measures how long it takes to spawn and pick up a cheese
+ * on boards that are empty, half full or nearly full of cheeses.
+ * Both should stay fast at every fill level, because every board draws new cheeses from a {@code FreeCellSet} in O(1)
+ * and the cheese under the mouse is looked up in the spatial index.
+ *
+ * @see         FreeCellSet
+ * @see         Game
+ * @author      Tania Argot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CheeseSpawnBenchmark {
+
+    /** Width and height of the board. */
+    private static final int SIZE = 300;
+
+    /** Percentage of the cells of the board with a cheese. */
+    @Param({"0", "50", "99"})
+    public int fill;
+
+    /** The game with the cheeses. */
+    private Game game;
+
+    /**
+     * Creates the game with the cheeses.
+     */
+    @Setup
+    public void setUp() {
+        int cheeses = Math.max(1, SIZE * SIZE / 100 * fill);
+        game = new Game(new Board(SIZE, SIZE), 42, cheeses);
+    }
+
+    /**
+     * Replaces the cheese that appeared last with a new one on a random free cell.
+     *
+     * @return the game
+     */
+    @Benchmark
+    public Game generateCheese() {
+        game.generateCheese();
+        return game;
+    }
+
+    /**
+     * Puts a cheese next to the mouse, lets the mouse pick it up, which spawns a new cheese,
+     * and moves the mouse back.
+     *
+     * @return the game
+     */
+    @Benchmark
+    public Game pickUp() {
+        game.placeCheese(game.getMouse().getX() + 1, game.getMouse().getY());
+        game.moveMouse(1, 0);
+        game.moveMouse(-1, 0);
+        return game;
+    }
+}
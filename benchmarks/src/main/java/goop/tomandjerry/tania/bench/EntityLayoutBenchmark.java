@@ -0,0 +1,113 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.EntityStore;
+import goop.tomandjerry.tania.GameRandom;
+
+/**
+ * The {@code EntityLayoutBenchmark} class compares the cat update of the {@code EntityStore}
+ * with an object-per-animal layout, where every cat is a plain object with an x and a y field.
+ * Both layouts move the same number of cats with the same random numbers and the same clamping on a 1000x1000 board,
+ * so the difference is the memory layout and not the work per cat.
+ * Usage: {@code EntityLayoutBenchmark [rounds]}, it runs with 10,000 and 1,000,000 cats.
+ *
+ * @see         EntityStore
+ * @author      Tania Argot
+ */
+public final class EntityLayoutBenchmark {
+
+    /** The board the cats move on. */
+    private static final Board BOARD = new Board(1000, 1000);
+
+    /** Private constructor, the class only has a main method. */
+    private EntityLayoutBenchmark() {}
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args the number of measured rounds
+     */
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        for (int cats : new int[] {10_000, 1_000_000}) {
+            EntityStore store = new EntityStore(cats);
+            PlainCat[] objects = new PlainCat[cats];
+            GameRandom positions = new GameRandom(1);
+            for (int i = 0; i < cats; i++) {
+                int x = positions.nextInt(BOARD.getWidth());
+                int y = positions.nextInt(BOARD.getHeight());
+                store.add(EntityStore.CAT, x, y);
+                objects[i] = new PlainCat(x, y);
+            }
+
+            int steps = Math.max(1, 50_000_000 / cats);
+            for (int round = 0; round < rounds; round++) {
+                double storeNanos = measureStore(store, steps);
+                double objectNanos = measureObjects(objects, steps);
+                System.out.printf("cats=%d round=%d store=%.2f ns/cat object=%.2f ns/cat%n",
+                        cats, round, storeNanos, objectNanos);
+            }
+        }
+    }
+
+    /**
+     * Moves all cats of the store.
+     *
+     * @param store the store
+     * @param steps the number of steps
+     * @return the time per cat and step in nanoseconds
+     */
+    private static double measureStore(EntityStore store, int steps) {
+        GameRandom random = new GameRandom(2);
+        long start = System.nanoTime();
+        for (int step = 0; step < steps; step++) {
+            store.stepCats(random, BOARD);
+        }
+        return (System.nanoTime() - start) / ((double) steps * store.getCatCount());
+    }
+
+    /**
+     * Moves all cats one object at a time.
+     *
+     * @param objects the cats
+     * @param steps   the number of steps
+     * @return the time per cat and step in nanoseconds
+     */
+    private static double measureObjects(PlainCat[] objects, int steps) {
+        GameRandom random = new GameRandom(2);
+        int maxX = BOARD.getWidth() - 1;
+        int maxY = BOARD.getHeight() - 1;
+        long start = System.nanoTime();
+        for (int step = 0; step < steps; step++) {
+            for (PlainCat cat : objects) {
+                int dx = random.nextInt(3) - 1;
+                int dy = random.nextInt(3) - 1;
+                cat.x = Math.max(0, Math.min(maxX, cat.x + dx));
+                cat.y = Math.max(0, Math.min(maxY, cat.y + dy));
+            }
+        }
+        return (System.nanoTime() - start) / ((double) steps * objects.length);
+    }
+
+    /**
+     * The {@code PlainCat} class is a cat of the object-per-animal layout, only its position.
+     */
+    private static final class PlainCat {
+
+        /** The x-coordinate of the cat. */
+        private int x;
+
+        /** The y-coordinate of the cat. */
+        private int y;
+
+        /**
+         * Constructor of the {@code PlainCat} class.
+         *
+         * @param x the x-coordinate of the cat
+         * @param y the y-coordinate of the cat
+         */
+        PlainCat(int x, int y) {
+            this.x = x;
+            this.y = y;
+        }
+    }
+}
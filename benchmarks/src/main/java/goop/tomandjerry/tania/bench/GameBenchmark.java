@@ -0,0 +1,185 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.Game;
+import goop.tomandjerry.tania.GameRandom;
+import goop.tomandjerry.tania.MousePolicy;
+import goop.tomandjerry.tania.TickResult;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code GameBenchmark} class measures the single steps of a tick and a whole headless game
+ * for different board sizes and numbers of cats.
+ * Run it with the {@code Benchmarks} main class to get the allocation per operation next to the time.
+ *
+ * @see         Game
+ * @see         Benchmarks
+ * @author      Tania Argot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameBenchmark {
+
+    /** Largest number of ticks of a whole game, so games on large boards end in time. */
+    private static final int MAX_TICKS = 100_000;
+
+    /** The moves the mouse cycles through, so it does not get stuck at a wall. */
+    private static final Direction[] MOVES = {Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP};
+
+    /** The policy of the mouse in whole games. */
+    private static final MousePolicy POLICY = MousePolicy.towardsCheese();
+
+    /** Width and height of the board. */
+    @Param({"10", "100", "1000"})
+    public int size;
+
+    /** Number of cats, including the main cat. */
+    @Param({"1", "16", "256"})
+    public int cats;
+
+    /** The game that is measured. */
+    private Game game;
+
+    /** Index of the next move of the mouse. */
+    private int move;
+
+    /** Seed of the next whole game. */
+    private long seed;
+
+    /** Buffer with a snapshot of the game. */
+    private ByteBuffer snapshot;
+
+    /**
+     * Creates the game and places the extra cats on random cells.
+     */
+    @Setup
+    public void setUp() {
+        game = new Game(new Board(size, size), 42);
+        GameRandom positions = new GameRandom(7);
+        for (int i = 1; i < cats; i++) {
+            game.addCat(positions.nextInt(size), positions.nextInt(size));
+        }
+        snapshot = ByteBuffer.allocate(game.getSnapshotSize());
+        game.writeSnapshot(snapshot, 0);
+    }
+
+    /**
+     * Moves the mouse one cell, collecting the cheese if it is there.
+     *
+     * @return the x-coordinate of the mouse
+     */
+    @Benchmark
+    public int moveMouse() {
+        Direction direction = MOVES[move];
+        move = (move + 1) & 3;
+        game.moveMouse(direction.getDx(), direction.getDy());
+        return game.getMouse().getX();
+    }
+
+    /**
+     * Moves all cats and checks if the mouse is caught.
+     *
+     * @return the result of the update
+     */
+    @Benchmark
+    public TickResult update() {
+        return game.update();
+    }
+
+    /**
+     * Moves the main cat one random step.
+     *
+     * @return the x-coordinate of the cat
+     */
+    @Benchmark
+    public int catStep() {
+        game.getCat().moveRandomly(game.getRandom(), game.getBoard());
+        return game.getCat().getX();
+    }
+
+    /**
+     * Replaces the cheese with a new one at a random cell.
+     *
+     * @return the game
+     */
+    @Benchmark
+    public Game generateCheese() {
+        game.generateCheese();
+        return game;
+    }
+
+    /**
+     * Checks if a cat is on the cell of the mouse.
+     *
+     * @return true if the game is over
+     */
+    @Benchmark
+    public boolean isGameOver() {
+        return game.isGameOver();
+    }
+
+    /**
+     * Puts all animals back on their start cells.
+     *
+     * @return the game
+     */
+    @Benchmark
+    public Game reset() {
+        game.reset();
+        return game;
+    }
+
+    /**
+     * Writes a snapshot of the game.
+     *
+     * @return the buffer with the snapshot
+     */
+    @Benchmark
+    public ByteBuffer writeSnapshot() {
+        game.writeSnapshot(snapshot, 0);
+        return snapshot;
+    }
+
+    /**
+     * Restores the game from a snapshot, as a rollback does.
+     *
+     * @return the game
+     */
+    @Benchmark
+    public Game readSnapshot() {
+        game.readSnapshot(snapshot, 0);
+        return game;
+    }
+
+    /**
+     * Plays a whole game with a new seed until the mouse is caught, moving the mouse towards the cheese.
+     *
+     * @return the number of ticks of the game
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int fullGame() {
+        game.reset(seed++);
+        int ticks = 0;
+        while (ticks < MAX_TICKS && game.tick(POLICY.nextMove(game)) == TickResult.RUNNING) {
+            ticks++;
+        }
+        return ticks;
+    }
+}
@@ -0,0 +1,119 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.Game;
+import goop.tomandjerry.tania.GameLoop;
+import goop.tomandjerry.tania.GameRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code HeadlessLoopTest} class plays games without a GUI on a {@code GameLoop}.
+ * The main thread presses random directions much faster than the tick rate, so most presses are coalesced,
+ * and the game over listener restarts the loop after every game.
+ * It prints the number of games, the achieved tick rate and the coalesced presses.
+ * It fails if the listener is called for a game that is not over, if the achieved rate is off the target by more
+ * than {@link #RATE_TOLERANCE}, or if several presses before one tick move the mouse more than once.
+ * Usage: {@code HeadlessLoopTest [ticks per second] [seconds]}.
+ *
+ * @see         GameLoop
+ * @author      Tania Argot
+ */
+public final class HeadlessLoopTest {
+
+    /** Seed of the game and of the presses. */
+    private static final long SEED = 42;
+
+    /** Pause between two presses of the main thread in nanoseconds. */
+    private static final long PRESS_NANOS = 100_000;
+
+    /** Largest relative difference between the achieved and the target tick rate. */
+    private static final double RATE_TOLERANCE = 0.1;
+
+    /** Tick rate of the coalescing check, slow enough that the presses are done long before the first tick. */
+    private static final double COALESCING_TICKS_PER_SECOND = 20;
+
+    /** Number of presses before the first tick of the coalescing check. */
+    private static final int COALESCED_PRESSES = 5;
+
+    /** Number of ticks of the coalescing check, too few for the cat to reach the mouse. */
+    private static final int COALESCING_TICKS = 3;
+
+    /** Private constructor, the class only has a main method. */
+    private HeadlessLoopTest() {}
+
+    /**
+     * Runs the test.
+     *
+     * @param args the tick rate and the number of seconds to play
+     * @throws InterruptedException  if the main thread is interrupted
+     * @throws IllegalStateException if a check failed
+     */
+    public static void main(String[] args) throws InterruptedException {
+        double ticksPerSecond = args.length > 0 ? Double.parseDouble(args[0]) : 1_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        checkCoalescing();
+
+        Game game = new Game(Board.DEFAULT, SEED);
+        AtomicLong finishedTicks = new AtomicLong();
+        AtomicInteger games = new AtomicInteger();
+        GameLoop[] loop = new GameLoop[1];
+        loop[0] = new GameLoop(game, ticksPerSecond, over -> {
+            if (!over.isGameOver()) {
+                throw new IllegalStateException("The listener was called for a game that is not over.");
+            }
+            finishedTicks.addAndGet(over.getTickCount());
+            games.incrementAndGet();
+            loop[0].restart();
+        });
+
+        GameRandom random = new GameRandom(SEED);
+        Direction[] directions = Direction.values();
+        long presses = 0;
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        try (GameLoop running = loop[0]) {
+            running.start();
+            while (System.nanoTime() < end) {
+                running.getInput().press(directions[random.nextInt(directions.length)]);
+                presses++;
+                Thread.sleep(0, (int) PRESS_NANOS);
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        long ticks = finishedTicks.get() + game.getTickCount();
+        double rate = ticks / elapsed;
+        System.out.printf("games=%d ticks=%d rate=%.0f ticks/s (target %.0f) presses=%d coalesced=%d%n",
+                games.get(), ticks, rate, ticksPerSecond, presses, Math.max(0, presses - ticks));
+        if (Math.abs(rate - ticksPerSecond) > RATE_TOLERANCE * ticksPerSecond) {
+            throw new IllegalStateException(String.format("The loop ticked at %.0f ticks/s instead of %.0f.",
+                    rate, ticksPerSecond));
+        }
+    }
+
+    /**
+     * Checks that the presses between two ticks give exactly one move.
+     * The mouse is pressed to the right several times before the first tick of a slow loop.
+     * After a few ticks it must have moved by exactly one cell, because the later ticks have no input.
+     *
+     * @throws InterruptedException  if the main thread is interrupted
+     * @throws IllegalStateException if the mouse did not move by exactly one cell
+     */
+    private static void checkCoalescing() throws InterruptedException {
+        Game game = new Game(Board.DEFAULT, SEED);
+        try (GameLoop loop = new GameLoop(game, COALESCING_TICKS_PER_SECOND, over -> {
+            throw new IllegalStateException("The cat caught the mouse during the coalescing check.");
+        })) {
+            for (int i = 0; i < COALESCED_PRESSES; i++) {
+                loop.getInput().press(Direction.RIGHT);
+            }
+            loop.start();
+            Thread.sleep((long) ((COALESCING_TICKS + 0.5) * 1_000 / COALESCING_TICKS_PER_SECOND));
+        }
+        if (game.getTickCount() < 2 || game.getMouse().getX() != 1 || game.getMouse().getY() != 0) {
+            throw new IllegalStateException(COALESCED_PRESSES + " presses moved the mouse to (" + game.getMouse().getX()
+                    + ", " + game.getMouse().getY() + ") in " + game.getTickCount() + " ticks instead of one cell.");
+        }
+        System.out.printf("coalescing: %d presses, %d ticks, one move%n", COALESCED_PRESSES, game.getTickCount());
+    }
+}
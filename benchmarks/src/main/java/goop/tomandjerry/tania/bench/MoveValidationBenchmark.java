@@ -0,0 +1,108 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.GameRandom;
+import goop.tomandjerry.tania.Mouse;
+import goop.tomandjerry.tania.ObstacleMap;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The {@code MoveValidationBenchmark} class measures how fast moves are checked against the walls of a maze.
+ * The cells are drawn up front and spread over the whole map, so large mazes also measure cache misses
+ * of the bitset. A maze of 10,000 x 10,000 cells takes 12.5 MB.
+ *
+ * @see         ObstacleMap
+ * @see         Board
+ * @author      Tania Argot
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveValidationBenchmark {
+
+    /** Number of checks per benchmark invocation. */
+    private static final int CHECKS = 1024;
+
+    /** The moves the mouse cycles through. */
+    private static final Direction[] MOVES = {Direction.RIGHT, Direction.DOWN, Direction.LEFT, Direction.UP};
+
+    /** Width and height of the maze. */
+    @Param({"100", "1000", "10000"})
+    public int size;
+
+    /** The board with the maze. */
+    private Board board;
+
+    /** X-coordinates of the checked cells. */
+    private int[] xs;
+
+    /** Y-coordinates of the checked cells. */
+    private int[] ys;
+
+    /** The mouse that walks through the maze. */
+    private Mouse mouse;
+
+    /** Index of the next move of the mouse. */
+    private int move;
+
+    /**
+     * Generates the maze and the cells to check.
+     */
+    @Setup
+    public void setUp() {
+        board = new Board(ObstacleMap.maze(size, size, 42));
+        GameRandom random = new GameRandom(7);
+        xs = new int[CHECKS];
+        ys = new int[CHECKS];
+        for (int i = 0; i < CHECKS; i++) {
+            xs[i] = random.nextInt(size);
+            ys[i] = random.nextInt(size);
+        }
+        mouse = new Mouse("Jerry", 0, 0);
+    }
+
+    /**
+     * Checks if cells spread over the map can be entered.
+     *
+     * @return the number of passable cells
+     */
+    @Benchmark
+    @OperationsPerInvocation(CHECKS)
+    public int isPassable() {
+        int passable = 0;
+        for (int i = 0; i < CHECKS; i++) {
+            if (board.isPassable(xs[i], ys[i])) {
+                passable++;
+            }
+        }
+        return passable;
+    }
+
+    /**
+     * Moves the mouse one cell, unless a wall is in the way.
+     *
+     * @return the x-coordinate of the mouse
+     */
+    @Benchmark
+    public int moveMouse() {
+        Direction direction = MOVES[move];
+        move = (move + 1) & 3;
+        mouse.moveByUser(direction.getDx(), direction.getDy(), board);
+        return mouse.getX();
+    }
+}
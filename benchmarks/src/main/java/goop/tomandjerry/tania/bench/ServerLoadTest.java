@@ -0,0 +1,129 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Arena;
+import goop.tomandjerry.tania.ArenaProtocol;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.GameServer;
+import goop.tomandjerry.tania.LatencyHistogram;
+import goop.tomandjerry.tania.LatencySummary;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code ServerLoadTest} class measures the latency of the {@code GameServer} with many players.
+ * It starts a server on the loopback interface and connects simulated players, which all share one selector.
+ * Every player sends a random input now and then and reads every delta of the server.
+ * The latency of a delta is the time from stamping it on the server until a player has read it completely,
+ * both clocks are the same {@code System.nanoTime()} because the test runs in one process.
+ * Usage: {@code ServerLoadTest [players] [seconds] [ticks per second] [board size] [cats]}.
+ *
+ * @see         GameServer
+ * @see         LatencyHistogram
+ * @author      Tania Argot
+ */
+public final class ServerLoadTest {
+
+    /** The directions of the inputs. */
+    private static final Direction[] MOVES = Direction.values();
+
+    /** Seconds before the latencies are recorded, while all players connect and the JIT warms up. */
+    private static final int WARMUP_SECONDS = 2;
+
+    /** Private constructor, the class only has a main method. */
+    private ServerLoadTest() {}
+
+    /**
+     * Runs the load test and prints the percentiles of the delta latency and of the broadcast time.
+     *
+     * @param args the number of players, the seconds to measure, the ticks per second, the board size and the cats
+     * @throws IOException if the server or a player fails
+     */
+    public static void main(String[] args) throws IOException {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        double ticksPerSecond = args.length > 2 ? Double.parseDouble(args[2]) : 30;
+        int size = args.length > 3 ? Integer.parseInt(args[3]) : 200;
+        int cats = args.length > 4 ? Integer.parseInt(args[4]) : 64;
+
+        Arena arena = new Arena(new Board(size, size), cats, 42);
+        try (GameServer server = new GameServer(arena, new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), ticksPerSecond);
+             Selector selector = Selector.open()) {
+            server.start();
+            InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            for (int i = 0; i < players; i++) {
+                SocketChannel channel = SocketChannel.open(address);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ, ByteBuffer.allocate(1 << 16));
+            }
+
+            LatencyHistogram latency = new LatencyHistogram();
+            SplittableRandom random = new SplittableRandom(42);
+            ByteBuffer input = ByteBuffer.allocate(1);
+            long deltas = 0;
+            long bytes = 0;
+            long start = System.nanoTime();
+            long recordFrom = start + TimeUnit.SECONDS.toNanos(WARMUP_SECONDS);
+            long end = recordFrom + TimeUnit.SECONDS.toNanos(seconds);
+            boolean recording = false;
+
+            while (System.nanoTime() < end) {
+                selector.select(10);
+                long now = System.nanoTime();
+                if (!recording && now >= recordFrom) {
+                    recording = true;
+                    latency.reset();
+                    server.getBroadcastNanos().reset();
+                    deltas = 0;
+                    bytes = 0;
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    SocketChannel channel = (SocketChannel) key.channel();
+                    ByteBuffer received = (ByteBuffer) key.attachment();
+                    int read = channel.read(received);
+                    if (read < 0) {
+                        throw new IOException("The server closed a connection.");
+                    }
+                    bytes += read;
+                    long arrived = System.nanoTime();
+
+                    received.flip();
+                    for (int length = ArenaProtocol.completeFrameLength(received); length >= 0;
+                            length = ArenaProtocol.completeFrameLength(received)) {
+                        ByteBuffer frame = received.slice(received.position() + ArenaProtocol.LENGTH_BYTES, length);
+                        if (ArenaProtocol.typeOf(frame) == ArenaProtocol.DELTA) {
+                            latency.record(arrived - ArenaProtocol.sendNanosOf(frame));
+                            deltas++;
+                        }
+                        received.position(received.position() + ArenaProtocol.LENGTH_BYTES + length);
+                    }
+                    received.compact();
+
+                    if (random.nextInt(4) == 0) {
+                        input.clear();
+                        input.put((byte) MOVES[random.nextInt(MOVES.length)].ordinal()).flip();
+                        channel.write(input);
+                    }
+                }
+            }
+
+            System.out.printf("players=%d ticks/s=%.0f board=%dx%d cats=%d clients=%d%n",
+                    players, ticksPerSecond, size, size, cats, selector.keys().size());
+            System.out.printf("deltas/s=%.0f received MB/s=%.2f%n", deltas / (double) seconds, bytes / 1e6 / seconds);
+            System.out.println("delta latency:  " + new LatencySummary(latency));
+            System.out.println("broadcast time: " + new LatencySummary(server.getBroadcastNanos()));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.GameSession;
+import goop.tomandjerry.tania.GameSessions;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The {@code SessionThroughputBenchmark} class measures how many ticks per second
+ * the {@code GameSessions} registry sustains with a growing number of threads.
+ * Every thread ticks its own share of the sessions, looked up by ID, so the ticks per second
+ * should scale with the number of cores.
+ * Usage: {@code SessionThroughputBenchmark [sessions] [seconds per run]}.
+ *
+ * @see         GameSessions
+ * @author      Tania Argot
+ */
+public final class SessionThroughputBenchmark {
+
+    /** The directions the mice cycle through. */
+    private static final Direction[] MOVES = Direction.values();
+
+    /** Private constructor, the class only has a main method. */
+    private SessionThroughputBenchmark() {}
+
+    /**
+     * Runs the benchmark for 1, 2, 4, ... threads up to the number of available cores.
+     *
+     * @param args the number of sessions and the seconds per run
+     * @throws InterruptedException if the benchmark is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int sessionCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+
+        GameSessions sessions = new GameSessions(42);
+        long[] ids = new long[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            ids[i] = sessions.create().getId();
+        }
+
+        System.out.println("sessions=" + sessionCount + ", cores=" + cores);
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            double ticksPerSecond = run(sessions, ids, threads, seconds);
+            System.out.printf("threads=%d ticks/s=%.0f%n", threads, ticksPerSecond);
+            if (threads == cores) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Ticks the sessions with the given number of threads for the given time.
+     *
+     * @param sessions the registry
+     * @param ids      the IDs of the sessions
+     * @param threads  the number of threads
+     * @param seconds  the duration of the run
+     * @return the ticks per second
+     * @throws InterruptedException if the run is interrupted
+     */
+    private static double run(GameSessions sessions, long[] ids, int threads, int seconds) throws InterruptedException {
+        LongAdder ticks = new LongAdder();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (int t = 0; t < threads; t++) {
+            int first = t;
+            Thread worker = new Thread(() -> {
+                long count = 0;
+                int move = first % MOVES.length;
+                while (System.nanoTime() < deadline) {
+                    for (int i = first; i < ids.length; i += threads) {
+                        GameSession session = sessions.get(ids[i]);
+                        session.tick(MOVES[move]);
+                        move = (move + 1) % MOVES.length;
+                        count++;
+                    }
+                }
+                ticks.add(count);
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        done.await();
+        return ticks.sum() / ((System.nanoTime() - start) / 1e9);
+    }
+}
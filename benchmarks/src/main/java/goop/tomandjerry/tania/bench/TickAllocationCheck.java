@@ -0,0 +1,111 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.Game;
+import goop.tomandjerry.tania.GameRandom;
+import goop.tomandjerry.tania.MousePolicy;
+import goop.tomandjerry.tania.TickResult;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code TickAllocationCheck} class checks that a steady-state tick of the game allocates no memory.
+ * It plays warm-up ticks, so the JIT has compiled the tick, and then counts the bytes
+ * the current thread allocates during the measured ticks, including cheese pickups, captures, resets,
+ * snapshots and rollbacks.
+ * It fails with an exception if a single byte was allocated, so the build fails when it runs in {@code verify}.
+ * Usage: {@code TickAllocationCheck [ticks]}.
+ *
+ * @see         Game
+ * @see         GameBenchmark
+ * @author      Tania Argot
+ */
+public final class TickAllocationCheck {
+
+    /** Number of ticks between two snapshots of the game. */
+    private static final int SNAPSHOT_INTERVAL = 8;
+
+    /** Number of ticks played before measuring. */
+    private static final int WARM_UP_TICKS = 500_000;
+
+    /** Number of extra snapshots and rollbacks before measuring, which are rarer than ticks. */
+    private static final int WARM_UP_SNAPSHOTS = 200_000;
+
+    /** The moves of the mouse when it does not follow the policy. */
+    private static final Direction[] MOVES = {Direction.UP, Direction.DOWN, Direction.LEFT, Direction.RIGHT, Direction.NONE};
+
+    /** The policy the mouse follows in most ticks, so it collects cheeses. */
+    private static final MousePolicy POLICY = MousePolicy.towardsCheese();
+
+    /** Private constructor, the class only has a main method. */
+    private TickAllocationCheck() {}
+
+    /**
+     * Runs the check.
+     *
+     * @param args the number of measured ticks
+     * @throws IllegalStateException if the ticks allocated memory
+     */
+    public static void main(String[] args) {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+
+        for (int size : new int[] {10, 100}) {
+            Game game = new Game(new Board(size, size), 1);
+            for (int i = 0; i < size / 10; i++) {
+                game.addCat(i, size / 2);
+            }
+            GameRandom moves = new GameRandom(2);
+            ByteBuffer snapshot = ByteBuffer.allocate(game.getSnapshotSize());
+
+            play(game, moves, snapshot, WARM_UP_TICKS);
+            for (int i = 0; i < WARM_UP_SNAPSHOTS; i++) {
+                game.writeSnapshot(snapshot, 0);
+                game.readSnapshot(snapshot, 0);
+            }
+            long before = threads.getThreadAllocatedBytes(thread);
+            int cheeses = play(game, moves, snapshot, ticks);
+            long allocated = threads.getThreadAllocatedBytes(thread) - before;
+
+            System.out.printf("board=%dx%d ticks=%d cheeses=%d allocated=%d bytes%n", size, size, ticks, cheeses, allocated);
+            if (allocated > 0) {
+                throw new IllegalStateException(allocated + " bytes were allocated in " + ticks + " ticks on a "
+                        + size + "x" + size + " board.");
+            }
+        }
+    }
+
+    /**
+     * Plays ticks with the policy and one random move in four, and takes a snapshot every few ticks.
+     * When the mouse is caught, the game is rolled back to the last snapshot or, every other time, reset.
+     *
+     * @param game     the game
+     * @param moves    the random numbers of the random moves
+     * @param snapshot the buffer of the snapshot
+     * @param ticks    the number of ticks
+     * @return the number of collected cheeses over all games
+     */
+    private static int play(Game game, GameRandom moves, ByteBuffer snapshot, int ticks) {
+        int cheeses = 0;
+        boolean rollback = false;
+        game.writeSnapshot(snapshot, 0);
+        for (int i = 0; i < ticks; i++) {
+            int move = moves.nextInt(4 * MOVES.length);
+            Direction direction = move < MOVES.length ? MOVES[move] : POLICY.nextMove(game);
+            if (game.tick(direction) == TickResult.CAUGHT) {
+                cheeses += game.getCollectedCheesesCount();
+                rollback = !rollback;
+                if (rollback) {
+                    game.readSnapshot(snapshot, 0);
+                } else {
+                    game.reset();
+                    game.writeSnapshot(snapshot, 0);
+                }
+            } else if (i % SNAPSHOT_INTERVAL == 0) {
+                game.writeSnapshot(snapshot, 0);
+            }
+        }
+        return cheeses + game.getCollectedCheesesCount();
+    }
+}
@@ -0,0 +1,102 @@
+package goop.tomandjerry.tania.bench;
+import goop.tomandjerry.tania.Board;
+import goop.tomandjerry.tania.ChunkedWorld;
+import goop.tomandjerry.tania.Direction;
+import goop.tomandjerry.tania.Game;
+import goop.tomandjerry.tania.GameRandom;
+import goop.tomandjerry.tania.LatencyHistogram;
+import goop.tomandjerry.tania.LatencySummary;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The {@code WorldStreamingTest} class lets a mouse run across a {@code ChunkedWorld} of the largest board size
+ * and measures the latency of the ticks while the chunks are streamed in around it.
+ * The mouse heads right and only turns when a wall is in its way, so the prefetch has a direction to follow,
+ * and now and then it takes a random turn to get out of dead ends.
+ * It prints how many chunks had to be loaded on the thread of the game and how many were spilled.
+ * Usage: {@code WorldStreamingTest [ticks] [capacity] [cats]}.
+ *
+ * @see         ChunkedWorld
+ * @author      Tania Argot
+ */
+public final class WorldStreamingTest {
+
+    /** Seed of the world and of the game. */
+    private static final long SEED = 42;
+
+    /** The mouse takes a random turn once in this many ticks on average. */
+    private static final int TURN_ODDS = 16;
+
+    /** Directions the mouse tries in this order. */
+    private static final Direction[] PREFERENCE = {Direction.RIGHT, Direction.DOWN, Direction.UP, Direction.LEFT};
+
+    /** Private constructor, the class only has a main method. */
+    private WorldStreamingTest() {}
+
+    /**
+     * Runs the test.
+     *
+     * @param args the number of ticks, the number of chunks kept in memory and the number of cats
+     * @throws IOException if the spill file cannot be created
+     */
+    public static void main(String[] args) throws IOException {
+        int ticks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int capacity = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        int cats = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+
+        Path spillFile = Files.createTempFile("world", ".spill");
+        try (ChunkedWorld world = new ChunkedWorld(Board.MAX_SIZE, Board.MAX_SIZE, SEED, capacity, spillFile)) {
+            Game game = new Game(new Board(world), SEED);
+            for (int i = 0; i < cats; i++) {
+                game.addCat(100 + 50 * i, 100);
+            }
+
+            LatencyHistogram latency = new LatencyHistogram();
+            GameRandom random = new GameRandom(SEED);
+            Direction direction = Direction.RIGHT;
+            int captures = 0;
+            for (int tick = 0; tick < ticks; tick++) {
+                direction = random.nextInt(TURN_ODDS) == 0
+                        ? PREFERENCE[random.nextInt(PREFERENCE.length)] : nextDirection(game, direction);
+                long start = System.nanoTime();
+                game.tick(direction);
+                latency.record(System.nanoTime() - start);
+                if (game.isGameOver()) {
+                    captures++;
+                    game.reset();
+                }
+            }
+
+            System.out.println("ticks=" + ticks + ", capacity=" + capacity + ", cats=" + cats + ", captures=" + captures
+                    + ", mouse at " + game.getMouse().getX() + "," + game.getMouse().getY());
+            System.out.println("tick latency:  " + new LatencySummary(latency));
+            System.out.println("chunks in memory=" + world.getChunkCount() + ", prefetched=" + world.getPrefetches()
+                    + ", loaded on demand=" + world.getDemandLoads() + ", spilled=" + world.getSpilledChunks());
+        }
+    }
+
+    /**
+     * Chooses the next move of the mouse: the first free direction of right, down, up and left,
+     * but it only turns back if every other direction is blocked.
+     *
+     * @param game     the game
+     * @param previous the direction of the previous move
+     * @return the direction of the next move
+     */
+    private static Direction nextDirection(Game game, Direction previous) {
+        int x = game.getMouse().getX();
+        int y = game.getMouse().getY();
+        Direction back = null;
+        for (Direction direction : PREFERENCE) {
+            if (game.getBoard().isPassable(x + direction.getDx(), y + direction.getDy())) {
+                if (direction.getDx() != -previous.getDx() || direction.getDy() != -previous.getDy()) {
+                    return direction;
+                }
+                back = direction;
+            }
+        }
+        return back != null ? back : previous;
+    }
+}
@@ -1,13 +1,15 @@
 package goop.tomandjerry.tania;
 /**
  * The class {@code Animal} is an abstract superclass.
- * It has the attributes {@code String name}, {@code int x}, and {@code int y}.
- * It contains getter methods for all attributes and setter methods for the
- * x- and y-coordinates.
+ * It has the attributes {@code String name}, an {@code EntityStore} and the ID of the animal in that store.
+ * The x- and y-coordinates of the animal live in the arrays of the store, the {@code Animal} is only a view over them.
+ * It contains getter methods for the name and coordinates and setter methods for the
+ * x- and y-coordinates, separately or together.
  * The class is inherited by the {@code Cat} and {@code Mouse} subclasses.
  *
  * @see         Cat
  * @see         Mouse
+ * @see         EntityStore
  * @author      Tania Argot
  */
 
@@ -16,23 +18,37 @@ public abstract class Animal {
     /** Name of the animal. */
     private final String name;
 
-    /** X-coordinate of the animal. */
-    private int x;
+    /** The store that holds the coordinates of the animal. */
+    private final EntityStore store;
 
-    /** Y-coordinate of the animal. */
-    private int y;
+    /** ID of the animal in the store. */
+    private final int id;
 
     /**
-     * Constructor of the abstract superclass {@code Animal}.
+     * Constructor of the abstract superclass {@code Animal} for an animal that lives in its own store.
      *
      * @param animalName  name of the animal
+     * @param type        type tag of the animal in the store
      * @param animalX     x-coordinate of the animal
      * @param animalY     y-coordinate of the animal
      */
-    public Animal(String animalName, int animalX, int animalY) {
+    protected Animal(String animalName, byte type, int animalX, int animalY) {
         this.name = animalName;
-        this.x = animalX;
-        this.y = animalY;
+        this.store = new EntityStore(1);
+        this.id = store.add(type, animalX, animalY);
+    }
+
+    /**
+     * Constructor of the abstract superclass {@code Animal} for an animal in a shared store.
+     *
+     * @param animalName  name of the animal
+     * @param animalStore the store that holds the coordinates of the animal
+     * @param animalId    ID of the animal in the store
+     */
+    protected Animal(String animalName, EntityStore animalStore, int animalId) {
+        this.name = animalName;
+        this.store = animalStore;
+        this.id = animalId;
     }
 
     /**
@@ -44,13 +60,22 @@ public abstract class Animal {
         return name;
     }
 
+    /**
+     * Returns the ID of the animal in its store.
+     *
+     * @return the ID of the animal
+     */
+    public int getId() {
+        return id;
+    }
+
     /**
      * Returns the x-coordinate of the animal.
      *
      * @return the x-coordinate of the animal
      */
     public int getX() {
-        return x;
+        return store.getX(id);
     }
 
     /**
@@ -59,7 +84,7 @@ public abstract class Animal {
      * @return the y-coordinate of the animal
      */
     public int getY() {
-        return y;
+        return store.getY(id);
     }
 
     /**
@@ -68,7 +93,7 @@ public abstract class Animal {
      * @param xCoor the new x-coordinate of the animal
      */
     public void setX(int xCoor) {
-        this.x = xCoor;
+        store.setX(id, xCoor);
     }
 
     /**
@@ -77,6 +102,16 @@ public abstract class Animal {
      * @param yCoor the new y-coordinate of the animal
      */
     public void setY(int yCoor) {
-        this.y = yCoor;
+        store.setY(id, yCoor);
+    }
+
+    /**
+     * Sets both coordinates of the animal at once.
+     *
+     * @param xCoor the new x-coordinate of the animal
+     * @param yCoor the new y-coordinate of the animal
+     */
+    public void setPosition(int xCoor, int yCoor) {
+        store.setPosition(id, xCoor, yCoor);
     }
 }
\ No newline at end of file
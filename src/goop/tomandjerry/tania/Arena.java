@@ -0,0 +1,186 @@
+package goop.tomandjerry.tania;
+import java.util.Arrays;
+
+/**
+ * The {@code Arena} class is a game on one board shared by many mice, one per player.
+ * Like a {@code Game}, every tick moves each mouse with the last input of its player,
+ * lets a mouse on the cheese collect it, and then moves all cats randomly.
+ * A caught mouse loses its cheeses and starts again on a random cell, so the arena never ends.
+ * All positions are kept in one indexed {@code EntityStore}, mice are identified by their entity ID.
+ * The arena is not thread-safe, the {@code GameServer} owns it on its own thread.
+ *
+ * @see         GameServer
+ * @see         EntityStore
+ * @see         Game
+ * @author      Tania Argot
+ */
+public final class Arena {
+
+    /** The directions by ordinal. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** Number of random cells tried when an entity is moved to an empty cell before it stays where it is. */
+    private static final int PLACE_ATTEMPTS = 64;
+
+    /** The board of the arena. */
+    private final Board board;
+
+    /** The positions of all mice, cats and the cheese. */
+    private final EntityStore entities;
+
+    /** Random number generator for the cats, new cheeses and new mice. */
+    private final GameRandom random;
+
+    /** Pending input of every mouse, indexed by entity ID, as the ordinal of a {@code Direction}. */
+    private byte[] inputs = new byte[16];
+
+    /** Collected cheeses of every mouse, indexed by entity ID. */
+    private int[] scores = new int[16];
+
+    /** Number of ticks played. */
+    private long ticks;
+
+    /**
+     * Constructor of the {@code Arena} class.
+     * The cats and the cheese start on random empty cells.
+     *
+     * @param board the board of the arena
+     * @param cats  the number of cats
+     * @param seed  the seed of the random number generator
+     */
+    public Arena(Board board, int cats, long seed) {
+        this.board = board;
+        this.random = new GameRandom(seed);
+        entities = new EntityStore(cats + 17, new SpatialIndex(board, cats + 17));
+        for (int i = 0; i < cats; i++) {
+            moveToRandomCell(entities.add(EntityStore.CAT, 0, 0));
+        }
+        moveToRandomCell(entities.add(EntityStore.CHEESE, 0, 0));
+    }
+
+    /**
+     * Adds the mouse of a new player on a random empty cell.
+     *
+     * @return the entity ID of the mouse
+     */
+    public int addMouse() {
+        int id = entities.add(EntityStore.MOUSE, 0, 0);
+        moveToRandomCell(id);
+        if (id >= inputs.length) {
+            inputs = Arrays.copyOf(inputs, Math.max(id + 1, inputs.length * 2));
+            scores = Arrays.copyOf(scores, inputs.length);
+        }
+        inputs[id] = 0;
+        scores[id] = 0;
+        return id;
+    }
+
+    /**
+     * Removes the mouse of a player who left.
+     *
+     * @param id the entity ID of the mouse
+     */
+    public void removeMouse(int id) {
+        entities.remove(id);
+    }
+
+    /**
+     * Sets the input of a mouse for the next tick, replacing an earlier input of the same tick.
+     *
+     * @param id        the entity ID of the mouse
+     * @param direction the direction of the mouse
+     */
+    public void setInput(int id, Direction direction) {
+        inputs[id] = (byte) direction.ordinal();
+    }
+
+    /**
+     * Advances the arena by one tick.
+     */
+    public void tick() {
+        ticks++;
+        int size = entities.getSize();
+        for (int id = 0; id < size; id++) {
+            if (entities.getType(id) == EntityStore.MOUSE) {
+                Direction direction = DIRECTIONS[inputs[id]];
+                inputs[id] = 0;
+                int x = board.clampX(entities.getX(id) + direction.getDx());
+                int y = board.clampY(entities.getY(id) + direction.getDy());
+                if (!board.isPassable(x, y)) {
+                    x = entities.getX(id);
+                    y = entities.getY(id);
+                }
+                entities.setPosition(id, x, y);
+                int cheese = entities.firstAt(EntityStore.CHEESE, x, y);
+                if (cheese >= 0) {
+                    scores[id]++;
+                    moveToRandomCell(cheese);
+                }
+            }
+        }
+
+        entities.stepCats(random, board);
+
+        for (int id = 0; id < size; id++) {
+            if (entities.getType(id) == EntityStore.MOUSE
+                    && entities.isOccupiedBy(EntityStore.CAT, entities.getX(id), entities.getY(id))) {
+                scores[id] = 0;
+                moveToRandomCell(id);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of collected cheeses of a mouse since it was last caught.
+     *
+     * @param id the entity ID of the mouse
+     * @return the number of collected cheeses
+     */
+    public int getScore(int id) {
+        return scores[id];
+    }
+
+    /**
+     * Returns the number of ticks played.
+     *
+     * @return the number of ticks
+     */
+    public long getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Returns the board of the arena.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the positions of all mice, cats and the cheese.
+     *
+     * @return the entity store
+     */
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    /**
+     * Moves an entity to a random cell without a wall and without an entity, found with the spatial index.
+     * If none of {@link #PLACE_ATTEMPTS} random cells is empty, e.g. on a crowded board, the entity stays where it is.
+     *
+     * @param id the ID of the entity
+     */
+    private void moveToRandomCell(int id) {
+        for (int attempt = 0; attempt < PLACE_ATTEMPTS; attempt++) {
+            int x = random.nextInt(board.getWidth());
+            int y = random.nextInt(board.getHeight());
+            if (board.isPassable(x, y) && entities.isEmpty(x, y)) {
+                entities.setPosition(id, x, y);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package goop.tomandjerry.tania;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code ArenaProtocol} class defines the binary messages between the {@code GameServer} and its clients.
+ *
+ * <p>A client sends one byte per input, the ordinal of the {@code Direction} of its mouse.</p>
+ *
+ * <p>The server sends frames that start with their length as an {@code int}, followed by the type of the frame:</p>
+ * <ul>
+ *   <li>{@link #WELCOME}: the width and height of the board and the ID of the mouse of the client, as varints.</li>
+ *   <li>{@link #DELTA}: the send time of the server as a {@code long} from {@code System.nanoTime()},
+ *       the tick and the number of entries as varints, and one entry per changed entity.
+ *       An entry is the ID as a varint and the type as a byte, followed by x and y as varints
+ *       unless the entity was removed, and by the collected cheeses as a varint for a mouse.</li>
+ * </ul>
+ * <p>The first delta after the welcome holds all entities, later deltas only the entities that changed.
+ * Entries hold absolute values, so applying an entry twice does no harm.</p>
+ *
+ * @see         GameServer
+ * @see         GameClient
+ * @author      Tania Argot
+ */
+public final class ArenaProtocol {
+
+    /** Type of the frame that welcomes a new client. */
+    public static final byte WELCOME = 1;
+
+    /** Type of the frame with the changes of a tick. */
+    public static final byte DELTA = 2;
+
+    /** Size of the length in front of every frame. */
+    public static final int LENGTH_BYTES = Integer.BYTES;
+
+    /** Largest size of a frame, longer frames are a protocol error. */
+    public static final int MAX_FRAME_BYTES = 64 << 20;
+
+    /** Largest size of an entry of a delta. */
+    static final int MAX_ENTRY_BYTES = 4 * 5 + 1;
+
+    /** Private constructor, the class only has static methods. */
+    private ArenaProtocol() {}
+
+    /**
+     * Returns the type of a frame.
+     *
+     * @param frame the frame without its length, positioned at its start
+     * @return the type of the frame
+     */
+    public static byte typeOf(ByteBuffer frame) {
+        return frame.get(frame.position());
+    }
+
+    /**
+     * Returns the send time of a delta.
+     *
+     * @param frame the delta without its length, positioned at its start
+     * @return the send time from {@code System.nanoTime()} of the server
+     */
+    public static long sendNanosOf(ByteBuffer frame) {
+        return frame.getLong(frame.position() + 1);
+    }
+
+    /**
+     * Returns the length of the next complete frame in a buffer, without consuming anything.
+     *
+     * @param buffer the received bytes, positioned at the length of the next frame
+     * @return the length of the frame, or -1 if the frame is not complete yet
+     * @throws IllegalStateException if the length is not valid
+     */
+    public static int completeFrameLength(ByteBuffer buffer) {
+        if (buffer.remaining() < LENGTH_BYTES) {
+            return -1;
+        }
+        int length = buffer.getInt(buffer.position());
+        if (length <= 0 || length > MAX_FRAME_BYTES) {
+            throw new IllegalStateException("Invalid frame length " + length + ".");
+        }
+        return buffer.remaining() - LENGTH_BYTES >= length ? length : -1;
+    }
+}
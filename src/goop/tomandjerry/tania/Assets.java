@@ -0,0 +1,198 @@
+package goop.tomandjerry.tania;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@code Assets} class loads the images of the game.
+ * Every image is decoded in the background by JavaFX, already scaled to the size it is shown at,
+ * and decoded only once per size: all users share the cached {@code Image}.
+ *
+ * <p>The sprites of the grid are packed side by side into one atlas with one cell per sprite.
+ * The atlas exists right away and shows a plain placeholder color per sprite,
+ * each sprite with an image is copied into it as soon as the image is decoded.
+ * The renderers draw regions of the atlas at their natural size, so no image is scaled per frame.
+ * {@code ImageView}s show the new pixels of the atlas by themselves,
+ * a {@code Canvas} has to be redrawn, which is what {@code setOnLoaded(Runnable)} is for.</p>
+ *
+ * @see         Sprite
+ * @see         GridRenderer
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public final class Assets {
+
+    /** Decoded images, shared by all users, keyed by path and size. */
+    private static final Map<String, Image> IMAGES = new ConcurrentHashMap<>();
+
+    /** Size of a cell and of every sprite in pixels. */
+    private final int cellSize;
+
+    /** The atlas with all sprites side by side. */
+    private final WritableImage atlas;
+
+    /** Region of every sprite in the atlas, indexed by the ordinal of the sprite. */
+    private final Rectangle2D[] viewports = new Rectangle2D[Sprite.values().length];
+
+    /** Number of sprites with an image that are not copied into the atlas yet. */
+    private int loading;
+
+    /** Called when the last sprite has been copied into the atlas. */
+    private Runnable onLoaded = () -> {};
+
+    /**
+     * Constructor of the {@code Assets} class.
+     * It creates the atlas with placeholders and starts decoding the sprites in the background.
+     * It must be called on the JavaFX application thread.
+     *
+     * @param cellSize the size of a cell in pixels
+     */
+    public Assets(int cellSize) {
+        this.cellSize = cellSize;
+        atlas = new WritableImage(cellSize * viewports.length, cellSize);
+        PixelWriter writer = atlas.getPixelWriter();
+
+        for (Sprite sprite : Sprite.values()) {
+            int left = sprite.ordinal() * cellSize;
+            viewports[sprite.ordinal()] = new Rectangle2D(left, 0, cellSize, cellSize);
+            for (int y = 0; y < cellSize; y++) {
+                for (int x = 0; x < cellSize; x++) {
+                    writer.setArgb(left + x, y, sprite.getPlaceholder());
+                }
+            }
+        }
+
+        for (Sprite sprite : Sprite.values()) {
+            if (sprite.getPath() != null) {
+                loading++;
+            }
+        }
+        for (Sprite sprite : Sprite.values()) {
+            if (sprite.getPath() == null) {
+                continue;
+            }
+            Image image = image(sprite.getPath(), cellSize, cellSize);
+            if (image.getProgress() >= 1 || image.isError()) {
+                copy(sprite, image);
+            } else {
+                image.progressProperty().addListener((observable, oldProgress, progress) -> {
+                    if (progress.doubleValue() >= 1) {
+                        copy(sprite, image);
+                    }
+                });
+                image.errorProperty().addListener((observable, oldError, error) -> {
+                    if (error) {
+                        copy(sprite, image);
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Returns the shared image with the given path, decoded in the background at its natural size.
+     *
+     * @param path the path of the image on the class path
+     * @return the shared image
+     */
+    public static Image image(String path) {
+        return IMAGES.computeIfAbsent(path, key -> new Image(path, true));
+    }
+
+    /**
+     * Returns the shared image with the given path, decoded in the background and scaled to the given size.
+     *
+     * @param path   the path of the image on the class path
+     * @param width  the width of the image in pixels
+     * @param height the height of the image in pixels
+     * @return the shared image
+     */
+    public static Image image(String path, double width, double height) {
+        return IMAGES.computeIfAbsent(path + "@" + width + "x" + height,
+                key -> new Image(path, width, height, false, true, true));
+    }
+
+    /**
+     * Returns the atlas with all sprites.
+     *
+     * @return the atlas
+     */
+    public Image getAtlas() {
+        return atlas;
+    }
+
+    /**
+     * Returns the size of a cell and of every sprite in pixels.
+     *
+     * @return the size of a cell
+     */
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Returns the region of a sprite in the atlas.
+     *
+     * @param sprite the sprite
+     * @return the region of the sprite
+     */
+    public Rectangle2D getViewport(Sprite sprite) {
+        return viewports[sprite.ordinal()];
+    }
+
+    /**
+     * Returns the x-coordinate of a sprite in the atlas, the y-coordinate is always 0.
+     *
+     * @param sprite the sprite
+     * @return the x-coordinate of the sprite
+     */
+    public int getX(Sprite sprite) {
+        return sprite.ordinal() * cellSize;
+    }
+
+    /**
+     * Returns true if all sprites have been copied into the atlas.
+     *
+     * @return true if all sprites are loaded
+     */
+    public boolean isLoaded() {
+        return loading == 0;
+    }
+
+    /**
+     * Sets what happens when all sprites have been copied into the atlas, on the JavaFX application thread.
+     * If they already are, it is called right away.
+     *
+     * @param onLoaded called when all sprites are loaded
+     */
+    public void setOnLoaded(Runnable onLoaded) {
+        this.onLoaded = onLoaded;
+        if (isLoaded()) {
+            onLoaded.run();
+        }
+    }
+
+    /**
+     * Copies a decoded sprite into the atlas.
+     * A sprite that could not be decoded keeps its placeholder.
+     *
+     * @param sprite the sprite
+     * @param image  the decoded image of the sprite
+     */
+    private void copy(Sprite sprite, Image image) {
+        if (!image.isError()) {
+            int width = (int) Math.min(cellSize, image.getWidth());
+            int height = (int) Math.min(cellSize, image.getHeight());
+            atlas.getPixelWriter().setPixels(getX(sprite), 0, width, height, image.getPixelReader(), 0, 0);
+        } else {
+            System.out.println("The image " + sprite.getPath() + " could not be loaded.");
+        }
+        loading--;
+        if (loading == 0) {
+            onLoaded.run();
+        }
+    }
+}
@@ -0,0 +1,434 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code BatchEnv} class steps many games at once for training agents.
+ * The games are kept in primitive arrays instead of {@code Game} objects, and {@link #step(int[])}
+ * advances all of them with one action each and fills preallocated observation, reward and done buffers.
+ * A game that ended is reset right away, so its observation is already the start of the next episode.
+ *
+ * <p>Every game follows the rules of a {@code Game} with a single cat, a single cheese and random cat moves:
+ * the mouse moves and collects the cheese, which reappears on a random cell without a wall, the mouse or the cat,
+ * then the cat moves, and the game is over when the cat is on the mouse. A move onto a wall keeps the animal in place.
+ * The walls of the board are copied into one bit per cell when the environment is created,
+ * so the shards never read the terrain, which may not be safe to read from many threads,
+ * and later changes of the terrain do not apply to the games.
+ * A {@code Game} draws a new cheese from its set of free cells, which would cost an array per game here,
+ * so the cheese is drawn by rejecting the walls and the two occupied cells instead: the cheese has the same distribution,
+ * but the random numbers are not the ones a {@code Game} with the same seed would draw.
+ * Game {@code i} is seeded from the seed and {@code i}, like the games of the {@code MonteCarloRunner}.
+ * The games are split into shards with fork/join, which play the same way no matter how many threads step them.</p>
+ *
+ * <p>The buffers are owned by the environment and overwritten by every step. The class is not thread-safe.</p>
+ *
+ * @see         Game
+ * @see         MonteCarloRunner
+ * @see         GameRandom
+ * @author      Tania Argot
+ */
+public final class BatchEnv {
+
+    /** Number of values of an observation: the x and y of the mouse, the cat and the cheese. */
+    public static final int OBSERVATION_SIZE = 6;
+
+    /** Reward of a collected cheese. */
+    public static final float CHEESE_REWARD = 1;
+
+    /** Reward of the step in which the cat catches the mouse. */
+    public static final float CAPTURE_REWARD = -1;
+
+    /** Number of games a shard steps sequentially before the games are split further. */
+    private static final int SHARD_SIZE = 4096;
+
+    /** X-offsets of the actions, by ordinal of the {@code Direction}. */
+    private static final int[] DXS = new int[Direction.values().length];
+
+    /** Y-offsets of the actions, by ordinal of the {@code Direction}. */
+    private static final int[] DYS = new int[Direction.values().length];
+
+    static {
+        for (Direction direction : Direction.values()) {
+            DXS[direction.ordinal()] = direction.getDx();
+            DYS[direction.ordinal()] = direction.getDy();
+        }
+    }
+
+    /** Number of games. */
+    private final int count;
+
+    /** Largest x-coordinate of the board. */
+    private final int maxX;
+
+    /** Largest y-coordinate of the board. */
+    private final int maxY;
+
+    /** One bit per cell of the board, set if the cell is a wall, or null if the board is open. */
+    private final long[] walls;
+
+    /** Largest number of ticks of an episode, after which the game is done and reset. */
+    private final int maxTicks;
+
+    /** The pool the shards run on. */
+    private final ForkJoinPool pool;
+
+    /** X-coordinates of the mice. */
+    private final int[] mouseXs;
+
+    /** Y-coordinates of the mice. */
+    private final int[] mouseYs;
+
+    /** X-coordinates of the cats. */
+    private final int[] catXs;
+
+    /** Y-coordinates of the cats. */
+    private final int[] catYs;
+
+    /** X-coordinates of the cheeses. */
+    private final int[] cheeseXs;
+
+    /** Y-coordinates of the cheeses. */
+    private final int[] cheeseYs;
+
+    /** Ticks of the current episodes. */
+    private final int[] ticks;
+
+    /** States of the random number generators of the games. */
+    private final long[] states;
+
+    /** Observations of all games, {@link #OBSERVATION_SIZE} values per game. */
+    private final int[] observations;
+
+    /** Rewards of the last step. */
+    private final float[] rewards;
+
+    /** Whether an episode ended in the last step. */
+    private final boolean[] dones;
+
+    /** The actions of the current step, only set while the games are stepped. */
+    private int[] actions;
+
+    /**
+     * Constructor of the {@code BatchEnv} class that steps the games on the common fork/join pool.
+     *
+     * @param board    the board of all games
+     * @param count    the number of games
+     * @param seed     the seed of the games
+     * @param maxTicks the largest number of ticks of an episode
+     */
+    public BatchEnv(Board board, int count, long seed, int maxTicks) {
+        this(board, count, seed, maxTicks, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor of the {@code BatchEnv} class.
+     *
+     * @param board    the board of all games
+     * @param count    the number of games
+     * @param seed     the seed of the games
+     * @param maxTicks the largest number of ticks of an episode
+     * @param pool     the pool that steps the games
+     * @throws IllegalArgumentException if the number of games or the largest number of ticks is not positive,
+     *                                  the board has no room for a cheese next to the mouse and the cat,
+     *                                  a corner the mouse or the cat starts on is a wall,
+     *                                  or the board has walls and more than {@code FreeCellSet.MAX_CELLS} cells
+     */
+    public BatchEnv(Board board, int count, long seed, int maxTicks, ForkJoinPool pool) {
+        this.walls = copyWalls(board);
+        if (passableCells(board, walls) < 3) {
+            throw new IllegalArgumentException("The board needs at least three cells without a wall.");
+        }
+        if (!board.isPassable(0, 0) || !board.isPassable(board.getWidth() - 1, board.getHeight() - 1)) {
+            throw new IllegalArgumentException("The mouse and the cat cannot start on a wall.");
+        }
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive.");
+        }
+        if (maxTicks <= 0) {
+            throw new IllegalArgumentException("maxTicks must be positive.");
+        }
+        this.count = count;
+        this.maxX = board.getWidth() - 1;
+        this.maxY = board.getHeight() - 1;
+        this.maxTicks = maxTicks;
+        this.pool = pool;
+        mouseXs = new int[count];
+        mouseYs = new int[count];
+        catXs = new int[count];
+        catYs = new int[count];
+        cheeseXs = new int[count];
+        cheeseYs = new int[count];
+        ticks = new int[count];
+        states = new long[count];
+        observations = new int[count * OBSERVATION_SIZE];
+        rewards = new float[count];
+        dones = new boolean[count];
+
+        for (int i = 0; i < count; i++) {
+            states[i] = GameRandom.streamSeed(seed, i);
+            reset(i);
+            observe(i);
+        }
+    }
+
+    /**
+     * Copies the walls of a board into one bit per cell, numbered {@code y * width + x}.
+     *
+     * @param board the board
+     * @return the walls, or null if the board is open
+     * @throws IllegalArgumentException if the board has walls and more than {@code FreeCellSet.MAX_CELLS} cells
+     */
+    private static long[] copyWalls(Board board) {
+        if (board.getTerrain() == null) {
+            return null;
+        }
+        if (board.getCellCount() > FreeCellSet.MAX_CELLS) {
+            throw new IllegalArgumentException("A board with walls and " + board.getCellCount()
+                    + " cells is too large.");
+        }
+        int width = board.getWidth();
+        int cells = (int) board.getCellCount();
+        long[] walls = new long[(cells + Long.SIZE - 1) / Long.SIZE];
+        for (int cell = 0; cell < cells; cell++) {
+            if (!board.isPassable(cell % width, cell / width)) {
+                walls[cell >>> 6] |= 1L << cell;
+            }
+        }
+        return walls;
+    }
+
+    /**
+     * Counts the cells of a board without a wall.
+     *
+     * @param board the board
+     * @param walls the walls of the board, or null if it is open
+     * @return the number of cells without a wall
+     */
+    private static long passableCells(Board board, long[] walls) {
+        long cells = board.getCellCount();
+        if (walls != null) {
+            for (long word : walls) {
+                cells -= Long.bitCount(word);
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Returns the number of games.
+     *
+     * @return the number of games
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the observations of all games, overwritten by every step.
+     * The observation of game {@code i} starts at {@code i * OBSERVATION_SIZE} and holds the x and y of the mouse,
+     * of the cat and of the cheese.
+     *
+     * @return the observations
+     */
+    public int[] getObservations() {
+        return observations;
+    }
+
+    /**
+     * Returns the rewards of the last step, overwritten by every step.
+     *
+     * @return the rewards by game
+     */
+    public float[] getRewards() {
+        return rewards;
+    }
+
+    /**
+     * Returns whether an episode ended in the last step, because the cat caught the mouse
+     * or the episode reached the largest number of ticks. Overwritten by every step.
+     *
+     * @return the done flags by game
+     */
+    public boolean[] getDones() {
+        return dones;
+    }
+
+    /**
+     * Advances every game by one tick and fills the observation, reward and done buffers.
+     * Games that are done are reset, so their observation is the start of the next episode.
+     * All actions are checked before any game is stepped, so an invalid action leaves every game unchanged.
+     *
+     * @param actions the action of every game, the ordinal of a {@code Direction}
+     * @throws IllegalArgumentException if there is not one action per game or an action is not a direction
+     */
+    public void step(int[] actions) {
+        if (actions.length != count) {
+            throw new IllegalArgumentException("Expected " + count + " actions, got " + actions.length + ".");
+        }
+        for (int i = 0; i < count; i++) {
+            if (actions[i] < 0 || actions[i] >= DXS.length) {
+                throw new IllegalArgumentException("Invalid action " + actions[i] + " of game " + i + ".");
+            }
+        }
+        this.actions = actions;
+        try {
+            if (count <= SHARD_SIZE) {
+                step(0, count);
+            } else {
+                pool.invoke(new Shard(0, count));
+            }
+        } finally {
+            this.actions = null;
+        }
+    }
+
+    /**
+     * Advances the games in the range {@code [from, to)} by one tick. The actions were checked by the caller.
+     *
+     * @param from index of the first game (inclusive)
+     * @param to   index of the last game (exclusive)
+     */
+    private void step(int from, int to) {
+        int[] actions = this.actions;
+        for (int i = from; i < to; i++) {
+            int action = actions[i];
+            int mouseX = Math.max(0, Math.min(maxX, mouseXs[i] + DXS[action]));
+            int mouseY = Math.max(0, Math.min(maxY, mouseYs[i] + DYS[action]));
+            if (isWall(mouseX, mouseY)) {
+                mouseX = mouseXs[i];
+                mouseY = mouseYs[i];
+            }
+            mouseXs[i] = mouseX;
+            mouseYs[i] = mouseY;
+
+            long state = states[i];
+            float reward = 0;
+            if (mouseX == cheeseXs[i] && mouseY == cheeseYs[i]) {
+                reward = CHEESE_REWARD;
+                state = spawnCheese(i, state);
+            }
+
+            state = GameRandom.nextState(state);
+            int catX = Math.max(0, Math.min(maxX, catXs[i] + GameRandom.intOf(state, 3) - 1));
+            state = GameRandom.nextState(state);
+            int catY = Math.max(0, Math.min(maxY, catYs[i] + GameRandom.intOf(state, 3) - 1));
+            if (isWall(catX, catY)) {
+                catX = catXs[i];
+                catY = catYs[i];
+            }
+            catXs[i] = catX;
+            catYs[i] = catY;
+            states[i] = state;
+
+            boolean caught = catX == mouseX && catY == mouseY;
+            if (caught) {
+                reward += CAPTURE_REWARD;
+            }
+            boolean done = caught || ++ticks[i] >= maxTicks;
+            rewards[i] = reward;
+            dones[i] = done;
+            if (done) {
+                reset(i);
+            }
+            observe(i);
+        }
+    }
+
+    /**
+     * Starts a new episode of a game: the mouse and cat go back to their corners and a new cheese is placed.
+     *
+     * @param i the index of the game
+     */
+    private void reset(int i) {
+        mouseXs[i] = 0;
+        mouseYs[i] = 0;
+        catXs[i] = maxX;
+        catYs[i] = maxY;
+        ticks[i] = 0;
+        states[i] = spawnCheese(i, states[i]);
+    }
+
+    /**
+     * Places the cheese of a game on a random cell, drawing again while it is a wall or the mouse or the cat is on it.
+     *
+     * @param i     the index of the game
+     * @param state the state of the random number generator of the game
+     * @return the state after the draws
+     */
+    private long spawnCheese(int i, long state) {
+        int x;
+        int y;
+        do {
+            state = GameRandom.nextState(state);
+            x = GameRandom.intOf(state, maxX + 1);
+            state = GameRandom.nextState(state);
+            y = GameRandom.intOf(state, maxY + 1);
+        } while (isWall(x, y) || x == mouseXs[i] && y == mouseYs[i] || x == catXs[i] && y == catYs[i]);
+        cheeseXs[i] = x;
+        cheeseYs[i] = y;
+        return state;
+    }
+
+    /**
+     * Checks if a cell of the board is a wall.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is a wall, false otherwise
+     */
+    private boolean isWall(int x, int y) {
+        if (walls == null) {
+            return false;
+        }
+        int cell = y * (maxX + 1) + x;
+        return (walls[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Writes the observation of a game.
+     *
+     * @param i the index of the game
+     */
+    private void observe(int i) {
+        int offset = i * OBSERVATION_SIZE;
+        observations[offset] = mouseXs[i];
+        observations[offset + 1] = mouseYs[i];
+        observations[offset + 2] = catXs[i];
+        observations[offset + 3] = catYs[i];
+        observations[offset + 4] = cheeseXs[i];
+        observations[offset + 5] = cheeseYs[i];
+    }
+
+    /**
+     * The {@code Shard} class is a fork/join task that steps the games in the range {@code [from, to)}.
+     */
+    private final class Shard extends RecursiveAction {
+
+        /** Index of the first game (inclusive). */
+        private final int from;
+
+        /** Index of the last game (exclusive). */
+        private final int to;
+
+        /**
+         * Constructor of the {@code Shard} class.
+         *
+         * @param from index of the first game (inclusive)
+         * @param to   index of the last game (exclusive)
+         */
+        Shard(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SHARD_SIZE) {
+                step(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new Shard(from, middle), new Shard(middle, to));
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code Board} class describes the dimensions of the game grid.
+ * It is the single place where the size of the grid is defined, every movement is clamped to its bounds.
+ * An open board does not store anything per cell, so even boards with 100,000 x 100,000 cells take constant memory.
+ * A board can have a {@code Terrain} with walls, which animals cannot move onto,
+ * either an {@code ObstacleMap} in memory or a {@code ChunkedWorld} that is generated around the animals.
+ *
+ * @see         Terrain
+ * @see         ObstacleMap
+ * @see         ChunkedWorld
+ * @see         Game
+ * @see         Cat
+ * @see         Mouse
+ * @author      Tania Argot
+ */
+public final class Board {
+
+    /** The largest supported width and height of a board. */
+    public static final int MAX_SIZE = 1 << 20;
+
+    /** The default 10x10 board of the game. */
+    public static final Board DEFAULT = new Board(10, 10);
+
+    /** Width of the board. */
+    private final int width;
+
+    /** Height of the board. */
+    private final int height;
+
+    /** The walls of the board, or null if the board is open. */
+    private final Terrain terrain;
+
+    /**
+     * Constructor of the {@code Board} class.
+     *
+     * @param width  the width of the board
+     * @param height the height of the board
+     * @throws IllegalArgumentException if a dimension is not between 1 and {@link #MAX_SIZE}
+     */
+    public Board(int width, int height) {
+        if (width < 1 || height < 1 || width > MAX_SIZE || height > MAX_SIZE) {
+            throw new IllegalArgumentException("Board dimensions must be between 1 and " + MAX_SIZE + ".");
+        }
+        this.width = width;
+        this.height = height;
+        this.terrain = null;
+    }
+
+    /**
+     * Constructor of the {@code Board} class for a board with walls, which has the size of the terrain.
+     * The walls are not copied, so later changes of the terrain apply to the board.
+     *
+     * @param terrain the walls of the board
+     * @throws IllegalArgumentException if a dimension is not between 1 and {@link #MAX_SIZE}
+     */
+    public Board(Terrain terrain) {
+        if (terrain.getWidth() < 1 || terrain.getHeight() < 1
+                || terrain.getWidth() > MAX_SIZE || terrain.getHeight() > MAX_SIZE) {
+            throw new IllegalArgumentException("Board dimensions must be between 1 and " + MAX_SIZE + ".");
+        }
+        this.width = terrain.getWidth();
+        this.height = terrain.getHeight();
+        this.terrain = terrain;
+    }
+
+    /**
+     * Returns the width of the board.
+     *
+     * @return the width of the board
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the board.
+     *
+     * @return the height of the board
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the walls of the board.
+     *
+     * @return the terrain, or null if the board is open
+     */
+    public Terrain getTerrain() {
+        return terrain;
+    }
+
+    /**
+     * Returns the number of cells of the board.
+     *
+     * @return the number of cells
+     */
+    public long getCellCount() {
+        return (long) width * height;
+    }
+
+    /**
+     * Clamps an x-coordinate to the bounds {@code [0, width - 1]}.
+     *
+     * @param x the x-coordinate
+     * @return the clamped x-coordinate
+     */
+    public int clampX(int x) {
+        return Math.max(0, Math.min(width - 1, x));
+    }
+
+    /**
+     * Clamps a y-coordinate to the bounds {@code [0, height - 1]}.
+     *
+     * @param y the y-coordinate
+     * @return the clamped y-coordinate
+     */
+    public int clampY(int y) {
+        return Math.max(0, Math.min(height - 1, y));
+    }
+
+    /**
+     * Checks if a cell is on the board.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is on the board, false otherwise
+     */
+    public boolean contains(int x, int y) {
+        return x >= 0 && y >= 0 && x < width && y < height;
+    }
+
+    /**
+     * Checks if an animal can stand on a cell, which is a bounds check and a lookup in the terrain.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is on the board and not a wall, false otherwise
+     */
+    public boolean isPassable(int x, int y) {
+        return contains(x, y) && (terrain == null || !terrain.isWall(x, y));
+    }
+}
@@ -0,0 +1,184 @@
+package goop.tomandjerry.tania;
+import javafx.geometry.Insets;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.StackPane;
+import java.util.Arrays;
+
+/**
+ * The {@code CanvasRenderer} class draws the game grid on a single {@code Canvas}.
+ * Only a viewport of the board around the mouse is visible, so large boards need no scene graph node per cell.
+ * While the viewport stays in place, only the cells that changed are redrawn,
+ * found by comparing the sprite of every visible cell with the sprite drawn there before.
+ * When the viewport scrolls, the visible cells are redrawn, which is bounded by the size of the viewport
+ * and not by the size of the board.
+ * The cells are copied from the atlas of {@code Assets} at their natural size.
+ * Walls are looked up in the terrain of the board only for the cells that are drawn,
+ * so a {@code ChunkedWorld} only loads the chunks in the viewport.
+ * A {@code GameFrame} brings the walls of its viewport along, so they are not read from a terrain another thread uses.
+ *
+ * @see         GridRenderer
+ * @see         ImageViewRenderer
+ * @see         Assets
+ * @author      Tania Argot
+ */
+public class CanvasRenderer implements GridRenderer {
+
+    /** Gap between two cells in pixels. */
+    private static final int GAP = 1;
+
+    /** The board to draw. */
+    private final Board board;
+
+    /** Size of a cell in pixels. */
+    private final int cellSize;
+
+    /** Number of visible columns. */
+    private final int columns;
+
+    /** Number of visible rows. */
+    private final int rows;
+
+    /** The canvas the grid is drawn on. */
+    private final Canvas canvas;
+
+    /** The pane holding the canvas. */
+    private final StackPane pane;
+
+    /** The assets with the atlas of the sprites. */
+    private final Assets assets;
+
+    /** The frame drawn last, whose walls are drawn, or null to read the walls from the board. */
+    private GameFrame frame;
+
+    /** Board x-coordinate of the top left visible cell, or -1 if nothing was drawn. */
+    private int originX = -1;
+
+    /** Board y-coordinate of the top left visible cell, or -1 if nothing was drawn. */
+    private int originY = -1;
+
+    /** Sprites drawn in the visible cells when drawing entities, by row and column, or null if unknown. */
+    private final Sprite[] shownCells;
+
+    /** Sprites of the next frame in the visible cells when drawing entities, by row and column. */
+    private final Sprite[] nextCells;
+
+    /**
+     * Constructor of the {@code CanvasRenderer} class.
+     *
+     * @param board         the board to draw
+     * @param assets        the assets with the atlas of the sprites
+     * @param viewportCells the largest number of visible cells per row and column
+     */
+    public CanvasRenderer(Board board, Assets assets, int viewportCells) {
+        this.board = board;
+        this.assets = assets;
+        this.cellSize = assets.getCellSize();
+        this.columns = Math.min(board.getWidth(), viewportCells);
+        this.rows = Math.min(board.getHeight(), viewportCells);
+
+        shownCells = new Sprite[columns * rows];
+        nextCells = new Sprite[columns * rows];
+
+        canvas = new Canvas(columns * (cellSize + GAP) - GAP, rows * (cellSize + GAP) - GAP);
+        pane = new StackPane(canvas);
+        pane.setPadding(new Insets(0, 10, 10, 10));
+    }
+
+    @Override
+    public Node getNode() {
+        return pane;
+    }
+
+    /**
+     * Draws all entities of a store.
+     * The viewport follows the focused entity, or stays in the top left corner without one.
+     * If it moved, all visible cells are redrawn, otherwise only the cells whose sprite changed.
+     *
+     * @param entities the entities to draw
+     * @param focusId  the ID of the entity the viewport follows, or -1 for none
+     */
+    @Override
+    public void render(EntityStore entities, int focusId) {
+        frame = null;
+        renderEntities(entities, focusId);
+    }
+
+    @Override
+    public void render(GameFrame frame) {
+        this.frame = frame;
+        renderEntities(frame.getEntities(), frame.getMouseId());
+    }
+
+    /**
+     * Draws all entities of a store, with the viewport on the focused entity.
+     *
+     * @param entities the entities to draw
+     * @param focusId  the ID of the entity the viewport follows, or -1 for none
+     */
+    private void renderEntities(EntityStore entities, int focusId) {
+        int newOriginX = 0;
+        int newOriginY = 0;
+        if (focusId >= 0 && entities.getType(focusId) != EntityStore.FREE) {
+            newOriginX = Math.max(0, Math.min(board.getWidth() - columns, entities.getX(focusId) - columns / 2));
+            newOriginY = Math.max(0, Math.min(board.getHeight() - rows, entities.getY(focusId) - rows / 2));
+        }
+        if (newOriginX != originX || newOriginY != originY) {
+            originX = newOriginX;
+            originY = newOriginY;
+            Arrays.fill(shownCells, null);
+        }
+
+        GridRenderer.fillCells(entities, originX, originY, columns, rows, nextCells);
+        GraphicsContext graphics = canvas.getGraphicsContext2D();
+        for (int cell = 0; cell < nextCells.length; cell++) {
+            Sprite sprite = nextCells[cell];
+            if (sprite != shownCells[cell]) {
+                drawCell(graphics, originX + cell % columns, originY + cell / columns, sprite);
+                shownCells[cell] = sprite;
+            }
+        }
+    }
+
+    /**
+     * Forgets the viewport, so the next frame redraws all visible cells.
+     */
+    @Override
+    public void invalidate() {
+        originX = -1;
+        originY = -1;
+        Arrays.fill(shownCells, null);
+    }
+
+    /**
+     * Draws a sprite into a visible cell of the board.
+     * The sprite is drawn over an empty cell, or over a wall if the frame or the terrain of the board has one there.
+     *
+     * @param graphics the graphics context of the canvas
+     * @param x        the board x-coordinate of the cell
+     * @param y        the board y-coordinate of the cell
+     * @param sprite   the sprite to draw
+     */
+    private void drawCell(GraphicsContext graphics, int x, int y, Sprite sprite) {
+        double left = (x - originX) * (cellSize + GAP);
+        double top = (y - originY) * (cellSize + GAP);
+        boolean wall = frame != null ? frame.isWall(x, y) : !board.isPassable(x, y);
+        drawSprite(graphics, wall ? Sprite.WALL : Sprite.EMPTY, left, top);
+        if (sprite != Sprite.EMPTY) {
+            drawSprite(graphics, sprite, left, top);
+        }
+    }
+
+    /**
+     * Copies a sprite from the atlas to the canvas.
+     *
+     * @param graphics the graphics context of the canvas
+     * @param sprite   the sprite to draw
+     * @param left     the x-coordinate on the canvas
+     * @param top      the y-coordinate on the canvas
+     */
+    private void drawSprite(GraphicsContext graphics, Sprite sprite, double left, double top) {
+        graphics.drawImage(assets.getAtlas(), assets.getX(sprite), 0, cellSize, cellSize, left, top, cellSize, cellSize);
+    }
+}
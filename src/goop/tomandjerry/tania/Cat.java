@@ -1,22 +1,19 @@
 package goop.tomandjerry.tania;
-import java.util.Random;
 
 /**
  * The {@code Cat} class represents a cat in the game.
  * The subclass {@code Cat} extends the abstract {@code Animal} class, inheriting its attributes and methods.
- * It also has a {@code Random} object to generate random numbers as its attribute besides the inherited ones.
- * The class contains a {@code moveRandomly()} method that allows the cat to move randomly on the grid.
+ * The class contains a {@code moveRandomly(GameRandom, Board)} method that allows the cat to move randomly on the grid.
+ * The random numbers come from the generator of the game, so a game with a fixed seed is reproducible.
  *
  * @see         Animal
+ * @see         Board
  * @see         Game
  * @see         GameGUI
  * @author      Tania Argot
  */
 public class Cat extends Animal {
 
-    /** Random object to generate random numbers. */
-    private final Random random = new Random();
-
     /**
      * Constructor of subclass {@code Cat}.
      *
@@ -25,20 +22,37 @@ public class Cat extends Animal {
      * @param catY     y-coordinate of the cat
      */
     public Cat(String catName, int catX, int catY) {
-        super(catName, catX, catY);
+        super(catName, EntityStore.CAT, catX, catY);
+    }
+
+    /**
+     * Constructor of subclass {@code Cat} as a view over an entity of a shared store.
+     *
+     * @param catName  name of the cat
+     * @param store    the store that holds the coordinates of the cat
+     * @param id       ID of the cat in the store
+     */
+    public Cat(String catName, EntityStore store, int id) {
+        super(catName, store, id);
     }
 
     /**
-     * Allows the cat to move randomly on the grid within the bounds [0, 9],
-     * because the grid of the game is 10x10.
+     * Allows the cat to move randomly on the grid within the bounds of the board.
      * The method sets the new x- and y-coordinates of the cat,
      * ensuring that it can move randomly between -1, 0, or 1 in both x and y directions.
+     * The cat stays where it is if the new cell is a wall.
+     *
+     * @param random the random number generator of the game
+     * @param board  the board the cat moves on
      */
-    public void moveRandomly() {
+    public void moveRandomly(GameRandom random, Board board) {
         int catX = random.nextInt(3) - 1;
         int catY = random.nextInt(3) - 1;
 
-        setX(Math.max(0, Math.min(9, getX() + catX)));
-        setY(Math.max(0, Math.min(9, getY() + catY)));
+        int x = board.clampX(getX() + catX);
+        int y = board.clampY(getY() + catY);
+        if (board.isPassable(x, y)) {
+            setPosition(x, y);
+        }
     }
 }
\ No newline at end of file
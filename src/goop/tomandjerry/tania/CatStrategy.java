@@ -0,0 +1,23 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code CatStrategy} interface decides how the cats of a game move in each tick.
+ * The strategy of a game is called from {@code Game.update()} and moves all cats at once.
+ * Cats must be moved through the {@code EntityStore} of the game, so its spatial index stays up to date.
+ *
+ * @see         RandomCatStrategy
+ * @see         GreedyCatStrategy
+ * @see         DistanceFieldCatStrategy
+ * @see         ParallelCatStrategy
+ * @see         Game
+ * @author      Tania Argot
+ */
+@FunctionalInterface
+public interface CatStrategy {
+
+    /**
+     * Moves all cats of the game by one step.
+     *
+     * @param game the game whose cats move
+     */
+    void moveCats(Game game);
+}
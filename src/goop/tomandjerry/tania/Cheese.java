@@ -3,7 +3,8 @@ package goop.tomandjerry.tania;
  * The {@code Cheese} class represents a cheese in the game, which the {@code Mouse} can collect.
  * It has x- and y-coordinates as its attributes.
  * The class contains a constructor to initialize the attributes and getter methods to access them.
- * The {@code Cheese} object is not meant to be moved, so setter methods are not needed.
+ * A game keeps one {@code Cheese} object and moves it to the next location when it is collected,
+ * so no new object is created for every cheese.
  *
  * @see         Game
  * @see         GameGUI
@@ -13,10 +14,10 @@ package goop.tomandjerry.tania;
 public class Cheese {
 
     /** X-coordinate of the cheese. */
-    private final int cheeseX;
+    private int cheeseX;
 
     /** Y-coordinate of the cheese. */
-    private final int cheeseY;
+    private int cheeseY;
 
     /**
      * Constructor of the {@code Cheese} class.
@@ -46,4 +47,15 @@ public class Cheese {
     public int getY() {
         return cheeseY;
     }
+
+    /**
+     * Moves the cheese to the given location.
+     *
+     * @param x     x-coordinate of the cheese
+     * @param y     y-coordinate of the cheese
+     */
+    void setPosition(int x, int y) {
+        this.cheeseX = x;
+        this.cheeseY = y;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,555 @@
+package goop.tomandjerry.tania;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * The {@code ChunkedWorld} class is a terrain for boards that are too large to keep in memory,
+ * up to {@code Board.MAX_SIZE} cells per side.
+ * The board is split into chunks of {@link #CHUNK_SIZE} x {@link #CHUNK_SIZE} cells.
+ * The walls and the cheese spots of a chunk are generated from the seed of the world and the position of the chunk,
+ * so a chunk looks the same every time it is generated and nothing is stored for chunks nobody visits.
+ *
+ * <p>A chunk is generated when one of its cells is looked up for the first time, e.g. by a cat walking into it.
+ * Around the mouse the chunks are loaded ahead of time by a background thread:
+ * when the mouse enters a new chunk or turns, the chunks around it and the chunks in the direction
+ * it is heading are requested, and the finished chunks are taken over at its next move.
+ * At most {@code capacity} chunks are kept in memory and the chunk used least recently is evicted first.
+ * An evicted chunk is spilled to a file if the world has one, and read back from there the next time,
+ * otherwise it is generated again.</p>
+ *
+ * <p>Lookups, prefetch requests and evictions happen on the thread of the game, only generating chunks and
+ * reading them back from the spill file happens in the background. A chunk never changes once it is generated,
+ * so a lookup gives the same answer whether its chunk was prefetched, loaded on demand or read back,
+ * and a game on the world plays exactly the same for the same seeds.</p>
+ *
+ * @see         Terrain
+ * @see         Board
+ * @see         ObstacleMap
+ * @author      Tania Argot
+ */
+public final class ChunkedWorld implements Terrain, AutoCloseable {
+
+    /** Base 2 logarithm of the size of a chunk. */
+    public static final int CHUNK_BITS = 6;
+
+    /** Width and height of a chunk in cells, a row of a chunk is one {@code long}. */
+    public static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+
+    /** Number of cells per chunk where a cheese can appear. */
+    public static final int CHEESE_SPOTS = 4;
+
+    /** Number of chunks requested ahead of the mouse in the direction it is heading. */
+    public static final int PREFETCH_AHEAD = 2;
+
+    /** Smallest number of chunks kept in memory, the chunks around the mouse and ahead of it. */
+    public static final int MIN_CAPACITY = 9 + 3 * PREFETCH_AHEAD + 1;
+
+    /** Percentage of the cells of a chunk that are walls. */
+    private static final int WALL_PERCENT = 12;
+
+    /** Mask of the coordinates of a cell within its chunk. */
+    private static final int MASK = CHUNK_SIZE - 1;
+
+    /** Size of a chunk in the spill file, the rows of walls followed by the cheese spots. */
+    private static final int CHUNK_BYTES = CHUNK_SIZE * Long.BYTES + CHEESE_SPOTS * Integer.BYTES;
+
+    /** Width of the world. */
+    private final int width;
+
+    /** Height of the world. */
+    private final int height;
+
+    /** Seed the chunks are generated from. */
+    private final long seed;
+
+    /** Largest number of chunks kept in memory. */
+    private final int capacity;
+
+    /** Largest x-coordinate of a chunk. */
+    private final int maxChunkX;
+
+    /** Largest y-coordinate of a chunk. */
+    private final int maxChunkY;
+
+    /** Chunks in memory by key, from the least to the most recently used. */
+    private final LinkedHashMap<Long, Chunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Slots of the spilled chunks in the spill file by key. */
+    private final Map<Long, Integer> spillSlots = new HashMap<>();
+
+    /** Keys of the chunks requested from the loader and not taken over yet. */
+    private final Set<Long> pending = new HashSet<>();
+
+    /** Chunks finished by the loader, waiting to be taken over by the thread of the game. */
+    private final Map<Long, Chunk> ready = new ConcurrentHashMap<>();
+
+    /** Thread that generates and reads back the requested chunks. */
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "world-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** File the evicted chunks are spilled to, or null if they are generated again. */
+    private final FileChannel spill;
+
+    /** Key of the chunk of the last lookup, or -1 before the first lookup. */
+    private long lastKey = -1;
+
+    /** Chunk of the last lookup. */
+    private Chunk lastChunk;
+
+    /** X-coordinate of the chunk of the mouse at the last prefetch, or -1 before the first prefetch. */
+    private int followedX = -1;
+
+    /** Y-coordinate of the chunk of the mouse at the last prefetch, or -1 before the first prefetch. */
+    private int followedY = -1;
+
+    /** X-direction the mouse is heading in. */
+    private int headingX;
+
+    /** Y-direction the mouse is heading in. */
+    private int headingY;
+
+    /** Number of chunks loaded on the thread of the game because they were not prefetched. */
+    private long demandLoads;
+
+    /** Number of chunks requested from the loader. */
+    private long prefetches;
+
+    /**
+     * The walls and cheese spots of a chunk, which never change.
+     *
+     * @param walls   the rows of walls, bit {@code x} of row {@code y} is set if the cell is a wall
+     * @param cheeses the cells where a cheese can appear as {@code y << CHUNK_BITS | x}, none of them is a wall
+     */
+    private record Chunk(long[] walls, int[] cheeses) {
+    }
+
+    /**
+     * Constructor of the {@code ChunkedWorld} class for a world whose evicted chunks are generated again.
+     *
+     * @param width    the width of the world
+     * @param height   the height of the world
+     * @param seed     the seed the chunks are generated from
+     * @param capacity the largest number of chunks kept in memory
+     * @throws IllegalArgumentException if a dimension is not between 1 and {@code Board.MAX_SIZE}
+     *                                  or the capacity is smaller than {@link #MIN_CAPACITY}
+     */
+    public ChunkedWorld(int width, int height, long seed, int capacity) {
+        this(width, height, seed, capacity, (FileChannel) null);
+    }
+
+    /**
+     * Constructor of the {@code ChunkedWorld} class for a world whose evicted chunks are spilled to a file.
+     * The file is overwritten and deleted when the world is closed.
+     *
+     * @param width     the width of the world
+     * @param height    the height of the world
+     * @param seed      the seed the chunks are generated from
+     * @param capacity  the largest number of chunks kept in memory
+     * @param spillFile the file the evicted chunks are spilled to
+     * @throws IOException              if the spill file cannot be created
+     * @throws IllegalArgumentException if a dimension is not between 1 and {@code Board.MAX_SIZE}
+     *                                  or the capacity is smaller than {@link #MIN_CAPACITY}
+     */
+    public ChunkedWorld(int width, int height, long seed, int capacity, Path spillFile) throws IOException {
+        this(width, height, seed, capacity, FileChannel.open(spillFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.DELETE_ON_CLOSE));
+    }
+
+    /**
+     * Constructor of the {@code ChunkedWorld} class.
+     *
+     * @param width     the width of the world
+     * @param height    the height of the world
+     * @param seed      the seed the chunks are generated from
+     * @param capacity  the largest number of chunks kept in memory
+     * @param spill     the opened spill file, or null if evicted chunks are generated again
+     */
+    private ChunkedWorld(int width, int height, long seed, int capacity, FileChannel spill) {
+        if (width < 1 || height < 1 || width > Board.MAX_SIZE || height > Board.MAX_SIZE) {
+            closeQuietly(spill);
+            throw new IllegalArgumentException("World dimensions must be between 1 and " + Board.MAX_SIZE + ".");
+        }
+        if (capacity < MIN_CAPACITY) {
+            closeQuietly(spill);
+            throw new IllegalArgumentException("A world must keep at least " + MIN_CAPACITY + " chunks.");
+        }
+        this.width = width;
+        this.height = height;
+        this.seed = seed;
+        this.capacity = capacity;
+        this.maxChunkX = (width - 1) >> CHUNK_BITS;
+        this.maxChunkY = (height - 1) >> CHUNK_BITS;
+        this.spill = spill;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if a cell is a wall.
+     * A lookup in the chunk of the last lookup is a single bit test,
+     * a chunk that is not in memory is loaded on the calling thread.
+     *
+     * @param x the x-coordinate of the cell, which must be on the world
+     * @param y the y-coordinate of the cell, which must be on the world
+     * @return true if the cell is a wall, false otherwise
+     */
+    @Override
+    public boolean isWall(int x, int y) {
+        long key = key(x >> CHUNK_BITS, y >> CHUNK_BITS);
+        Chunk chunk = key == lastKey ? lastChunk : chunk(key);
+        return (chunk.walls()[y & MASK] >>> (x & MASK) & 1) != 0;
+    }
+
+    /**
+     * Chooses one of the cheese spots of the chunk of the mouse or of one of its eight neighbors.
+     *
+     * @param random the random number generator of the game
+     * @param mouseX the x-coordinate of the mouse
+     * @param mouseY the y-coordinate of the mouse
+     * @return the cell of the cheese as {@code x << 32 | y}
+     */
+    @Override
+    public long nextCheese(GameRandom random, int mouseX, int mouseY) {
+        int chunkX = Math.max(0, Math.min(maxChunkX, (mouseX >> CHUNK_BITS) + random.nextInt(3) - 1));
+        int chunkY = Math.max(0, Math.min(maxChunkY, (mouseY >> CHUNK_BITS) + random.nextInt(3) - 1));
+        int spot = chunk(key(chunkX, chunkY)).cheeses()[random.nextInt(CHEESE_SPOTS)];
+        int x = (chunkX << CHUNK_BITS) + (spot & MASK);
+        int y = (chunkY << CHUNK_BITS) + (spot >>> CHUNK_BITS);
+        return (long) x << 32 | y;
+    }
+
+    /**
+     * Takes over the chunks finished by the loader and, if the mouse entered a new chunk or turned,
+     * requests the chunks around the mouse and ahead of it.
+     *
+     * @param x  the x-coordinate of the mouse
+     * @param y  the y-coordinate of the mouse
+     * @param dx the x-direction of the last move, between -1 and 1
+     * @param dy the y-direction of the last move, between -1 and 1
+     */
+    @Override
+    public void follow(int x, int y, int dx, int dy) {
+        takeOverReady();
+
+        int chunkX = x >> CHUNK_BITS;
+        int chunkY = y >> CHUNK_BITS;
+        boolean turned = (dx != 0 || dy != 0) && (dx != headingX || dy != headingY);
+        if (chunkX == followedX && chunkY == followedY && !turned) {
+            return;
+        }
+        followedX = chunkX;
+        followedY = chunkY;
+        if (turned) {
+            headingX = dx;
+            headingY = dy;
+        }
+
+        for (int row = -1; row <= 1; row++) {
+            for (int column = -1; column <= 1; column++) {
+                prefetch(chunkX + column, chunkY + row);
+            }
+        }
+        if (headingX != 0 || headingY != 0) {
+            for (int distance = 2; distance <= PREFETCH_AHEAD + 1; distance++) {
+                for (int side = -1; side <= 1; side++) {
+                    prefetch(chunkX + distance * headingX - side * headingY,
+                            chunkY + distance * headingY + side * headingX);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of chunks in memory.
+     *
+     * @return the number of chunks in memory, at most the capacity
+     */
+    public int getChunkCount() {
+        return chunks.size();
+    }
+
+    /**
+     * Returns the number of chunks that were loaded on the thread of the game because they were not prefetched.
+     *
+     * @return the number of loads on demand
+     */
+    public long getDemandLoads() {
+        return demandLoads;
+    }
+
+    /**
+     * Returns the number of chunks requested from the loader.
+     *
+     * @return the number of prefetched chunks
+     */
+    public long getPrefetches() {
+        return prefetches;
+    }
+
+    /**
+     * Returns the number of chunks in the spill file.
+     *
+     * @return the number of spilled chunks, 0 if the world has no spill file
+     */
+    public int getSpilledChunks() {
+        return spillSlots.size();
+    }
+
+    /**
+     * Stops the loader and deletes the spill file.
+     * The world must not be used afterwards.
+     *
+     * @throws IOException if the spill file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        loader.shutdownNow();
+        if (spill != null) {
+            spill.close();
+        }
+    }
+
+    /**
+     * Returns the chunk with the given key, loading it if it is not in memory.
+     *
+     * @param key the key of the chunk
+     * @return the chunk
+     */
+    private Chunk chunk(long key) {
+        Chunk chunk = chunks.get(key);
+        if (chunk == null) {
+            chunk = ready.remove(key);
+            if (chunk != null) {
+                pending.remove(key);
+            } else {
+                chunk = load(key, spillSlots.getOrDefault(key, -1));
+                demandLoads++;
+            }
+            install(key, chunk);
+        }
+        lastKey = key;
+        lastChunk = chunk;
+        return chunk;
+    }
+
+    /**
+     * Requests a chunk from the loader, unless it is off the world, in memory or already requested.
+     *
+     * @param chunkX the x-coordinate of the chunk
+     * @param chunkY the y-coordinate of the chunk
+     */
+    private void prefetch(int chunkX, int chunkY) {
+        if (chunkX < 0 || chunkY < 0 || chunkX > maxChunkX || chunkY > maxChunkY) {
+            return;
+        }
+        long key = key(chunkX, chunkY);
+        if (chunks.containsKey(key) || !pending.add(key)) {
+            return;
+        }
+        int slot = spillSlots.getOrDefault(key, -1);
+        prefetches++;
+        loader.execute(() -> ready.put(key, load(key, slot)));
+    }
+
+    /**
+     * Moves the chunks finished by the loader into memory.
+     */
+    private void takeOverReady() {
+        if (ready.isEmpty()) {
+            return;
+        }
+        for (Iterator<Map.Entry<Long, Chunk>> iterator = ready.entrySet().iterator(); iterator.hasNext(); ) {
+            Map.Entry<Long, Chunk> entry = iterator.next();
+            iterator.remove();
+            pending.remove(entry.getKey());
+            if (!chunks.containsKey(entry.getKey())) {
+                install(entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Puts a chunk into memory and evicts the least recently used chunk if there are too many.
+     *
+     * @param key   the key of the chunk
+     * @param chunk the chunk
+     */
+    private void install(long key, Chunk chunk) {
+        chunks.put(key, chunk);
+        if (chunks.size() > capacity) {
+            Iterator<Map.Entry<Long, Chunk>> eldest = chunks.entrySet().iterator();
+            Map.Entry<Long, Chunk> entry = eldest.next();
+            writeSpilled(entry.getKey(), entry.getValue());
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Loads a chunk from the spill file, or generates it if it was never spilled.
+     * It is called by the loader and by the thread of the game.
+     *
+     * @param key  the key of the chunk
+     * @param slot the slot of the chunk in the spill file, or -1 if it was never spilled
+     * @return the chunk
+     * @throws UncheckedIOException if the spill file cannot be read
+     */
+    private Chunk load(long key, int slot) {
+        return slot >= 0 ? readSpilled(slot) : generate(key);
+    }
+
+    /**
+     * Generates a chunk from the seed of the world and the key of the chunk.
+     * The start cells of the mouse and the cat and all cheese spots are never walls.
+     *
+     * @param key the key of the chunk
+     * @return the chunk
+     */
+    private Chunk generate(long key) {
+        int chunkX = (int) (key >>> 32);
+        int chunkY = (int) key;
+        GameRandom random = GameRandom.stream(seed, key);
+
+        long[] walls = new long[CHUNK_SIZE];
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            long bits = 0;
+            for (int column = 0; column < CHUNK_SIZE; column++) {
+                if (random.nextInt(100) < WALL_PERCENT) {
+                    bits |= 1L << column;
+                }
+            }
+            walls[row] = bits;
+        }
+        if (chunkX == 0 && chunkY == 0) {
+            walls[0] &= ~1L;
+        }
+        if (chunkX == maxChunkX && chunkY == maxChunkY) {
+            walls[(height - 1) & MASK] &= ~(1L << ((width - 1) & MASK));
+        }
+
+        int columns = Math.min(CHUNK_SIZE, width - (chunkX << CHUNK_BITS));
+        int rows = Math.min(CHUNK_SIZE, height - (chunkY << CHUNK_BITS));
+        int[] cheeses = new int[CHEESE_SPOTS];
+        for (int i = 0; i < CHEESE_SPOTS; i++) {
+            int column = random.nextInt(columns);
+            int row = random.nextInt(rows);
+            walls[row] &= ~(1L << column);
+            cheeses[i] = row << CHUNK_BITS | column;
+        }
+        return new Chunk(walls, cheeses);
+    }
+
+    /**
+     * Writes an evicted chunk to the spill file, unless it is already there or the world has no spill file.
+     *
+     * @param key   the key of the chunk
+     * @param chunk the chunk
+     * @throws UncheckedIOException if the spill file cannot be written
+     */
+    private void writeSpilled(long key, Chunk chunk) {
+        if (spill == null || spillSlots.containsKey(key)) {
+            return;
+        }
+        int slot = spillSlots.size();
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        for (long row : chunk.walls()) {
+            buffer.putLong(row);
+        }
+        for (int cheese : chunk.cheeses()) {
+            buffer.putInt(cheese);
+        }
+        buffer.flip();
+        try {
+            long position = (long) slot * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                position += spill.write(buffer, position);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        spillSlots.put(key, slot);
+    }
+
+    /**
+     * Reads a chunk back from the spill file.
+     *
+     * @param slot the slot of the chunk in the spill file
+     * @return the chunk
+     * @throws UncheckedIOException if the spill file cannot be read
+     */
+    private Chunk readSpilled(int slot) {
+        ByteBuffer buffer = ByteBuffer.allocate(CHUNK_BYTES);
+        try {
+            long position = (long) slot * CHUNK_BYTES;
+            while (buffer.hasRemaining()) {
+                int read = spill.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new EOFException("The spill file ends inside chunk " + slot + ".");
+                }
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        buffer.flip();
+        long[] walls = new long[CHUNK_SIZE];
+        for (int row = 0; row < CHUNK_SIZE; row++) {
+            walls[row] = buffer.getLong();
+        }
+        int[] cheeses = new int[CHEESE_SPOTS];
+        for (int i = 0; i < CHEESE_SPOTS; i++) {
+            cheeses[i] = buffer.getInt();
+        }
+        return new Chunk(walls, cheeses);
+    }
+
+    /**
+     * Returns the key of a chunk.
+     *
+     * @param chunkX the x-coordinate of the chunk
+     * @param chunkY the y-coordinate of the chunk
+     * @return the key, which is never negative
+     */
+    private static long key(int chunkX, int chunkY) {
+        return (long) chunkX << 32 | chunkY;
+    }
+
+    /**
+     * Closes a spill file after a failed constructor call.
+     *
+     * @param spill the spill file, or null
+     */
+    private static void closeQuietly(FileChannel spill) {
+        if (spill != null) {
+            try {
+                spill.close();
+            } catch (IOException exception) {
+                // The world was never created, nothing else can be done about the file.
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code Direction} enum represents one move of the mouse.
+ * Each direction has an x- and y-offset, which are passed to {@code Game.moveMouse(int, int)}.
+ *
+ * @see         Game
+ * @see         MousePolicy
+ * @author      Tania Argot
+ */
+public enum Direction {
+
+    /** The mouse stays where it is. */
+    NONE(0, 0),
+
+    /** The mouse moves up. */
+    UP(0, -1),
+
+    /** The mouse moves down. */
+    DOWN(0, 1),
+
+    /** The mouse moves left. */
+    LEFT(-1, 0),
+
+    /** The mouse moves right. */
+    RIGHT(1, 0);
+
+    /** X-offset of the direction. */
+    private final int dx;
+
+    /** Y-offset of the direction. */
+    private final int dy;
+
+    /**
+     * Constructor of the {@code Direction} enum.
+     *
+     * @param dx x-offset of the direction
+     * @param dy y-offset of the direction
+     */
+    Direction(int dx, int dy) {
+        this.dx = dx;
+        this.dy = dy;
+    }
+
+    /**
+     * Returns the x-offset of the direction.
+     *
+     * @return the x-offset of the direction
+     */
+    public int getDx() {
+        return dx;
+    }
+
+    /**
+     * Returns the y-offset of the direction.
+     *
+     * @return the y-offset of the direction
+     */
+    public int getDy() {
+        return dy;
+    }
+}
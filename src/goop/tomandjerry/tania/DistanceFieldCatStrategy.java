@@ -0,0 +1,215 @@
+package goop.tomandjerry.tania;
+import java.util.Arrays;
+
+/**
+ * The {@code DistanceFieldCatStrategy} class moves every cat along a shortest path to the mouse.
+ * It keeps a breadth-first search distance field from the mouse over a square window around it,
+ * where each cell holds the number of cat moves to the mouse.
+ * The field is cached and only computed again when the mouse moved or when {@code invalidate()}
+ * is called after the obstacles changed, not in every tick.
+ * Since the window has a fixed size, the cost of a tick stays bounded on large boards.
+ * Walls of the {@code Terrain} of the board are blocked cells of the search, so cats walk around them.
+ * Cats outside the window move greedily towards the mouse until they enter it, unless a wall is in the way.
+ *
+ * @see         CatStrategy
+ * @see         GreedyCatStrategy
+ * @author      Tania Argot
+ */
+public final class DistanceFieldCatStrategy implements CatStrategy {
+
+    /** Distance of a cell that cannot reach the mouse. */
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    /** Marker of a window cell that is off the board or on the border of the window. */
+    private static final int BLOCKED = -1;
+
+    /** X-offsets of the nine cat moves, staying put comes last. */
+    private static final int[] MOVE_X = {-1, 0, 1, -1, 1, -1, 0, 1, 0};
+
+    /** Y-offsets of the nine cat moves, staying put comes last. */
+    private static final int[] MOVE_Y = {-1, -1, -1, 0, 0, 1, 1, 1, 0};
+
+    /** Largest distance from the mouse to the border of the window. */
+    private final int radius;
+
+    /** Side length of the window. */
+    private final int side;
+
+    /** Side length of the window with a border of blocked cells on each side. */
+    private final int stride;
+
+    /** Distances to the mouse by padded window cell {@code (row + 1) * stride + column + 1}. */
+    private final int[] distances;
+
+    /** Queue of padded window cells of the breadth-first search. */
+    private final int[] queue;
+
+    /** Offsets of the eight neighbours of a padded window cell. */
+    private final int[] neighbours;
+
+    /** Board x-coordinate of the top left window cell. */
+    private int originX;
+
+    /** Board y-coordinate of the top left window cell. */
+    private int originY;
+
+    /** X-coordinate of the mouse the field was computed for, or -1 if the field is stale. */
+    private int fieldX = -1;
+
+    /** Y-coordinate of the mouse the field was computed for, or -1 if the field is stale. */
+    private int fieldY = -1;
+
+    /** The board the field was computed for. */
+    private Board fieldBoard;
+
+    /**
+     * Constructor of the {@code DistanceFieldCatStrategy} class.
+     *
+     * @param radius the largest distance from the mouse to the border of the window
+     */
+    public DistanceFieldCatStrategy(int radius) {
+        this.radius = radius;
+        this.side = 2 * radius + 1;
+        this.stride = side + 2;
+        this.distances = new int[stride * stride];
+        this.queue = new int[side * side];
+        this.neighbours = new int[MOVE_X.length - 1];
+        for (int move = 0; move < neighbours.length; move++) {
+            neighbours[move] = MOVE_Y[move] * stride + MOVE_X[move];
+        }
+    }
+
+    /**
+     * Marks the distance field as stale, e.g. after obstacles changed.
+     */
+    public void invalidate() {
+        fieldX = -1;
+        fieldY = -1;
+    }
+
+    @Override
+    public void moveCats(Game game) {
+        Board board = game.getBoard();
+        int mouseX = game.getMouse().getX();
+        int mouseY = game.getMouse().getY();
+        if (mouseX != fieldX || mouseY != fieldY || board != fieldBoard) {
+            computeField(board, mouseX, mouseY);
+        }
+
+        EntityStore entities = game.getEntities();
+        for (int id = 0; id < entities.getSize(); id++) {
+            if (entities.getType(id) == EntityStore.CAT) {
+                moveCat(entities, board, id, mouseX, mouseY);
+            }
+        }
+    }
+
+    /**
+     * Returns the distance of a cell to the mouse in cat moves.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the distance, or {@code Integer.MAX_VALUE} if the cell is outside the window or cannot reach the mouse
+     */
+    public int getDistance(int x, int y) {
+        int column = x - originX;
+        int row = y - originY;
+        if (column < 0 || row < 0 || column >= side || row >= side) {
+            return UNREACHABLE;
+        }
+        int distance = distances[(row + 1) * stride + column + 1];
+        return distance == BLOCKED ? UNREACHABLE : distance;
+    }
+
+    /**
+     * Moves one cat to the neighbouring cell that is closest to the mouse.
+     *
+     * @param entities the entities of the game
+     * @param board    the board
+     * @param id       the ID of the cat
+     * @param mouseX   the x-coordinate of the mouse
+     * @param mouseY   the y-coordinate of the mouse
+     */
+    private void moveCat(EntityStore entities, Board board, int id, int mouseX, int mouseY) {
+        int x = entities.getX(id);
+        int y = entities.getY(id);
+        if (getDistance(x, y) == UNREACHABLE) {
+            int nextX = x + Integer.signum(mouseX - x);
+            int nextY = y + Integer.signum(mouseY - y);
+            if (board.isPassable(nextX, nextY)) {
+                entities.setPosition(id, nextX, nextY);
+            }
+            return;
+        }
+
+        int bestX = x;
+        int bestY = y;
+        int best = getDistance(x, y);
+        for (int move = 0; move < MOVE_X.length - 1; move++) {
+            int nextX = x + MOVE_X[move];
+            int nextY = y + MOVE_Y[move];
+            if (board.contains(nextX, nextY) && getDistance(nextX, nextY) < best) {
+                best = getDistance(nextX, nextY);
+                bestX = nextX;
+                bestY = nextY;
+            }
+        }
+        entities.setPosition(id, bestX, bestY);
+    }
+
+    /**
+     * Computes the distance field with a breadth-first search from the mouse over the window.
+     * Cells off the board, walls and the border of the window are blocked up front,
+     * so the search needs no bounds checks.
+     *
+     * @param board  the board
+     * @param mouseX the x-coordinate of the mouse
+     * @param mouseY the y-coordinate of the mouse
+     */
+    private void computeField(Board board, int mouseX, int mouseY) {
+        originX = mouseX - radius;
+        originY = mouseY - radius;
+        Terrain terrain = board.getTerrain();
+        Arrays.fill(distances, BLOCKED);
+        for (int row = 0; row < side; row++) {
+            int y = originY + row;
+            if (y < 0 || y >= board.getHeight()) {
+                continue;
+            }
+            int from = Math.max(0, -originX);
+            int to = Math.min(side, board.getWidth() - originX);
+            if (from < to) {
+                int offset = (row + 1) * stride + 1;
+                Arrays.fill(distances, offset + from, offset + to, UNREACHABLE);
+                if (terrain != null) {
+                    for (int column = from; column < to; column++) {
+                        if (terrain.isWall(originX + column, y)) {
+                            distances[offset + column] = BLOCKED;
+                        }
+                    }
+                }
+            }
+        }
+
+        int start = (radius + 1) * stride + radius + 1;
+        distances[start] = 0;
+        queue[0] = start;
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int cell = queue[head++];
+            int distance = distances[cell] + 1;
+            for (int offset : neighbours) {
+                int next = cell + offset;
+                if (distances[next] == UNREACHABLE) {
+                    distances[next] = distance;
+                    queue[tail++] = next;
+                }
+            }
+        }
+
+        fieldX = mouseX;
+        fieldY = mouseY;
+        fieldBoard = board;
+    }
+}
@@ -0,0 +1,596 @@
+package goop.tomandjerry.tania;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The {@code EntityStore} class keeps the positions of all animals of a game in primitive arrays.
+ * Every entity has an ID, which is an index into the arrays, a type tag, a position and a spawn position.
+ * IDs of removed entities are kept in a free list and reused by the next added entity.
+ * {@code Cat} and {@code Mouse} objects are thin views over one entity of a store,
+ * while the per-tick cat update runs as a tight loop over the arrays.
+ * An indexed store keeps a {@code SpatialIndex} up to date on every move,
+ * so the entities on a cell are found without scanning all entities.
+ * A store can be written to and read from a snapshot of fixed size, see {@link #writeSnapshot(ByteBuffer, int)}.
+ *
+ * @see         Animal
+ * @see         SpatialIndex
+ * @see         Game
+ * @author      Tania Argot
+ */
+public final class EntityStore {
+
+    /** Type tag of an unused ID. */
+    public static final byte FREE = 0;
+
+    /** Type tag of a mouse. */
+    public static final byte MOUSE = 1;
+
+    /** Type tag of a cat. */
+    public static final byte CAT = 2;
+
+    /** Type tag of a cheese. */
+    public static final byte CHEESE = 3;
+
+    /** Size of an entity in a snapshot: the type, the position and the spawn position. */
+    public static final int SNAPSHOT_ENTITY_BYTES = 1 + 4 * Integer.BYTES;
+
+    /** X-coordinates by ID. */
+    private int[] xs;
+
+    /** Y-coordinates by ID. */
+    private int[] ys;
+
+    /** Spawn x-coordinates by ID, used when the game is reset. */
+    private int[] spawnXs;
+
+    /** Spawn y-coordinates by ID, used when the game is reset. */
+    private int[] spawnYs;
+
+    /** Type tags by ID. */
+    private byte[] types;
+
+    /** Scratch x-offsets of the cat update, zero for every entity that is not a cat. */
+    private int[] dxs;
+
+    /** Scratch y-offsets of the cat update, zero for every entity that is not a cat. */
+    private int[] dys;
+
+    /** Stack of free IDs below {@code size}. */
+    private int[] freeList;
+
+    /** Number of IDs on the free list. */
+    private int freeCount;
+
+    /** Number of IDs ever handed out, every ID is below this value. */
+    private int size;
+
+    /** Number of cats in the store. */
+    private int catCount;
+
+    /** The spatial index of the entities, or null if the store is not indexed. */
+    private final SpatialIndex index;
+
+    /**
+     * Constructor of the {@code EntityStore} class without a spatial index.
+     *
+     * @param capacity the initial number of entities the arrays can hold
+     */
+    public EntityStore(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * Constructor of the {@code EntityStore} class.
+     *
+     * @param capacity the initial number of entities the arrays can hold
+     * @param index    the empty spatial index the store keeps up to date, or null for no index
+     */
+    public EntityStore(int capacity, SpatialIndex index) {
+        capacity = Math.max(capacity, 1);
+        this.index = index;
+        xs = new int[capacity];
+        ys = new int[capacity];
+        spawnXs = new int[capacity];
+        spawnYs = new int[capacity];
+        types = new byte[capacity];
+        dxs = new int[capacity];
+        dys = new int[capacity];
+        freeList = new int[capacity];
+    }
+
+    /**
+     * Adds an entity, reusing a free ID if there is one.
+     * The position is also remembered as the spawn position of the entity.
+     *
+     * @param type the type tag of the entity, {@link #MOUSE}, {@link #CAT} or {@link #CHEESE}
+     * @param x    the x-coordinate of the entity
+     * @param y    the y-coordinate of the entity
+     * @return the ID of the entity
+     * @throws IllegalArgumentException if the type is {@link #FREE}
+     */
+    public int add(byte type, int x, int y) {
+        if (type == FREE) {
+            throw new IllegalArgumentException("An entity needs a type.");
+        }
+
+        int id;
+        if (freeCount > 0) {
+            id = freeList[--freeCount];
+        } else {
+            if (size == types.length) {
+                grow();
+            }
+            id = size++;
+        }
+
+        types[id] = type;
+        xs[id] = x;
+        ys[id] = y;
+        spawnXs[id] = x;
+        spawnYs[id] = y;
+        if (type == CAT) {
+            catCount++;
+        }
+        if (index != null) {
+            index.insert(id, x, y);
+        }
+        return id;
+    }
+
+    /**
+     * Removes an entity, its ID is reused by a later {@code add}.
+     *
+     * @param id the ID of the entity
+     * @throws IllegalArgumentException if there is no entity with this ID
+     */
+    public void remove(int id) {
+        if (id < 0 || id >= size || types[id] == FREE) {
+            throw new IllegalArgumentException("There is no entity with ID " + id + ".");
+        }
+        if (types[id] == CAT) {
+            catCount--;
+        }
+        if (index != null) {
+            index.remove(id, xs[id], ys[id]);
+        }
+        types[id] = FREE;
+        dxs[id] = 0;
+        dys[id] = 0;
+        freeList[freeCount++] = id;
+    }
+
+    /**
+     * Moves every entity back to its spawn position.
+     */
+    public void respawn() {
+        if (index != null) {
+            for (int id = 0; id < size; id++) {
+                if (types[id] != FREE) {
+                    index.move(id, xs[id], ys[id], spawnXs[id], spawnYs[id]);
+                }
+            }
+        }
+        System.arraycopy(spawnXs, 0, xs, 0, size);
+        System.arraycopy(spawnYs, 0, ys, 0, size);
+    }
+
+    /**
+     * Makes this store an exact copy of another store, including IDs and the free list.
+     * The spatial index of this store is rebuilt for the copied entities.
+     *
+     * @param other the store to copy
+     */
+    public void copyFrom(EntityStore other) {
+        if (index != null) {
+            for (int id = 0; id < size; id++) {
+                if (types[id] != FREE) {
+                    index.remove(id, xs[id], ys[id]);
+                }
+            }
+        }
+        while (types.length < other.size) {
+            grow();
+        }
+
+        size = other.size;
+        freeCount = other.freeCount;
+        catCount = other.catCount;
+        System.arraycopy(other.xs, 0, xs, 0, size);
+        System.arraycopy(other.ys, 0, ys, 0, size);
+        System.arraycopy(other.spawnXs, 0, spawnXs, 0, size);
+        System.arraycopy(other.spawnYs, 0, spawnYs, 0, size);
+        System.arraycopy(other.types, 0, types, 0, size);
+        System.arraycopy(other.dxs, 0, dxs, 0, size);
+        System.arraycopy(other.dys, 0, dys, 0, size);
+        System.arraycopy(other.freeList, 0, freeList, 0, freeCount);
+
+        if (index != null) {
+            for (int id = 0; id < size; id++) {
+                if (types[id] != FREE) {
+                    index.insert(id, xs[id], ys[id]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the size of a snapshot of the store, which only changes when more IDs are handed out.
+     *
+     * @return the size of a snapshot in bytes
+     */
+    public int getSnapshotSize() {
+        return Integer.BYTES + size * SNAPSHOT_ENTITY_BYTES;
+    }
+
+    /**
+     * Writes a snapshot of the store at an absolute offset of a buffer, without allocating.
+     * The snapshot is the number of IDs followed by the type, position and spawn position of every ID.
+     * A free ID stores its place on the free list instead of a position, so a restored store
+     * hands out the same IDs as the original.
+     *
+     * @param buffer the buffer, its position is not changed
+     * @param offset the offset of the snapshot in the buffer
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     */
+    public int writeSnapshot(ByteBuffer buffer, int offset) {
+        Objects.checkFromIndexSize(offset, getSnapshotSize(), buffer.limit());
+        buffer.putInt(offset, size);
+        offset += Integer.BYTES;
+        for (int id = 0; id < size; id++) {
+            buffer.put(offset, types[id]);
+            buffer.putInt(offset + 1, xs[id]);
+            buffer.putInt(offset + 5, ys[id]);
+            buffer.putInt(offset + 9, spawnXs[id]);
+            buffer.putInt(offset + 13, spawnYs[id]);
+            offset += SNAPSHOT_ENTITY_BYTES;
+        }
+        for (int i = 0; i < freeCount; i++) {
+            buffer.putInt(offset - (size - freeList[i]) * SNAPSHOT_ENTITY_BYTES + 1, i);
+        }
+        return offset;
+    }
+
+    /**
+     * Checks a snapshot written by {@link #writeSnapshot(ByteBuffer, int)} without changing the entities.
+     * Every type must be known, every entity and its spawn position must be on the board,
+     * and the free IDs must have distinct places on the free list.
+     * The places are marked in the scratch offsets of the cat update, which are cleared again,
+     * so the arrays are grown first if the snapshot has more IDs than they can hold.
+     *
+     * @param buffer the buffer, its position is not changed
+     * @param offset the offset of the snapshot in the buffer
+     * @param board  the board of the entities
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the snapshot is not valid
+     */
+    public int checkSnapshot(ByteBuffer buffer, int offset, Board board) {
+        Objects.checkFromIndexSize(offset, Integer.BYTES, buffer.limit());
+        int newSize = buffer.getInt(offset);
+        if (newSize < 0 || newSize > (buffer.limit() - offset - Integer.BYTES) / SNAPSHOT_ENTITY_BYTES) {
+            throw new IllegalArgumentException("Invalid number of entities " + newSize + ".");
+        }
+        offset += Integer.BYTES;
+        int free = 0;
+        for (int id = 0, position = offset; id < newSize; id++, position += SNAPSHOT_ENTITY_BYTES) {
+            byte type = buffer.get(position);
+            if (type < FREE || type > CHEESE) {
+                throw new IllegalArgumentException("Invalid type " + type + " of entity " + id + ".");
+            }
+            if (type == FREE) {
+                free++;
+            } else if (!board.contains(buffer.getInt(position + 1), buffer.getInt(position + 5))
+                    || !board.contains(buffer.getInt(position + 9), buffer.getInt(position + 13))) {
+                throw new IllegalArgumentException("Entity " + id + " is not on the board.");
+            }
+        }
+
+        while (types.length < newSize) {
+            grow();
+        }
+        int invalid = -1;
+        for (int id = 0, position = offset; id < newSize && invalid < 0; id++, position += SNAPSHOT_ENTITY_BYTES) {
+            if (buffer.get(position) == FREE) {
+                int place = buffer.getInt(position + 1);
+                if (place < 0 || place >= free || dxs[place] == Integer.MIN_VALUE) {
+                    invalid = id;
+                } else {
+                    dxs[place] = Integer.MIN_VALUE;
+                }
+            }
+        }
+        Arrays.fill(dxs, 0, free, 0);
+        if (invalid >= 0) {
+            throw new IllegalArgumentException("Invalid free list entry of entity " + invalid + ".");
+        }
+        return offset + newSize * SNAPSHOT_ENTITY_BYTES;
+    }
+
+    /**
+     * Restores the store from a snapshot written by {@link #writeSnapshot(ByteBuffer, int)}.
+     * The snapshot is checked with {@link #checkSnapshot(ByteBuffer, int, Board)} first,
+     * so the store is left unchanged if it is not valid.
+     * It only allocates if the snapshot has more IDs than the arrays can hold.
+     * The spatial index of this store is rebuilt for the restored entities.
+     *
+     * @param buffer the buffer, its position is not changed
+     * @param offset the offset of the snapshot in the buffer
+     * @param board  the board of the entities
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the snapshot is not valid
+     */
+    public int readSnapshot(ByteBuffer buffer, int offset, Board board) {
+        int end = checkSnapshot(buffer, offset, board);
+        if (index != null) {
+            for (int id = 0; id < size; id++) {
+                if (types[id] != FREE) {
+                    index.remove(id, xs[id], ys[id]);
+                }
+            }
+        }
+
+        size = buffer.getInt(offset);
+        offset += Integer.BYTES;
+        freeCount = 0;
+        catCount = 0;
+        for (int id = 0; id < size; id++) {
+            byte type = buffer.get(offset);
+            types[id] = type;
+            xs[id] = buffer.getInt(offset + 1);
+            ys[id] = buffer.getInt(offset + 5);
+            spawnXs[id] = buffer.getInt(offset + 9);
+            spawnYs[id] = buffer.getInt(offset + 13);
+            offset += SNAPSHOT_ENTITY_BYTES;
+            if (type == FREE) {
+                freeCount++;
+            } else if (type == CAT) {
+                catCount++;
+            }
+        }
+        for (int id = 0; id < size; id++) {
+            if (types[id] == FREE) {
+                freeList[xs[id]] = id;
+            }
+        }
+        Arrays.fill(dxs, 0, size, 0);
+        Arrays.fill(dys, 0, size, 0);
+
+        if (index != null) {
+            for (int id = 0; id < size; id++) {
+                if (types[id] != FREE) {
+                    index.insert(id, xs[id], ys[id]);
+                }
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Moves every cat randomly by -1, 0 or 1 in both directions within the bounds of the board.
+     * The random numbers are drawn in order of the IDs, exactly like {@code Cat.moveRandomly(GameRandom, Board)}
+     * would draw them. The positions are then updated in a branch-free loop over all entities,
+     * which the JIT can vectorize: an offset that would leave the board is masked to 0 instead of clamping,
+     * so entities without an offset keep their coordinates. The offsets that were applied are kept,
+     * and an indexed store then moves only the cats that changed cell in its index.
+     * On a board with walls, a cat whose new cell is a wall stays where it is.
+     *
+     * @param random the random number generator of the game
+     * @param board  the board the cats move on
+     */
+    public void stepCats(GameRandom random, Board board) {
+        for (int id = 0; id < size; id++) {
+            if (types[id] == CAT) {
+                dxs[id] = random.nextInt(3) - 1;
+                dys[id] = random.nextInt(3) - 1;
+            }
+        }
+
+        int maxX = board.getWidth() - 1;
+        int maxY = board.getHeight() - 1;
+        Terrain terrain = board.getTerrain();
+        if (terrain != null) {
+            for (int id = 0; id < size; id++) {
+                if (types[id] == CAT) {
+                    int x = Math.max(0, Math.min(maxX, xs[id] + dxs[id]));
+                    int y = Math.max(0, Math.min(maxY, ys[id] + dys[id]));
+                    if (!terrain.isWall(x, y)) {
+                        setPosition(id, x, y);
+                    }
+                }
+            }
+            return;
+        }
+        for (int id = 0; id < size; id++) {
+            int x = xs[id] + dxs[id];
+            int y = ys[id] + dys[id];
+            int dx = dxs[id] & ~(x >> 31 | (maxX - x) >> 31);
+            int dy = dys[id] & ~(y >> 31 | (maxY - y) >> 31);
+            xs[id] += dx;
+            ys[id] += dy;
+            dxs[id] = dx;
+            dys[id] = dy;
+        }
+        if (index != null) {
+            for (int id = 0; id < size; id++) {
+                if ((dxs[id] | dys[id]) != 0) {
+                    index.move(id, xs[id] - dxs[id], ys[id] - dys[id], xs[id], ys[id]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if no entity at all is on the given cell.
+     * An indexed store only looks up the cell, otherwise all entities are scanned.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is empty, false otherwise
+     */
+    public boolean isEmpty(int x, int y) {
+        if (index != null) {
+            return index.first(x, y) < 0;
+        }
+        for (int id = 0; id < size; id++) {
+            if (types[id] != FREE && xs[id] == x && ys[id] == y) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if any entity of the given type is on the given cell.
+     *
+     * @param type the type tag
+     * @param x    the x-coordinate of the cell
+     * @param y    the y-coordinate of the cell
+     * @return true if an entity of the type is on the cell, false otherwise
+     */
+    public boolean isOccupiedBy(byte type, int x, int y) {
+        return firstAt(type, x, y) >= 0;
+    }
+
+    /**
+     * Returns an entity of the given type on the given cell.
+     * An indexed store only looks at the entities on the cell, otherwise all entities are scanned.
+     *
+     * @param type the type tag
+     * @param x    the x-coordinate of the cell
+     * @param y    the y-coordinate of the cell
+     * @return the ID of an entity of the type on the cell, or -1 if there is none
+     */
+    public int firstAt(byte type, int x, int y) {
+        if (index != null) {
+            for (int id = index.first(x, y); id >= 0; id = index.next(id)) {
+                if (types[id] == type) {
+                    return id;
+                }
+            }
+            return -1;
+        }
+
+        for (int id = 0; id < size; id++) {
+            if (types[id] == type && xs[id] == x && ys[id] == y) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the x-coordinate of an entity.
+     *
+     * @param id the ID of the entity
+     * @return the x-coordinate of the entity
+     */
+    public int getX(int id) {
+        return xs[id];
+    }
+
+    /**
+     * Returns the y-coordinate of an entity.
+     *
+     * @param id the ID of the entity
+     * @return the y-coordinate of the entity
+     */
+    public int getY(int id) {
+        return ys[id];
+    }
+
+    /**
+     * Sets the x-coordinate of an entity.
+     *
+     * @param id the ID of the entity
+     * @param x  the new x-coordinate of the entity
+     */
+    public void setX(int id, int x) {
+        if (index != null) {
+            index.move(id, xs[id], ys[id], x, ys[id]);
+        }
+        xs[id] = x;
+    }
+
+    /**
+     * Sets the y-coordinate of an entity.
+     *
+     * @param id the ID of the entity
+     * @param y  the new y-coordinate of the entity
+     */
+    public void setY(int id, int y) {
+        if (index != null) {
+            index.move(id, xs[id], ys[id], xs[id], y);
+        }
+        ys[id] = y;
+    }
+
+    /**
+     * Sets both coordinates of an entity, which moves it in the index only once.
+     *
+     * @param id the ID of the entity
+     * @param x  the new x-coordinate of the entity
+     * @param y  the new y-coordinate of the entity
+     */
+    public void setPosition(int id, int x, int y) {
+        if (index != null) {
+            index.move(id, xs[id], ys[id], x, y);
+        }
+        xs[id] = x;
+        ys[id] = y;
+    }
+
+    /**
+     * Returns the type tag of an entity.
+     *
+     * @param id the ID of the entity
+     * @return the type tag, {@link #FREE} if the ID is not used
+     */
+    public byte getType(int id) {
+        return types[id];
+    }
+
+    /**
+     * Returns the spatial index of the store.
+     *
+     * @return the spatial index, or null if the store is not indexed
+     */
+    public SpatialIndex getIndex() {
+        return index;
+    }
+
+    /**
+     * Returns the upper bound of all IDs, every ID in use is below this value.
+     *
+     * @return the upper bound of all IDs
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the number of cats in the store.
+     *
+     * @return the number of cats
+     */
+    public int getCatCount() {
+        return catCount;
+    }
+
+    /**
+     * Doubles the capacity of all arrays.
+     */
+    private void grow() {
+        int capacity = types.length * 2;
+        xs = Arrays.copyOf(xs, capacity);
+        ys = Arrays.copyOf(ys, capacity);
+        spawnXs = Arrays.copyOf(spawnXs, capacity);
+        spawnYs = Arrays.copyOf(spawnYs, capacity);
+        types = Arrays.copyOf(types, capacity);
+        dxs = Arrays.copyOf(dxs, capacity);
+        dys = Arrays.copyOf(dys, capacity);
+        freeList = Arrays.copyOf(freeList, capacity);
+    }
+}
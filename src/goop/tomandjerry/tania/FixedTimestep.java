@@ -0,0 +1,88 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code FixedTimestep} class decides how many ticks of the game are due at a given time.
+ * The simulation advances at a fixed tick rate, independent of how often it is asked,
+ * e.g. by the frames of the GUI or by key events.
+ * If the caller falls far behind, at most {@code MAX_CATCH_UP} ticks are run at once and the rest is dropped,
+ * so a long pause does not make the game jump ahead.
+ *
+ * @see         GameLoop
+ * @see         SimulationThread
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public final class FixedTimestep {
+
+    /** Largest number of ticks that are run to catch up at once. */
+    public static final int MAX_CATCH_UP = 5;
+
+    /** Duration of one tick in nanoseconds. */
+    private final long tickNanos;
+
+    /** Time of the next due tick in nanoseconds, or {@code Long.MIN_VALUE} before the first call. */
+    private long nextTick = Long.MIN_VALUE;
+
+    /**
+     * Constructor of the {@code FixedTimestep} class.
+     *
+     * @param ticksPerSecond the tick rate of the game
+     * @throws IllegalArgumentException if the tick rate is not positive
+     */
+    public FixedTimestep(double ticksPerSecond) {
+        if (!(ticksPerSecond > 0)) {
+            throw new IllegalArgumentException("The tick rate must be positive.");
+        }
+        this.tickNanos = (long) (1_000_000_000L / ticksPerSecond);
+    }
+
+    /**
+     * Returns the number of ticks that are due at the given time and schedules the next tick.
+     * The first call only starts the clock and returns 0.
+     *
+     * @param now the current time in nanoseconds
+     * @return the number of ticks to run now
+     */
+    public int advance(long now) {
+        if (nextTick == Long.MIN_VALUE) {
+            nextTick = now + tickNanos;
+            return 0;
+        }
+        if (now - nextTick < 0) {
+            return 0;
+        }
+
+        long due = (now - nextTick) / tickNanos + 1;
+        if (due > MAX_CATCH_UP) {
+            nextTick = now + tickNanos;
+            return MAX_CATCH_UP;
+        }
+        nextTick += due * tickNanos;
+        return (int) due;
+    }
+
+    /**
+     * Restarts the clock, so the next call of {@code advance(long)} starts counting from then.
+     */
+    public void reset() {
+        nextTick = Long.MIN_VALUE;
+    }
+
+    /**
+     * Returns how long a caller may sleep until the next tick is due.
+     *
+     * @param now the current time in nanoseconds
+     * @return the time until the next tick in nanoseconds, or 0 if it is due or the clock was not started yet
+     */
+    public long nanosUntilNextTick(long now) {
+        return nextTick == Long.MIN_VALUE ? 0 : Math.max(0, nextTick - now);
+    }
+
+    /**
+     * Returns the duration of one tick.
+     *
+     * @return the duration of one tick in nanoseconds
+     */
+    public long getTickNanos() {
+        return tickNanos;
+    }
+}
@@ -0,0 +1,80 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The {@code FrameRing} class hands frames from the {@code SimulationThread} to the renderer without locks.
+ * It is a ring of three preallocated frames: the writer fills one, the reader draws one,
+ * and the third holds the newest published frame. Publishing and taking a frame each swap one slot
+ * with the middle one in a single atomic exchange, so neither thread ever waits,
+ * the writer never overwrites the frame that is being drawn, and the reader always gets the newest frame.
+ * Frames the reader did not take in time are simply overwritten, so a slow renderer skips frames
+ * instead of falling behind.
+ *
+ * @see         GameFrame
+ * @see         SimulationThread
+ * @author      Tania Argot
+ */
+public final class FrameRing {
+
+    /** Bit of the exchanged state that marks a published frame the reader did not take yet. */
+    private static final int FRESH = 4;
+
+    /** Bits of the exchanged state that hold the index of the middle frame. */
+    private static final int INDEX = 3;
+
+    /** The three frames. */
+    private final GameFrame[] frames = new GameFrame[3];
+
+    /** Index of the middle frame, with {@link #FRESH} set if it was published and not taken yet. */
+    private final AtomicInteger middle = new AtomicInteger(1);
+
+    /** Index of the frame the writer fills, only used by the writer. */
+    private int back;
+
+    /** Index of the frame the reader draws, only used by the reader. */
+    private int front = 2;
+
+    /** Number of frames published so far. */
+    private long published;
+
+    /**
+     * Constructor of the {@code FrameRing} class.
+     *
+     * @param board         the board of the game
+     * @param capacity      the expected number of entities
+     * @param viewportCells the largest number of cells per row and column around the mouse whose walls a frame holds
+     */
+    public FrameRing(Board board, int capacity, int viewportCells) {
+        for (int i = 0; i < frames.length; i++) {
+            frames[i] = new GameFrame(board, capacity, viewportCells);
+        }
+    }
+
+    /**
+     * Copies the state of a game into the frame of the writer and publishes it. Must only be called by the writer.
+     *
+     * @param game      the game
+     * @param inputTime the time of the played key press in nanoseconds, or 0 if there was none
+     * @return the published frame, which stays unchanged until the next call
+     */
+    public GameFrame publish(Game game, long inputTime) {
+        GameFrame frame = frames[back];
+        frame.capture(game, inputTime, ++published);
+        back = middle.getAndSet(back | FRESH) & INDEX;
+        return frame;
+    }
+
+    /**
+     * Takes the newest published frame. Must only be called by the reader.
+     * The frame stays unchanged until the next call.
+     *
+     * @return the newest frame, or null if no frame was published since the last call
+     */
+    public GameFrame take() {
+        if ((middle.get() & FRESH) == 0) {
+            return null;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return frames[front];
+    }
+}
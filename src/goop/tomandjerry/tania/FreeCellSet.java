@@ -0,0 +1,671 @@
+package goop.tomandjerry.tania;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * The {@code FreeCellSet} class keeps the cells of a board that a new cheese can appear on,
+ * the cells without a wall, an animal or a cheese, so that a random one is drawn in O(1) on a board of any size.
+ * Every cell without a wall has a number, its index in row-major order among those cells.
+ * The numbers are kept in one virtual array with the taken cells in front and the free cells behind them,
+ * so a random free cell is the cell at a random place behind the border. Taking or freeing a cell moves the border
+ * by one place and swaps at most two pairs of cells, which costs O(1).
+ *
+ * <p>The cells that are not at the place of their own number come in pairs, a taken cell behind the border
+ * swapped with a free cell in front of it, and there are never more pairs than taken cells.
+ * On boards with up to {@link #MAX_CELLS} cells, the place of every number is kept in an array.
+ * Larger boards only store the swapped cells in a primitive hash table, so the set stays as small as the
+ * {@code SpatialIndex} even on a board with 10 billion cells. The pairs depend on the order the cells were taken
+ * and freed in, so a game writes them into its snapshots, see {@link #writeSnapshot(ByteBuffer, int, int)}.</p>
+ *
+ * <p>The set of a game is kept up to date by its {@code SpatialIndex}, which takes a cell when the first entity
+ * enters it and frees the cell when the last entity leaves it. A board with walls needs the number of every cell,
+ * so it may have at most {@link #MAX_CELLS} cells.</p>
+ *
+ * @see         Game
+ * @see         SpatialIndex
+ * @see         Board
+ * @author      Tania Argot
+ */
+public final class FreeCellSet {
+
+    /** Largest number of cells of a board whose places are kept in an array, like the grid of a {@code SpatialIndex}. */
+    public static final long MAX_CELLS = SpatialIndex.DENSE_CELLS;
+
+    /** Size of a pair of swapped cells in a snapshot: the numbers of the free and of the taken cell. */
+    public static final int SNAPSHOT_PAIR_BYTES = 2 * Long.BYTES;
+
+    /** Marker for an empty slot of the hash table, no cell has this number. */
+    private static final long EMPTY = -1L;
+
+    /** Width of the board, used to turn a cell into coordinates. */
+    private final int width;
+
+    /** Number of cells without a wall. */
+    private final long cellCount;
+
+    /** Number of every cell by its index {@code y * width + x}, -1 for a wall, or null if the board has no walls. */
+    private final int[] numbers;
+
+    /** Index of every cell without a wall by its number, or null if the board has no walls. */
+    private final int[] cells;
+
+    /** Number of taken cells, the place of the border. */
+    private long taken;
+
+    /** Place of every number, which is the number it is swapped with, or null if the hash table is used. */
+    private final int[] places;
+
+    /**
+     * The hash table of the swapped cells, the number of a cell at {@code 2 * slot} and the number of its partner
+     * at {@code 2 * slot + 1}, so a lookup touches one cache line.
+     */
+    private long[] table;
+
+    /** Number of swapped cells, twice the number of pairs. */
+    private int swapped;
+
+    /** Shift that turns a 64-bit hash into a slot, {@code 64 - log2(slots)}. */
+    private int shift;
+
+    /**
+     * Constructor of the {@code FreeCellSet} class.
+     * It holds every cell of the board that is not a wall.
+     *
+     * @param board    the board
+     * @param capacity the expected number of entities on the board
+     * @throws IllegalArgumentException if the board has a terrain and more than {@link #MAX_CELLS} cells
+     */
+    public FreeCellSet(Board board, int capacity) {
+        width = board.getWidth();
+        if (board.getTerrain() == null) {
+            numbers = null;
+            cells = null;
+            cellCount = board.getCellCount();
+        } else {
+            if (board.getCellCount() > MAX_CELLS) {
+                throw new IllegalArgumentException("A board with walls and " + board.getCellCount()
+                        + " cells is too large for a free cell set.");
+            }
+            numbers = new int[(int) board.getCellCount()];
+            int count = 0;
+            for (int cell = 0; cell < numbers.length; cell++) {
+                numbers[cell] = board.isPassable(cell % width, cell / width) ? count++ : -1;
+            }
+            cells = new int[count];
+            for (int cell = 0; cell < numbers.length; cell++) {
+                if (numbers[cell] >= 0) {
+                    cells[numbers[cell]] = cell;
+                }
+            }
+            cellCount = count;
+        }
+        if (cellCount <= MAX_CELLS) {
+            places = new int[(int) cellCount];
+            Arrays.setAll(places, number -> number);
+        } else {
+            places = null;
+            int slots = Integer.highestOneBit(Math.max(capacity, 2) * 4 - 1) * 2;
+            table = new long[2 * slots];
+            Arrays.fill(table, EMPTY);
+            shift = Long.numberOfLeadingZeros(slots) + 1;
+        }
+    }
+
+    /**
+     * Returns the number of free cells.
+     *
+     * @return the number of free cells
+     */
+    public long size() {
+        return cellCount - taken;
+    }
+
+    /**
+     * Draws a random free cell, with one random number.
+     *
+     * @param random the random number generator
+     * @return the cell packed as {@code (long) x << 32 | y}, or -1 if no cell is free
+     */
+    public long draw(GameRandom random) {
+        if (taken == cellCount) {
+            return -1;
+        }
+        long number = partner(taken + random.nextLong(cellCount - taken));
+        long cell = cells == null ? number : cells[(int) number];
+        return cell % width << 32 | cell / width;
+    }
+
+    /**
+     * Takes a cell out of the set, nothing happens if it is a wall or already taken.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     */
+    public void take(int x, int y) {
+        long number = numberOf(x, y);
+        if (number >= 0) {
+            update(number, true);
+        }
+    }
+
+    /**
+     * Puts a cell back into the set, nothing happens if it is a wall or already free.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     */
+    public void free(int x, int y) {
+        long number = numberOf(x, y);
+        if (number >= 0) {
+            update(number, false);
+        }
+    }
+
+    /**
+     * Checks if a cell is in the set.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is free, false if it is taken or a wall
+     */
+    public boolean contains(int x, int y) {
+        long number = numberOf(x, y);
+        return number >= 0 && partner(number) >= taken;
+    }
+
+    /**
+     * Puts every cell back into the set, in O(taken cells).
+     */
+    public void clear() {
+        for (long place = 0; place < taken; place++) {
+            unpair(place, partner(place));
+        }
+        taken = 0;
+    }
+
+    /**
+     * Makes this set an exact copy of another set of the same board, in O(taken cells).
+     * It only allocates if the hash table has to grow.
+     *
+     * @param other the set to copy
+     */
+    public void copyFrom(FreeCellSet other) {
+        clear();
+        for (long place = 0; place < other.taken; place++) {
+            long partner = other.partner(place);
+            if (partner != place) {
+                pair(place, partner);
+            }
+        }
+        taken = other.taken;
+    }
+
+    /**
+     * Returns the size of a snapshot of a set with at most the given number of pairs of swapped cells.
+     * A set never has more pairs than taken cells, so a game reserves one pair for every entity ID.
+     *
+     * @param maxPairs the largest number of pairs
+     * @return the size of a snapshot in bytes
+     */
+    public static int getSnapshotSize(int maxPairs) {
+        return Integer.BYTES + maxPairs * SNAPSHOT_PAIR_BYTES;
+    }
+
+    /**
+     * Writes the pairs of swapped cells at an absolute offset of a buffer, without allocating.
+     * Every pair has its free cell in front of the border, so the pairs are found, in order of their free cells,
+     * by looking at the places in front of the border. The taken cells themselves are not written,
+     * they are the cells of the entities. Unused pairs are written as zeros, so equal sets give equal snapshots.
+     *
+     * @param buffer   the buffer, its position is not changed
+     * @param offset   the offset of the snapshot in the buffer
+     * @param maxPairs the largest number of pairs
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the set has more pairs than {@code maxPairs}
+     */
+    public int writeSnapshot(ByteBuffer buffer, int offset, int maxPairs) {
+        Objects.checkFromIndexSize(offset, getSnapshotSize(maxPairs), buffer.limit());
+        if (swapped / 2 > maxPairs) {
+            throw new IllegalArgumentException("The set has more than " + maxPairs + " pairs.");
+        }
+        buffer.putInt(offset, swapped / 2);
+        int position = offset + Integer.BYTES;
+        for (long place = 0; place < taken; place++) {
+            long partner = partner(place);
+            if (partner != place) {
+                buffer.putLong(position, place);
+                buffer.putLong(position + Long.BYTES, partner);
+                position += SNAPSHOT_PAIR_BYTES;
+            }
+        }
+        int end = offset + getSnapshotSize(maxPairs);
+        while (position < end) {
+            buffer.putLong(position, 0);
+            position += Long.BYTES;
+        }
+        return end;
+    }
+
+    /**
+     * Checks the pairs of swapped cells of a snapshot written by {@link #writeSnapshot(ByteBuffer, int, int)}
+     * against the cells of the entities the snapshot will restore, without changing the set and without allocating.
+     * The numbers of the entity cells are sorted in the given array, so the border is the number of distinct cells.
+     * Then the free cells of the pairs must be free, in ascending order and in front of the border,
+     * and the taken cells must be distinct entity cells behind the border, one for every such entity cell.
+     *
+     * @param buffer   the buffer, its position is not changed
+     * @param offset   the offset of the snapshot in the buffer
+     * @param maxPairs the largest number of pairs
+     * @param cells    the cells of the entities, each packed as {@code (long) x << 32 | y}, which are overwritten
+     * @param count    the number of cells
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the pairs do not match the cells
+     */
+    public int checkSnapshot(ByteBuffer buffer, int offset, int maxPairs, long[] cells, int count) {
+        Objects.checkFromIndexSize(offset, getSnapshotSize(maxPairs), buffer.limit());
+        int numbered = 0;
+        for (int i = 0; i < count; i++) {
+            long number = numberOf((int) (cells[i] >>> 32), (int) cells[i]);
+            if (number >= 0) {
+                cells[numbered++] = number;
+            }
+        }
+        sort(cells, numbered);
+        int distinct = 0;
+        for (int i = 0; i < numbered; i++) {
+            if (distinct == 0 || cells[i] != cells[distinct - 1]) {
+                cells[distinct++] = cells[i];
+            }
+        }
+
+        int pairs = buffer.getInt(offset);
+        int behind = distinct - search(cells, distinct, distinct);
+        if (pairs < 0 || pairs > maxPairs || pairs != behind) {
+            throw new IllegalArgumentException("Invalid number of swapped pairs " + pairs + ".");
+        }
+        long previous = -1;
+        for (int i = 0; i < pairs; i++) {
+            long low = buffer.getLong(offset + Integer.BYTES + i * SNAPSHOT_PAIR_BYTES);
+            long high = buffer.getLong(offset + Integer.BYTES + i * SNAPSHOT_PAIR_BYTES + Long.BYTES);
+            int slot = search(cells, distinct, high);
+            if (low <= previous || low >= distinct || isEntry(cells, distinct, search(cells, distinct, low), low)
+                    || high < distinct || !isEntry(cells, distinct, slot, high) || cells[slot] < 0) {
+                throw new IllegalArgumentException("Invalid swapped pair " + low + ", " + high + ".");
+            }
+            cells[slot] = ~cells[slot];
+            previous = low;
+        }
+        return offset + getSnapshotSize(maxPairs);
+    }
+
+    /**
+     * Restores the pairs of swapped cells from a snapshot written by {@link #writeSnapshot(ByteBuffer, int, int)},
+     * without allocating. The set must already have the taken cells of the snapshot, which the {@code SpatialIndex}
+     * takes when the entities are restored, so only the order of the cells is replaced.
+     * All pairs are checked first: every free cell must be in front of the border and every taken cell behind it,
+     * and no cell may appear twice, which is found by marking the cells. If a pair is not valid,
+     * the marks are removed again and the set is left as it was.
+     *
+     * @param buffer   the buffer, its position is not changed
+     * @param offset   the offset of the snapshot in the buffer
+     * @param maxPairs the largest number of pairs
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the pairs do not match the taken cells
+     */
+    public int readSnapshot(ByteBuffer buffer, int offset, int maxPairs) {
+        Objects.checkFromIndexSize(offset, getSnapshotSize(maxPairs), buffer.limit());
+        int pairs = buffer.getInt(offset);
+        if (pairs > maxPairs || pairs != swapped / 2) {
+            throw new IllegalArgumentException("Invalid number of swapped pairs " + pairs + ".");
+        }
+        int start = offset + Integer.BYTES;
+        for (int i = 0; i < pairs; i++) {
+            long low = buffer.getLong(start + i * SNAPSHOT_PAIR_BYTES);
+            long high = buffer.getLong(start + i * SNAPSHOT_PAIR_BYTES + Long.BYTES);
+            boolean valid = low >= 0 && low < taken && !isMarked(low) && partner(low) >= taken;
+            if (valid) {
+                toggleMark(low);
+                valid = high >= taken && high < cellCount && !isMarked(high) && partner(high) < taken;
+                if (valid) {
+                    toggleMark(high);
+                } else {
+                    toggleMark(low);
+                }
+            }
+            if (!valid) {
+                toggleMarks(buffer, start, i);
+                throw new IllegalArgumentException("Invalid swapped pair " + low + ", " + high + ".");
+            }
+        }
+        toggleMarks(buffer, start, pairs);
+
+        long border = taken;
+        clear();
+        for (int i = 0; i < pairs; i++) {
+            int position = start + i * SNAPSHOT_PAIR_BYTES;
+            pair(buffer.getLong(position), buffer.getLong(position + Long.BYTES));
+        }
+        taken = border;
+        return offset + getSnapshotSize(maxPairs);
+    }
+
+    /**
+     * Sorts the first values of an array in place with a heap sort, which never allocates.
+     *
+     * @param values the values
+     * @param count  the number of values to sort
+     */
+    private static void sort(long[] values, int count) {
+        for (int i = count / 2 - 1; i >= 0; i--) {
+            siftDown(values, i, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            long largest = values[0];
+            values[0] = values[end];
+            values[end] = largest;
+            siftDown(values, 0, end);
+        }
+    }
+
+    /**
+     * Moves a value of a heap down until it is not smaller than its children.
+     *
+     * @param values the heap
+     * @param i      the index of the value
+     * @param count  the size of the heap
+     */
+    private static void siftDown(long[] values, int i, int count) {
+        long value = values[i];
+        for (int child = 2 * i + 1; child < count; child = 2 * i + 1) {
+            if (child + 1 < count && values[child + 1] > values[child]) {
+                child++;
+            }
+            if (values[child] <= value) {
+                break;
+            }
+            values[i] = values[child];
+            i = child;
+        }
+        values[i] = value;
+    }
+
+    /**
+     * Returns the index of the first sorted value that is not smaller than a key.
+     * Values marked by flipping their bits are compared by their original value.
+     *
+     * @param values the sorted values
+     * @param count  the number of values
+     * @param key    the key
+     * @return the index of the first value that is not smaller than the key, or {@code count}
+     */
+    private static int search(long[] values, int count, long key) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            long value = values[middle] < 0 ? ~values[middle] : values[middle];
+            if (value < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks if a search found its key.
+     *
+     * @param values the sorted values
+     * @param count  the number of values
+     * @param index  the index returned by the search
+     * @param key    the key
+     * @return true if the value at the index is the key, marked or not
+     */
+    private static boolean isEntry(long[] values, int count, int index, long key) {
+        return index < count && (values[index] == key || values[index] == ~key);
+    }
+
+    /**
+     * Returns the number of a cell.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the number of the cell, or -1 if it is a wall
+     */
+    private long numberOf(int x, int y) {
+        long cell = (long) y * width + x;
+        return numbers == null ? cell : numbers[(int) cell];
+    }
+
+    /**
+     * Takes or frees a cell.
+     * The cell and the cell whose number is at the border are unpaired from the cells they are swapped with.
+     * After the border moved, the taken one of these up to four cells that is behind the border now
+     * is swapped with the free one that is in front of it, if there are such cells.
+     * A cell is taken if its place is in front of the border, and the place of a swapped cell is its partner.
+     *
+     * @param number the number of the cell
+     * @param take   true to take the cell, false to free it
+     */
+    private void update(long number, boolean take) {
+        long numberPartner = partner(number);
+        if (numberPartner < taken == take) {
+            return;
+        }
+        long border = take ? taken : taken - 1;
+        long borderPartner = partner(border);
+        boolean borderTaken = border == number ? take : borderPartner < taken;
+        boolean numberPartnerTaken = numberPartner == number ? take : number < taken;
+        boolean borderPartnerTaken = borderPartner == number ? take
+                : borderPartner == border ? borderTaken : border < taken;
+
+        unpair(number, numberPartner);
+        if (border != number && border != numberPartner) {
+            unpair(border, borderPartner);
+        }
+        taken += take ? 1 : -1;
+
+        long high = EMPTY;
+        long low = EMPTY;
+        if (misplaced(number, take)) {
+            high = take ? number : high;
+            low = take ? low : number;
+        }
+        if (misplaced(border, borderTaken)) {
+            high = borderTaken ? border : high;
+            low = borderTaken ? low : border;
+        }
+        if (misplaced(numberPartner, numberPartnerTaken)) {
+            high = numberPartnerTaken ? numberPartner : high;
+            low = numberPartnerTaken ? low : numberPartner;
+        }
+        if (misplaced(borderPartner, borderPartnerTaken)) {
+            high = borderPartnerTaken ? borderPartner : high;
+            low = borderPartnerTaken ? low : borderPartner;
+        }
+        if (high != EMPTY && low != EMPTY) {
+            pair(low, high);
+        }
+    }
+
+    /**
+     * Checks if a cell is on the wrong side of the border, a taken cell behind it or a free cell in front of it.
+     *
+     * @param number  the number of the cell
+     * @param isTaken true if the cell is taken
+     * @return true if the cell has to be swapped
+     */
+    private boolean misplaced(long number, boolean isTaken) {
+        return isTaken == number >= taken;
+    }
+
+    /**
+     * Returns the number of the cell a cell is swapped with, which is also the place of the cell.
+     *
+     * @param number the number of the cell
+     * @return the number of the partner, or the number itself if the cell is not swapped
+     */
+    private long partner(long number) {
+        if (places != null) {
+            return places[(int) number];
+        }
+        int slot = find(number);
+        return table[2 * slot] == EMPTY ? number : table[2 * slot + 1];
+    }
+
+    /**
+     * Swaps two cells that are both at their own place.
+     *
+     * @param low  the number of the free cell in front of the border
+     * @param high the number of the taken cell behind the border
+     */
+    private void pair(long low, long high) {
+        swapped += 2;
+        if (places != null) {
+            places[(int) low] = (int) high;
+            places[(int) high] = (int) low;
+            return;
+        }
+        if (swapped * 4 > table.length) {
+            rehash(table.length);
+        }
+        int slot = find(low);
+        table[2 * slot] = low;
+        table[2 * slot + 1] = high;
+        slot = find(high);
+        table[2 * slot] = high;
+        table[2 * slot + 1] = low;
+    }
+
+    /**
+     * Puts a cell and the cell it is swapped with back at their own places.
+     *
+     * @param number  the number of the cell
+     * @param partner the number of the cell it is swapped with, see {@link #partner(long)}
+     */
+    private void unpair(long number, long partner) {
+        if (partner == number) {
+            return;
+        }
+        swapped -= 2;
+        if (places != null) {
+            places[(int) number] = (int) number;
+            places[(int) partner] = (int) partner;
+            return;
+        }
+        deleteSlot(find(number));
+        deleteSlot(find(partner));
+    }
+
+    /**
+     * Checks if a swapped cell is marked while the pairs of a snapshot are checked.
+     *
+     * @param number the number of the cell
+     * @return true if the cell is marked
+     */
+    private boolean isMarked(long number) {
+        if (places != null) {
+            return places[(int) number] < 0;
+        }
+        int slot = find(number);
+        return table[2 * slot] != EMPTY && table[2 * slot + 1] < 0;
+    }
+
+    /**
+     * Marks a swapped cell or removes its mark by flipping the bits of its partner, which makes it negative.
+     *
+     * @param number the number of the cell
+     */
+    private void toggleMark(long number) {
+        if (places != null) {
+            places[(int) number] = ~places[(int) number];
+        } else {
+            int slot = find(number);
+            table[2 * slot + 1] = ~table[2 * slot + 1];
+        }
+    }
+
+    /**
+     * Removes the marks of the first pairs of a snapshot.
+     *
+     * @param buffer the buffer with the snapshot
+     * @param start  the offset of the first pair
+     * @param pairs  the number of marked pairs
+     */
+    private void toggleMarks(ByteBuffer buffer, int start, int pairs) {
+        for (int i = 0; i < pairs; i++) {
+            toggleMark(buffer.getLong(start + i * SNAPSHOT_PAIR_BYTES));
+            toggleMark(buffer.getLong(start + i * SNAPSHOT_PAIR_BYTES + Long.BYTES));
+        }
+    }
+
+    /**
+     * Returns the slot of a number, or the empty slot where it would be inserted.
+     *
+     * @param number the number
+     * @return the slot of the number
+     */
+    private int find(long number) {
+        int mask = table.length / 2 - 1;
+        int slot = home(number);
+        while (table[2 * slot] != EMPTY && table[2 * slot] != number) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the home slot of a number with Fibonacci hashing, taking the top bits of the product.
+     *
+     * @param number the number
+     * @return the home slot of the number
+     */
+    private int home(long number) {
+        return (int) ((number * 0x9e3779b97f4a7c15L) >>> shift);
+    }
+
+    /**
+     * Deletes a slot and shifts the following entries back, so that no tombstones are needed.
+     *
+     * @param slot the slot to delete
+     */
+    private void deleteSlot(int slot) {
+        int mask = table.length / 2 - 1;
+        table[2 * slot] = EMPTY;
+
+        int hole = slot;
+        for (int current = (slot + 1) & mask; table[2 * current] != EMPTY; current = (current + 1) & mask) {
+            int home = home(table[2 * current]);
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                table[2 * hole] = table[2 * current];
+                table[2 * hole + 1] = table[2 * current + 1];
+                table[2 * current] = EMPTY;
+                hole = current;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the hash table with a new number of slots.
+     *
+     * @param slots the new number of slots, a power of two
+     */
+    private void rehash(int slots) {
+        long[] old = table;
+        table = new long[2 * slots];
+        Arrays.fill(table, EMPTY);
+        shift = Long.numberOfLeadingZeros(slots) + 1;
+        for (int i = 0; i < old.length; i += 2) {
+            if (old[i] != EMPTY) {
+                int slot = find(old[i]);
+                table[2 * slot] = old[i];
+                table[2 * slot + 1] = old[i + 1];
+            }
+        }
+    }
+}
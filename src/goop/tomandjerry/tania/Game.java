@@ -1,85 +1,154 @@
 package goop.tomandjerry.tania;
-import javafx.scene.control.Alert;
-import javafx.scene.control.ButtonType;
-import javafx.scene.image.Image;
-import javafx.scene.image.ImageView;
-import javafx.stage.Stage;
-import java.util.*;
+import java.nio.ByteBuffer;
+import java.util.Objects;
 
 /**
  * The {@code Game} class represents the game logic.
  * It contains {@code Cat}, {@code Mouse}, and {@code Cheese} objects.
- * Furthermore, it has grid dimensions and a list of collected cheeses.
- * The {@code Game} class has a singleton design pattern to ensure only one instance of the game is created.
+ * The positions of all animals and the cheese are kept in an indexed {@code EntityStore}, so besides the main cat,
+ * a game can hold thousands of additional cats that are all moved in one loop.
+ * Catching the mouse and picking up a cheese are both looked up in the {@code SpatialIndex} of the store.
+ * A game can keep any number of cheeses on the board. New cheeses only appear on free cells,
+ * which are drawn from a {@code FreeCellSet} that the spatial index keeps up to date on every move,
+ * so a new cheese costs O(1) whether the board is empty or nearly full.
+ * Furthermore, it has a {@code Board} with the grid dimensions and the number of collected cheeses.
+ * A tick does not allocate any objects, the cheese is moved instead of replaced when it is collected.
+ * Every {@code Game} is independent and not thread-safe, many games can be hosted in one process by {@code GameSessions}.
  * It has methods to update the game, check if the game is over, reset the game,
  * move the mouse, generate cheese, and get the number of collected cheeses.
- * The {@code Game} class also has a method to throw a {@code RuntimeException} when the game is over.
+ * The {@code Game} class is a pure simulation without any JavaFX dependency,
+ * so it can be stepped headlessly. Its whole state fits into a snapshot of fixed size,
+ * which is written and restored without allocating. The outcome of each step is returned as a {@code TickResult}
+ * and it is up to the caller, e.g. {@code GameGUI}, to react when the game is over.
  *
  * @see         Cat
  * @see         Mouse
  * @see         Cheese
  * @see         GameGUI
  * @see         Animal
+ * @see         Board
+ * @see         EntityStore
+ * @see         SpatialIndex
+ * @see         FreeCellSet
+ * @see         CatStrategy
+ * @see         TickResult
+ * @see         GameSessions
  * @author      Tania Argot
  */
 public class Game {
 
-    /** Singleton instance of the Game object. */
-    private static Game instance;
+    /** Size of the fixed part of a snapshot: board size, random state, cheeses, ticks, cheese ID and cheese count. */
+    public static final int SNAPSHOT_HEADER_BYTES = 2 * Integer.BYTES + Long.BYTES + 4 * Integer.BYTES;
+
+    /** Number of cells a terrain may choose for a new cheese before the cheese is left for a later move. */
+    private static final int SPAWN_ATTEMPTS = 8;
 
     /** The Cat object in the game. */
-    private Cat cat;
+    private final Cat cat;
 
     /** The Mouse object in the game. */
-    private Mouse mouse;
+    private final Mouse mouse;
+
+    /** The store with the positions of all animals and the cheese in the game. */
+    private final EntityStore entities;
+
+    /** The board with the dimensions of the game grid. */
+    private final Board board;
+
+    /** The Cheese object in the game, which is at the cheese that appeared last. */
+    private final Cheese cheese = new Cheese(0, 0);
+
+    /** ID of the cheese that appeared last in the entity store, or -1 if it was collected or there is no cheese. */
+    private int cheeseId = -1;
+
+    /** Number of cheeses on the board. */
+    private int cheeseCount;
 
-    /** Width of the game grid. */
-    private final int gridWidth;
+    /** Number of cheeses the game keeps on the board, a cheese that could not appear yet is added in a later move. */
+    private final int cheeseTarget;
 
-    /** Height of the game grid. */
-    private final int gridHeight;
+    /** Cells without a wall or an entity, or null if the terrain of the board chooses the cells of new cheeses. */
+    private final FreeCellSet freeCells;
 
-    /** The Cheese object in the game. */
-    private Cheese cheese;
+    /** Cells of the entities of a snapshot while its free cell set is checked, or null if there is no such set. */
+    private long[] snapshotCells;
 
-    /** List of collected cheese objects. */
-    public ArrayList<Cheese> collectedCheeses;
+    /** Number of collected cheeses. */
+    private int collectedCheeses;
 
-    /** Image for the dialog pane. */
-    Image icon = new Image("resources/6.png");
+    /** Number of ticks since the game was started or reset. */
+    private int ticks;
 
-    /** Image for the dialog icon. */
-    Image icon1 = new Image("resources/5.png");
+    /** Random number generator of the game, used for the cat and for new cheeses. */
+    private final GameRandom random;
+
+    /** The strategy that moves the cats. */
+    private CatStrategy catStrategy = new RandomCatStrategy();
+
+    /** The latencies of the ticks are recorded here, or nowhere if it is {@code null}. */
+    private LatencyStats latencyStats;
 
     /**
-     * Constructor of the {@code Game} class.
-     * The constructor is private to ensure that only one instance of the game is created.
-     * It sets the grid width and height to 10.
-     * Then, it creates a new {@code Mouse} object in the top left corner,
-     * a new {@code Cat} object in the bottom right corner, and a new {@code Cheese} object.
-     * The constructor initializes the list of collected cheeses as an empty {@code ArrayList}.
+     * Constructor of the {@code Game} class with a seed based on the current time.
      */
-    private Game() {
-        gridWidth = 10;
-        gridHeight = 10;
-        mouse = new Mouse("Jerry", 0, 0);
-        cat = new Cat("Tom", gridWidth - 1, gridHeight - 1);
-        cheese = new Cheese(4, 6);
-        collectedCheeses = new ArrayList<>();
+    public Game() {
+        this(System.nanoTime());
     }
 
     /**
-     * Returns an instance of the {@code Game} object.
-     * The method uses the singleton design pattern to ensure only one instance of the game is created.
-     * If the instance is null, a new {@code Game} object is created.
+     * Constructor of the {@code Game} class on the default 10x10 board.
      *
-     * @return the instance of the {@code Game} object
+     * @param seed the seed of the random number generator of the game
      */
-    public static Game getInstance() {
-        if (instance == null) {
-            instance = new Game();
+    public Game(long seed) {
+        this(Board.DEFAULT, seed);
+    }
+
+    /**
+     * Constructor of the {@code Game} class with a single cheese on the board.
+     * Two games with the same board, seed and mouse moves play exactly the same.
+     * It creates a new {@code Mouse} object in the top left corner,
+     * a new {@code Cat} object in the bottom right corner, and a new {@code Cheese} object at a random free cell.
+     * The game starts with no collected cheeses.
+     *
+     * @param board the board with the dimensions of the game grid
+     * @param seed  the seed of the random number generator of the game
+     */
+    public Game(Board board, long seed) {
+        this(board, seed, 1);
+    }
+
+    /**
+     * Constructor of the {@code Game} class with several cheeses on the board at once.
+     * Every collected cheese is replaced by a new one on a random free cell.
+     * On a board whose terrain chooses the cells of new cheeses, cheeses that find no free cell yet
+     * are added in later moves.
+     *
+     * @param board   the board with the dimensions of the game grid
+     * @param seed    the seed of the random number generator of the game
+     * @param cheeses the number of cheeses on the board
+     * @throws IllegalArgumentException if the number of cheeses is not positive
+     *                                  or larger than the number of free cells of the board,
+     *                                  or if the board has walls and more than {@code FreeCellSet.MAX_CELLS} cells
+     */
+    public Game(Board board, long seed, int cheeses) {
+        if (cheeses <= 0) {
+            throw new IllegalArgumentException("A game needs at least one cheese.");
         }
-        return instance;
+        this.board = board;
+        this.cheeseTarget = cheeses;
+        Terrain terrain = board.getTerrain();
+        freeCells = terrain == null || terrain instanceof ObstacleMap ? new FreeCellSet(board, 2 + cheeses) : null;
+        entities = new EntityStore(2 + cheeses, new SpatialIndex(board, 2 + cheeses, freeCells));
+        snapshotCells = freeCells != null ? new long[2 + cheeses] : null;
+        random = new GameRandom(seed);
+        mouse = new Mouse("Jerry", entities, entities.add(EntityStore.MOUSE, 0, 0));
+        cat = new Cat("Tom", entities, entities.add(EntityStore.CAT, board.getWidth() - 1, board.getHeight() - 1));
+        if (freeCells != null && cheeses > freeCells.size()) {
+            throw new IllegalArgumentException("A board with " + freeCells.size()
+                    + " free cells cannot hold " + cheeses + " cheeses.");
+        }
+        refillCheeses();
     }
 
     /**
@@ -91,6 +160,15 @@ public class Game {
         return cat;
     }
 
+    /**
+     * Returns the {@code Board} of the game.
+     *
+     * @return the {@code Board} of the game
+     */
+    public Board getBoard() {
+        return board;
+    }
+
     /**
      * Returns the {@code Mouse} object.
      *
@@ -101,7 +179,7 @@ public class Game {
     }
 
     /**
-     * Returns the {@code Cheese} object.
+     * Returns the {@code Cheese} object, which is at the cheese that appeared last.
      *
      * @return the {@code Cheese} object
      */
@@ -109,98 +187,304 @@ public class Game {
         return cheese;
     }
 
+    /**
+     * Returns the number of cheeses on the board.
+     *
+     * @return the number of cheeses
+     */
+    public int getCheeseCount() {
+        return cheeseCount;
+    }
+
+    /**
+     * Returns the number of cheeses the game keeps on the board, which it was created with.
+     *
+     * @return the number of cheeses the game keeps on the board
+     */
+    public int getCheeseTarget() {
+        return cheeseTarget;
+    }
+
+    /**
+     * Adds another cat to the game.
+     * The cat is moved together with all other cats and returns to its position when the game is reset.
+     *
+     * @param x the x-coordinate of the cat
+     * @param y the y-coordinate of the cat
+     * @return the new cat
+     */
+    public Cat addCat(int x, int y) {
+        return new Cat("Tom", entities, entities.add(EntityStore.CAT, board.clampX(x), board.clampY(y)));
+    }
+
+    /**
+     * Returns the number of cats in the game.
+     *
+     * @return the number of cats
+     */
+    public int getCatCount() {
+        return entities.getCatCount();
+    }
+
+    /**
+     * Returns the store with the positions of all animals in the game.
+     *
+     * @return the entity store
+     */
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    /**
+     * Sets the strategy that moves the cats, by default they walk randomly.
+     *
+     * @param strategy the strategy that moves the cats
+     */
+    public void setCatStrategy(CatStrategy strategy) {
+        this.catStrategy = strategy;
+    }
+
+    /**
+     * Returns the strategy that moves the cats.
+     *
+     * @return the strategy that moves the cats
+     */
+    public CatStrategy getCatStrategy() {
+        return catStrategy;
+    }
+
+    /**
+     * Sets the stats the latencies of moving the mouse and updating the game are recorded in.
+     *
+     * @param latencyStats the latency stats, or {@code null} to record nothing
+     */
+    public void setLatencyStats(LatencyStats latencyStats) {
+        this.latencyStats = latencyStats;
+    }
+
     /**
      * Updates the game state.
-     * The cat begins to move randomly.
-     * If the cat catches the mouse, the method displays a Game Over dialog.
-     * The dialog shows the collected cheeses and asks the user if they want to play again.
-     * If the user clicks the restart button, the game is reset.
-     * If the user clicks the exit button, the game exits.
-     * If the dialog fails to show, a {@code RuntimeException} is thrown.
-     *
-     * @throws RuntimeException if the dialog is closed instead of the user clicking "Restart Game".
-     */
-    public void update() throws RuntimeException {
-        cat.moveRandomly();
-
-        if (isGameOver()) {
-            try {
-                Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
-                ImageView imageView = new ImageView(icon);
-                imageView.setFitHeight(75);
-                imageView.setFitWidth(100);
-                alert.getDialogPane().setGraphic(imageView);
-                Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
-                stage.getIcons().add(icon1);
-                ButtonType restart = new ButtonType("Restart Game");
-                alert.getButtonTypes().setAll(restart);
-                alert.setTitle("Game Over");
-                alert.setHeaderText("You were caught :(");
-                alert.setContentText(mouse.getName() + " collected " + getCollectedCheesesCount() + " cheeses.\n" + "Do you want to play again?");
-                alert.showAndWait();
-
-                if (alert.getResult() == restart) {
-                    reset();
-                } else {
-                    throw new RuntimeException("The game was closed.");
-                }
+     * All cats move with the cat strategy of the game and the method reports whether a cat caught the mouse.
+     * The game is not reset here, the caller decides what happens after a {@code TickResult#CAUGHT}.
+     *
+     * @return {@code TickResult.CAUGHT} if the cat caught the mouse, {@code TickResult.RUNNING} otherwise
+     */
+    public TickResult update() {
+        catStrategy.moveCats(this);
+        return isGameOver() ? TickResult.CAUGHT : TickResult.RUNNING;
+    }
 
-            } catch (RuntimeException exception) {
-                System.out.println(exception.getMessage());
-                System.exit(1);
-            }
+    /**
+     * Advances the game by one full step.
+     * The method moves the mouse by the given offset and then updates the game state.
+     * If the game has latency stats, both steps are timed.
+     *
+     * @param mouseX the x-offset of the mouse
+     * @param mouseY the y-offset of the mouse
+     * @return the result of the step
+     */
+    public TickResult tick(int mouseX, int mouseY) {
+        ticks++;
+        if (latencyStats == null) {
+            moveMouse(mouseX, mouseY);
+            return update();
         }
+
+        long start = latencyStats.start();
+        moveMouse(mouseX, mouseY);
+        latencyStats.record(LatencyStage.MOVE, start);
+        start = latencyStats.start();
+        TickResult result = update();
+        latencyStats.record(LatencyStage.UPDATE, start);
+        return result;
+    }
+
+    /**
+     * Advances the game by one full step, moving the mouse in the given direction.
+     *
+     * @param direction the direction of the mouse
+     * @return the result of the step
+     */
+    public TickResult tick(Direction direction) {
+        return tick(direction.getDx(), direction.getDy());
     }
 
     /**
      * Checks if the game is over.
-     * The method returns true if the cat catches the mouse.
+     * The method returns true if a cat catches the mouse.
      * Otherwise, the method returns false.
      *
      * @return true if the game is over, false otherwise
      */
     public boolean isGameOver() {
-        return cat.getX() == mouse.getX() && cat.getY() == mouse.getY();
+        return entities.isOccupiedBy(EntityStore.CAT, mouse.getX(), mouse.getY());
     }
 
     /**
      * Resets the game.
-     * The method clears the collected cheeses and creates new {@code Mouse} and {@code Cat} objects.
+     * The method clears the collected cheeses and the tick count,
+     * moves the mouse and all cats back to where they started,
+     * and replaces all cheeses with new ones drawn like the cheeses of a new game.
+     * The free cell set is rebuilt by taking the cells of the animals in the order of their IDs,
+     * like in a new game, so its order does not depend on the games played before.
      */
     public void reset() {
-        collectedCheeses.clear();
-        mouse = new Mouse("Jerry", 0, 0);
-        cat = new Cat("Tom", gridWidth - 1, gridHeight - 1);
+        collectedCheeses = 0;
+        ticks = 0;
+        for (int id = 0; id < entities.getSize(); id++) {
+            if (entities.getType(id) == EntityStore.CHEESE) {
+                removeCheese(id);
+            }
+        }
+        entities.respawn();
+        if (freeCells != null) {
+            freeCells.clear();
+            for (int id = 0; id < entities.getSize(); id++) {
+                if (entities.getType(id) != EntityStore.FREE) {
+                    freeCells.take(entities.getX(id), entities.getY(id));
+                }
+            }
+        }
+        refillCheeses();
+    }
+
+    /**
+     * Resets the game and reseeds its random number generator.
+     * After this call, a game without added cats plays exactly like a new game created with the same board,
+     * seed and number of cheeses, because the cheeses only depend on the free cells and the random numbers,
+     * not on the games played before.
+     *
+     * @param seed the new seed of the random number generator
+     */
+    public void reset(long seed) {
+        random.setState(seed);
+        reset();
     }
 
     /**
      * Moves the mouse.
-     * The method updates the mouse position and checks if the mouse collects a cheese.
-     * If the mouse collects a cheese, the cheese is added to the list of collected cheeses.
-     * Then, a new cheese is generated.
+     * The method updates the mouse position and looks up a cheese on the new cell in the spatial index,
+     * which costs O(1) no matter how many cheeses are on the board.
+     * If the mouse collects a cheese, the number of collected cheeses is increased.
+     * Then, a new cheese appears on a random free cell, together with any cheese that found no free cell before.
+     * The terrain of the board is told where the mouse went, so it can load the cells ahead of it.
      *
      * @param mouseX the x-coordinate of the mouse
      * @param mouseY the y-coordinate of the mouse
      */
     public void moveMouse(int mouseX, int mouseY) {
-        mouse.moveByUser(mouseX, mouseY);
+        int fromX = mouse.getX();
+        int fromY = mouse.getY();
+        mouse.moveByUser(mouseX, mouseY, board);
+        Terrain terrain = board.getTerrain();
+        if (terrain != null) {
+            terrain.follow(mouse.getX(), mouse.getY(), mouse.getX() - fromX, mouse.getY() - fromY);
+        }
 
-        if (cheese != null && cheese.getX() == mouse.getX() && cheese.getY() == mouse.getY()) {
-            collectedCheeses.add(cheese);
-            cheese = null;
-            generateCheese();
+        int collected = entities.firstAt(EntityStore.CHEESE, mouse.getX(), mouse.getY());
+        if (collected >= 0) {
+            collectedCheeses++;
+            removeCheese(collected);
+        }
+        if (cheeseCount < cheeseTarget) {
+            refillCheeses();
         }
     }
 
     /**
-     * Generates a new cheese at a random location.
-     * The method uses the {@code Random} class to generate random x- and y-coordinates.
+     * Generates a new cheese at a random free cell, replacing the cheese that appeared last.
+     * The method uses the random number generator of the game, see {@link #spawnCheese()}.
      */
     public void generateCheese() {
-        Random random = new Random();
-        int x = random.nextInt(gridWidth);
-        int y = random.nextInt(gridHeight);
-        cheese = new Cheese(x, y);
+        if (cheeseId >= 0) {
+            removeCheese(cheeseId);
+        }
+        spawnCheese();
+    }
+
+    /**
+     * Places a cheese at the given location, replacing the cheese that appeared last.
+     * Unlike a generated cheese, it may be placed on an occupied cell.
+     *
+     * @param x the x-coordinate of the cheese
+     * @param y the y-coordinate of the cheese
+     */
+    public void placeCheese(int x, int y) {
+        if (cheeseId >= 0) {
+            removeCheese(cheeseId);
+        }
+        addCheese(x, y);
+    }
+
+    /**
+     * Adds cheeses on random free cells until the game has as many as it should keep,
+     * or until no free cell is left, then the missing cheeses are added in a later move.
+     */
+    private void refillCheeses() {
+        while (cheeseCount < cheeseTarget) {
+            if (!spawnCheese()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Adds a cheese on a random free cell, a cell without a wall, an animal or another cheese.
+     * The cell is chosen in one of three ways, tried in this order:
+     * <ol>
+     *     <li>On a board whose terrain chooses the cells of new cheeses, the terrain draws a cell,
+     *     and a cell with an entity on it is drawn again up to {@link #SPAWN_ATTEMPTS} times.</li>
+     *     <li>Otherwise, the cell is drawn from the {@code FreeCellSet} with one random number.</li>
+     *     <li>A board without either gets no cheese.</li>
+     * </ol>
+     *
+     * @return true if a cheese was added, false if no free cell was found
+     */
+    private boolean spawnCheese() {
+        Terrain terrain = board.getTerrain();
+        long cell = terrain != null ? terrain.nextCheese(random, mouse.getX(), mouse.getY()) : -1;
+        if (cell >= 0) {
+            for (int attempt = 1; !entities.isEmpty((int) (cell >>> 32), (int) cell); attempt++) {
+                if (attempt == SPAWN_ATTEMPTS) {
+                    return false;
+                }
+                cell = terrain.nextCheese(random, mouse.getX(), mouse.getY());
+            }
+            addCheese((int) (cell >>> 32), (int) cell);
+            return true;
+        }
+
+        cell = freeCells != null ? freeCells.draw(random) : -1;
+        if (cell < 0) {
+            return false;
+        }
+        addCheese((int) (cell >>> 32), (int) cell);
+        return true;
+    }
+
+    /**
+     * Adds a cheese on a cell, the spatial index takes the cell out of the free cell set.
+     *
+     * @param x the x-coordinate of the cheese
+     * @param y the y-coordinate of the cheese
+     */
+    private void addCheese(int x, int y) {
+        cheeseId = entities.add(EntityStore.CHEESE, x, y);
+        cheese.setPosition(x, y);
+        cheeseCount++;
+    }
+
+    /**
+     * Removes a cheese, the spatial index puts its cell back into the free cell set if no other entity is there.
+     *
+     * @param id the ID of the cheese
+     */
+    private void removeCheese(int id) {
+        entities.remove(id);
+        cheeseCount--;
+        if (id == cheeseId) {
+            cheeseId = -1;
+        }
     }
 
     /**
@@ -209,6 +493,183 @@ public class Game {
      * @return the number of collected cheeses
      */
     public int getCollectedCheesesCount() {
-        return collectedCheeses.size();
+        return collectedCheeses;
+    }
+
+    /**
+     * Returns the number of ticks since the game was started or reset.
+     *
+     * @return the number of ticks
+     */
+    public int getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * Makes this game an exact copy of another game on the same board.
+     * The copy continues exactly like the original, including its random numbers.
+     *
+     * @param other the game to copy
+     * @throws IllegalArgumentException if the games have different boards
+     */
+    public void copyFrom(Game other) {
+        if (other.board.getWidth() != board.getWidth() || other.board.getHeight() != board.getHeight()) {
+            throw new IllegalArgumentException("Games have different boards.");
+        }
+        random.setState(other.random.getState());
+        entities.copyFrom(other.entities);
+        if (freeCells != null && other.freeCells != null) {
+            freeCells.copyFrom(other.freeCells);
+        }
+        cheeseId = other.cheeseId;
+        cheeseCount = other.cheeseCount;
+        cheese.setPosition(other.cheese.getX(), other.cheese.getY());
+        collectedCheeses = other.collectedCheeses;
+        ticks = other.ticks;
+    }
+
+    /**
+     * Returns the size of a snapshot of the game.
+     * It stays the same while the game is played, unless cats are added.
+     * The free cell set reserves one pair of swapped cells for every entity ID.
+     *
+     * @return the size of a snapshot in bytes
+     */
+    public int getSnapshotSize() {
+        int size = SNAPSHOT_HEADER_BYTES + entities.getSnapshotSize();
+        return freeCells != null ? size + FreeCellSet.getSnapshotSize(entities.getSize()) : size;
+    }
+
+    /**
+     * Writes a snapshot of the game at an absolute offset of a buffer, without allocating.
+     * The snapshot holds the board size, the state of the random number generator, the collected cheeses,
+     * the ticks, the ID and the number of the cheeses, the entities and the order of the free cell set,
+     * so a restored game continues exactly like this one.
+     * Many snapshots can be packed into one buffer, e.g. for rollbacks or to fork a game into many branches.
+     *
+     * @param buffer the buffer, its position is not changed
+     * @param offset the offset of the snapshot in the buffer
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     */
+    public int writeSnapshot(ByteBuffer buffer, int offset) {
+        Objects.checkFromIndexSize(offset, getSnapshotSize(), buffer.limit());
+        buffer.putInt(offset, board.getWidth());
+        buffer.putInt(offset + 4, board.getHeight());
+        buffer.putLong(offset + 8, random.getState());
+        buffer.putInt(offset + 16, collectedCheeses);
+        buffer.putInt(offset + 20, ticks);
+        buffer.putInt(offset + 24, cheeseId);
+        buffer.putInt(offset + 28, cheeseCount);
+        int end = entities.writeSnapshot(buffer, offset + SNAPSHOT_HEADER_BYTES);
+        return freeCells != null ? freeCells.writeSnapshot(buffer, end, entities.getSize()) : end;
+    }
+
+    /**
+     * Restores the game from a snapshot written by {@link #writeSnapshot(ByteBuffer, int)}, without allocating.
+     * The snapshot is checked with {@link #checkSnapshot(ByteBuffer, int)} first,
+     * so the game is left as it was if it is not valid.
+     * The cat strategy and the latency stats of this game are kept.
+     *
+     * @param buffer the buffer, its position is not changed
+     * @param offset the offset of the snapshot in the buffer
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the snapshot is of another board or not valid
+     */
+    public int readSnapshot(ByteBuffer buffer, int offset) {
+        int end = checkSnapshot(buffer, offset);
+        random.setState(buffer.getLong(offset + 8));
+        collectedCheeses = buffer.getInt(offset + 16);
+        ticks = buffer.getInt(offset + 20);
+        cheeseId = buffer.getInt(offset + 24);
+        cheeseCount = buffer.getInt(offset + 28);
+        int entitiesEnd = entities.readSnapshot(buffer, offset + SNAPSHOT_HEADER_BYTES, board);
+        if (freeCells != null) {
+            freeCells.readSnapshot(buffer, entitiesEnd, entities.getSize());
+        }
+        if (cheeseId >= 0) {
+            cheese.setPosition(entities.getX(cheeseId), entities.getY(cheeseId));
+        }
+        return end;
+    }
+
+    /**
+     * Checks a snapshot written by {@link #writeSnapshot(ByteBuffer, int)} without changing the game.
+     * The board and the counters must match, the entities must be valid, see
+     * {@link EntityStore#checkSnapshot(ByteBuffer, int, Board)}, the mouse and the cat must have their IDs,
+     * the cheese that appeared last and the number of cheeses must match the entities,
+     * and the pairs of the free cell set must match the cells of the entities.
+     *
+     * @param buffer the buffer, its position is not changed
+     * @param offset the offset of the snapshot in the buffer
+     * @return the offset after the snapshot
+     * @throws IndexOutOfBoundsException if the snapshot does not fit into the buffer
+     * @throws IllegalArgumentException  if the snapshot is of another board or not valid
+     */
+    public int checkSnapshot(ByteBuffer buffer, int offset) {
+        Objects.checkFromIndexSize(offset, SNAPSHOT_HEADER_BYTES, buffer.limit());
+        if (buffer.getInt(offset) != board.getWidth() || buffer.getInt(offset + 4) != board.getHeight()) {
+            throw new IllegalArgumentException("The snapshot is of another board.");
+        }
+        if (buffer.getInt(offset + 16) < 0 || buffer.getInt(offset + 20) < 0) {
+            throw new IllegalArgumentException("Invalid number of cheeses or ticks.");
+        }
+        int start = offset + SNAPSHOT_HEADER_BYTES;
+        int end = entities.checkSnapshot(buffer, start, board);
+        int size = buffer.getInt(start);
+        if (size < 2 || typeOf(buffer, start, 0) != EntityStore.MOUSE || typeOf(buffer, start, 1) != EntityStore.CAT) {
+            throw new IllegalArgumentException("The snapshot has no mouse and cat.");
+        }
+        int lastCheese = buffer.getInt(offset + 24);
+        if (lastCheese < -1 || lastCheese >= size
+                || lastCheese >= 0 && typeOf(buffer, start, lastCheese) != EntityStore.CHEESE) {
+            throw new IllegalArgumentException("Invalid cheese " + lastCheese + ".");
+        }
+        int cheeses = 0;
+        for (int id = 0; id < size; id++) {
+            if (typeOf(buffer, start, id) == EntityStore.CHEESE) {
+                cheeses++;
+            }
+        }
+        if (buffer.getInt(offset + 28) != cheeses) {
+            throw new IllegalArgumentException("Invalid number of cheeses " + buffer.getInt(offset + 28) + ".");
+        }
+        if (freeCells == null) {
+            return end;
+        }
+
+        if (snapshotCells.length < size) {
+            snapshotCells = new long[size];
+        }
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            int position = start + Integer.BYTES + id * EntityStore.SNAPSHOT_ENTITY_BYTES;
+            if (buffer.get(position) != EntityStore.FREE) {
+                snapshotCells[count++] = (long) buffer.getInt(position + 1) << 32 | buffer.getInt(position + 5);
+            }
+        }
+        return freeCells.checkSnapshot(buffer, end, size, snapshotCells, count);
+    }
+
+    /**
+     * Returns the type of an entity in a snapshot of the entity store.
+     *
+     * @param buffer the buffer with the snapshot
+     * @param start  the offset of the snapshot of the entity store
+     * @param id     the ID of the entity
+     * @return the type of the entity
+     */
+    private static byte typeOf(ByteBuffer buffer, int start, int id) {
+        return buffer.get(start + Integer.BYTES + id * EntityStore.SNAPSHOT_ENTITY_BYTES);
+    }
+
+    /**
+     * Returns the random number generator of the game.
+     *
+     * @return the random number generator of the game
+     */
+    public GameRandom getRandom() {
+        return random;
     }
 }
\ No newline at end of file
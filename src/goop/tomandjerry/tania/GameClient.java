@@ -0,0 +1,279 @@
+package goop.tomandjerry.tania;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+
+/**
+ * The {@code GameClient} class connects to a {@code GameServer} and mirrors its arena.
+ * A reader thread applies every delta of the server to a local {@code EntityStore},
+ * which the {@code GameGUI} draws with its {@code GridRenderer}.
+ * The IDs of the server are mapped to local IDs, because the local store hands out its own IDs.
+ * All reads of the mirrored state must hold the lock of the client.
+ *
+ * @see         GameServer
+ * @see         ArenaProtocol
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public final class GameClient implements AutoCloseable {
+
+    /** Initial size of the receive buffer, it grows for larger frames. */
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    /** The socket of the connection. */
+    private final SocketChannel channel;
+
+    /** The board of the arena. */
+    private final Board board;
+
+    /** ID of the own mouse on the server. */
+    private final int mouseId;
+
+    /** The mirrored entities. */
+    private final EntityStore entities;
+
+    /** Local IDs by server ID, or -1 if the server ID is not used. */
+    private int[] localIds = new int[64];
+
+    /** Collected cheeses of the own mouse. */
+    private int score;
+
+    /** Last tick received from the server. */
+    private long tick;
+
+    /** True if the mirrored state changed since it was last drawn. */
+    private boolean dirty;
+
+    /** Buffer of the received bytes that are not applied yet. */
+    private ByteBuffer received = ByteBuffer.allocate(BUFFER_BYTES);
+
+    /** Buffer for one input. */
+    private final ByteBuffer output = ByteBuffer.allocate(1);
+
+    /** The thread that reads the deltas. */
+    private final Thread reader;
+
+    /**
+     * Constructor of the {@code GameClient} class.
+     * It connects to the server, waits for the welcome and starts reading the deltas.
+     *
+     * @param address the address of the server
+     * @throws IOException if the server cannot be reached or does not send a welcome
+     */
+    public GameClient(InetSocketAddress address) throws IOException {
+        channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        try {
+            ByteBuffer welcome = readFrame();
+            if (welcome == null || ArenaProtocol.typeOf(welcome) != ArenaProtocol.WELCOME) {
+                throw new IOException("The server did not send a welcome.");
+            }
+            welcome.get();
+            board = new Board((int) Varints.read(welcome), (int) Varints.read(welcome));
+            mouseId = (int) Varints.read(welcome);
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+        entities = new EntityStore(64, new SpatialIndex(board, 64));
+        Arrays.fill(localIds, -1);
+
+        reader = new Thread(this::readDeltas, "game-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns the board of the arena.
+     *
+     * @return the board
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Sends the direction of the own mouse to the server.
+     *
+     * @param direction the direction
+     * @throws IOException if the input cannot be sent
+     */
+    public void send(Direction direction) throws IOException {
+        synchronized (output) {
+            output.clear();
+            output.put((byte) direction.ordinal());
+            output.flip();
+            while (output.hasRemaining()) {
+                channel.write(output);
+            }
+        }
+    }
+
+    /**
+     * Returns the mirrored entities. Callers must hold the lock of the client.
+     *
+     * @return the mirrored entities
+     */
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    /**
+     * Returns the local ID of the own mouse in the mirrored entities.
+     *
+     * @return the local ID, or -1 if the mouse was not received yet
+     */
+    public synchronized int getLocalMouseId() {
+        return mouseId < localIds.length ? localIds[mouseId] : -1;
+    }
+
+    /**
+     * Returns the collected cheeses of the own mouse.
+     *
+     * @return the collected cheeses
+     */
+    public synchronized int getScore() {
+        return score;
+    }
+
+    /**
+     * Returns the last tick received from the server.
+     *
+     * @return the tick
+     */
+    public synchronized long getTick() {
+        return tick;
+    }
+
+    /**
+     * Returns whether the mirrored state changed since the last call, and clears the flag.
+     *
+     * @return true if the state changed
+     */
+    public synchronized boolean takeDirty() {
+        boolean changed = dirty;
+        dirty = false;
+        return changed;
+    }
+
+    /**
+     * Returns whether the connection is still open.
+     *
+     * @return true if the connection is open
+     */
+    public boolean isConnected() {
+        return channel.isOpen() && reader.isAlive();
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if the socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Reads and applies deltas until the connection is closed.
+     */
+    private void readDeltas() {
+        try {
+            for (ByteBuffer frame = readFrame(); frame != null; frame = readFrame()) {
+                if (ArenaProtocol.typeOf(frame) == ArenaProtocol.DELTA) {
+                    synchronized (this) {
+                        apply(frame);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException exception) {
+            if (channel.isOpen()) {
+                System.out.println("The connection to the server was lost: " + exception.getMessage());
+            }
+        } finally {
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                System.out.println("The connection could not be closed: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Reads the next frame, blocking until it is complete.
+     *
+     * @return the frame without its length, or null if the server closed the connection
+     * @throws IOException if the socket fails
+     */
+    private ByteBuffer readFrame() throws IOException {
+        received.flip();
+        int length = ArenaProtocol.completeFrameLength(received);
+        while (length < 0) {
+            received.compact();
+            if (received.remaining() == 0) {
+                received = ByteBuffer.allocate(received.capacity() * 2).put(received.flip());
+            }
+            if (channel.read(received) < 0) {
+                return null;
+            }
+            received.flip();
+            length = ArenaProtocol.completeFrameLength(received);
+        }
+        int start = received.position() + ArenaProtocol.LENGTH_BYTES;
+        ByteBuffer frame = ByteBuffer.allocate(length).put(received.slice(start, length)).flip();
+        received.position(start + length);
+        received.compact();
+        return frame;
+    }
+
+    /**
+     * Applies a delta to the mirrored entities.
+     *
+     * @param frame the delta without its length
+     */
+    private void apply(ByteBuffer frame) {
+        frame.position(frame.position() + 1 + Long.BYTES);
+        tick = Varints.read(frame);
+        int count = (int) Varints.read(frame);
+        for (int i = 0; i < count; i++) {
+            int id = (int) Varints.read(frame);
+            byte type = frame.get();
+            if (id >= localIds.length) {
+                int oldLength = localIds.length;
+                localIds = Arrays.copyOf(localIds, Math.max(id + 1, oldLength * 2));
+                Arrays.fill(localIds, oldLength, localIds.length, -1);
+            }
+            int local = localIds[id];
+            if (type == EntityStore.FREE) {
+                if (local >= 0) {
+                    entities.remove(local);
+                    localIds[id] = -1;
+                }
+                continue;
+            }
+
+            int x = (int) Varints.read(frame);
+            int y = (int) Varints.read(frame);
+            if (type == EntityStore.MOUSE) {
+                int cheeses = (int) Varints.read(frame);
+                if (id == mouseId) {
+                    score = cheeses;
+                }
+            }
+            if (local >= 0 && entities.getType(local) != type) {
+                entities.remove(local);
+                local = -1;
+            }
+            if (local >= 0) {
+                entities.setPosition(local, x, y);
+            } else {
+                localIds[id] = entities.add(type, x, y);
+            }
+        }
+        dirty = true;
+    }
+}
@@ -0,0 +1,192 @@
+package goop.tomandjerry.tania;
+import java.util.Arrays;
+
+/**
+ * The {@code GameFrame} class is a copy of everything the GUI shows of a game after a tick.
+ * Frames are preallocated by a {@code FrameRing} and filled by the {@code SimulationThread}.
+ * Once a frame is published it is not changed until the renderer hands it back,
+ * so the JavaFX application thread can draw it without looking at the game, which keeps changing.
+ * The frame also holds the walls of the viewport around the mouse, because the terrain of the board
+ * is only safe to read on the thread of the game, e.g. a {@code ChunkedWorld} loads and evicts chunks on a lookup.
+ *
+ * @see         FrameRing
+ * @see         SimulationThread
+ * @author      Tania Argot
+ */
+public final class GameFrame {
+
+    /** Copy of the entities of the game, with its own spatial index. */
+    private final EntityStore entities;
+
+    /** The board of the game. */
+    private final Board board;
+
+    /** Number of columns of the viewport whose walls are copied. */
+    private final int wallColumns;
+
+    /** Number of rows of the viewport whose walls are copied. */
+    private final int wallRows;
+
+    /** One bit per cell of the viewport by row and column, set if the cell is a wall, or null if the board is open. */
+    private final long[] walls;
+
+    /** Board x-coordinate of the top left cell of the viewport. */
+    private int wallLeft;
+
+    /** Board y-coordinate of the top left cell of the viewport. */
+    private int wallTop;
+
+    /** ID of the mouse in the entities. */
+    private int mouseId;
+
+    /** Number of cheeses the mouse collected. */
+    private int collectedCheeses;
+
+    /** Number of ticks played. */
+    private int tickCount;
+
+    /** True if the cat caught the mouse in the last tick. */
+    private boolean gameOver;
+
+    /** Time of the key press played in the ticks of the frame in nanoseconds, or 0 if there was none. */
+    private long inputTime;
+
+    /** Number of the frame, counting from 1 for the first published frame. */
+    private long number;
+
+    /**
+     * Constructor of the {@code GameFrame} class.
+     *
+     * @param board         the board of the game
+     * @param capacity      the expected number of entities
+     * @param viewportCells the largest number of cells per row and column around the mouse whose walls are copied
+     */
+    GameFrame(Board board, int capacity, int viewportCells) {
+        this.board = board;
+        entities = new EntityStore(capacity, new SpatialIndex(board, capacity));
+        wallColumns = Math.min(board.getWidth(), viewportCells);
+        wallRows = Math.min(board.getHeight(), viewportCells);
+        walls = board.getTerrain() != null ? new long[(wallColumns * wallRows + Long.SIZE - 1) / Long.SIZE] : null;
+    }
+
+    /**
+     * Copies the state of a game into the frame. Only called by the thread that owns the game.
+     *
+     * @param game      the game
+     * @param inputTime the time of the played key press in nanoseconds, or 0 if there was none
+     * @param number    the number of the frame
+     */
+    void capture(Game game, long inputTime, long number) {
+        entities.copyFrom(game.getEntities());
+        mouseId = game.getMouse().getId();
+        if (walls != null) {
+            copyWalls(game.getMouse().getX(), game.getMouse().getY());
+        }
+        collectedCheeses = game.getCollectedCheesesCount();
+        tickCount = game.getTickCount();
+        gameOver = game.isGameOver();
+        this.inputTime = inputTime;
+        this.number = number;
+    }
+
+    /**
+     * Copies the walls of the viewport centered on the mouse, kept inside the board like the viewport of the renderer.
+     *
+     * @param mouseX the x-coordinate of the mouse
+     * @param mouseY the y-coordinate of the mouse
+     */
+    private void copyWalls(int mouseX, int mouseY) {
+        wallLeft = Math.max(0, Math.min(board.getWidth() - wallColumns, mouseX - wallColumns / 2));
+        wallTop = Math.max(0, Math.min(board.getHeight() - wallRows, mouseY - wallRows / 2));
+        Arrays.fill(walls, 0);
+        for (int row = 0; row < wallRows; row++) {
+            for (int column = 0; column < wallColumns; column++) {
+                if (!board.isPassable(wallLeft + column, wallTop + row)) {
+                    int cell = row * wallColumns + column;
+                    walls[cell >>> 6] |= 1L << cell;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a cell is a wall, from the walls copied with the frame,
+     * so it can be called on any thread that holds the frame.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is a wall in the viewport around the mouse, false if it is not or outside the viewport
+     */
+    public boolean isWall(int x, int y) {
+        int column = x - wallLeft;
+        int row = y - wallTop;
+        if (walls == null || column < 0 || row < 0 || column >= wallColumns || row >= wallRows) {
+            return false;
+        }
+        int cell = row * wallColumns + column;
+        return (walls[cell >>> 6] & 1L << cell) != 0;
+    }
+
+    /**
+     * Returns the entities of the game.
+     *
+     * @return the entities, which must not be changed
+     */
+    public EntityStore getEntities() {
+        return entities;
+    }
+
+    /**
+     * Returns the ID of the mouse in the entities.
+     *
+     * @return the ID of the mouse
+     */
+    public int getMouseId() {
+        return mouseId;
+    }
+
+    /**
+     * Returns the number of cheeses the mouse collected.
+     *
+     * @return the number of collected cheeses
+     */
+    public int getCollectedCheeses() {
+        return collectedCheeses;
+    }
+
+    /**
+     * Returns the number of ticks played.
+     *
+     * @return the number of ticks
+     */
+    public int getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Checks if the cat caught the mouse.
+     *
+     * @return true if the game is over, false otherwise
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    /**
+     * Returns the time of the key press played in the ticks of the frame.
+     *
+     * @return the time in nanoseconds, or 0 if no measured key press was played
+     */
+    public long getInputTime() {
+        return inputTime;
+    }
+
+    /**
+     * Returns the number of the frame.
+     *
+     * @return the number, counting from 1
+     */
+    public long getNumber() {
+        return number;
+    }
+}
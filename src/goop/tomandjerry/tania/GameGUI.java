@@ -1,63 +1,135 @@
 package goop.tomandjerry.tania;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ButtonType;
 import javafx.scene.control.Label;
 import javafx.scene.input.KeyCode;
 import javafx.scene.layout.*;
 import javafx.stage.Stage;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.management.JMException;
 
 /**
  * The {@code GameGUI} class represents the graphical user interface of the game.
  * It sets the stage and scene for the game.
  * The class contains the grid, images, buttons, and labels.
+ * The images are loaded by {@code Assets} in the background, so the window opens before they are decoded.
+ * A local game is ticked by a {@code SimulationThread}: the key handler only queues the moves,
+ * and the animation timer draws the newest {@code GameFrame} the simulation published.
+ * Started with {@code --connect=host:port}, the GUI is a client of a {@code GameServer} instead:
+ * the arrow keys steer the own mouse in the shared arena and the grid shows the state the server sends.
  * The class extends the {@code Application} class from the JavaFX library.
  *
  * @see         Game
+ * @see         SimulationThread
+ * @see         GameClient
  * @version     1.0
  * @author      Tania Argot
  */
 public class GameGUI extends Application {
 
-    /** Instance of the {@code Game} class. */
-    private final Game game = Game.getInstance();
+    /** Size of a cell of the grid in pixels. */
+    private static final int CELL_SIZE = 45;
 
-    /** 2D array of {@code ImageView}s for the game grid. */
-    private ImageView[][] grid;
+    /** Largest number of visible cells per row and column, larger boards scroll with the mouse. */
+    private static final int VIEWPORT_CELLS = 15;
 
-    /** Image of a cat. */
-    private final Image imageCat = new Image("resources/1.png");
+    /** Number of game ticks per second, independent of the frame rate and of key events. */
+    private static final double TICKS_PER_SECOND = 6;
 
-    /** Image of a mouse. */
-    private final Image imageMouse = new Image("resources/2.png");
+    /** Time budget of the autopilot for one move in nanoseconds, well below the length of a tick. */
+    private static final long AUTOPILOT_BUDGET_NANOS = 20_000_000;
 
-    /** Image of an empty cell. */
-    private final Image imageEmpty = new Image("resources/3.png");
+    /** Number of frames with ticks between two updates of the latency label, about twice a second. */
+    private static final int LATENCY_LABEL_FRAMES = 3;
 
-    /** Image of a cheese. */
-    private final Image imageCheese = new Image("resources/4.png");
+    /** Directory where the replay logs of all games are kept. */
+    private static final String REPLAY_DIRECTORY = "replays";
+
+    /** File with the scores of all finished games. */
+    private static final String LEADERBOARD_FILE = "leaderboard.tjl";
+
+    /** Seed of the game. */
+    private final long seed = System.nanoTime();
+
+    /** Instance of the {@code Game} class, its board defines the size of the grid. Only ticked by the simulation. */
+    private final Game game = new Game(Board.DEFAULT, seed);
+
+    /** Recorder of the replay log, or null if the game is not recorded. */
+    private ReplayRecorder recorder;
+
+    /** Thread that ticks the game, or null if the game is played on a server. */
+    private SimulationThread simulation;
+
+    /** The frame drawn last, or null before the first frame of the simulation. */
+    private GameFrame shownFrame;
+
+    /** The leaderboard every finished game is added to, or {@code null} if it could not be opened. */
+    private Leaderboard leaderboard;
+
+    /** Client of the multiplayer server, or null if the game is played locally. */
+    private GameClient client;
+
+    /** Renderer that draws the game grid. */
+    private GridRenderer renderer;
+
+    /** Time the application was launched, to measure how long it takes until the first frame. */
+    private static final long LAUNCH_NANOS = System.nanoTime();
+
+    /** True to print the time from the launch to the first frame and to the loaded sprites. */
+    private static final boolean STARTUP_TIMING = Boolean.getBoolean("tomandjerry.startupTiming");
+
+    /** The sprites of the grid, decoded in the background and packed into one atlas. */
+    private Assets assets;
 
     /** Image for the icon. */
-    Image icon = new Image("resources/5.png");
+    Image icon = Assets.image("resources/5.png");
+
+    /** Image for the Game Over dialog pane, decoded at the size it is shown at. */
+    private final Image imageGameOver = Assets.image("resources/6.png", 100, 75);
+
+    /** True once the first frame was drawn. */
+    private boolean firstFrameShown;
 
     /** Label to display the number of collected cheeses. */
     private Label cheeseLabel;
 
+    /** Number of collected cheeses shown by the label, so the text is only built when it changes. */
+    private int shownCheeses = -1;
+
+    /** Latencies of the steps from a key press to the repainted grid. */
+    private final LatencyStats latencyStats = new LatencyStats();
+
+    /** Label next to the cheese count that shows the latencies, switched on and off with F3. */
+    private Label latencyLabel;
+
+    /** Number of frames with ticks since the latency label was updated. */
+    private int latencyLabelAge;
+
     /** Scene for the game. */
     private Scene scene;
 
+    /** Timer that is called once per frame and draws the newest frame. */
+    private AnimationTimer timer;
+
     /** Default constructor for the GameGUI class. */
     public GameGUI() {}
 
     /**
      * Sets the stage and scene for the game.
      * The method creates a navigation bar, grid, and labels for the game.
-     * It handles key events for moving the mouse.
+     * It handles key events for moving the mouse and creates the timer that draws the game.
      * At last, it starts the game and updates the grid.
      *
      * @param primaryStage the primary stage for this application, onto which the application scene can be set
@@ -66,65 +138,126 @@ public class GameGUI extends Application {
     public void start(Stage primaryStage) {
 
         /*
-         * Creates a navigation bar with a button and label.
-         * Adds a button for instructions and a label for the number of collected cheeses.
+         * Connects to a multiplayer server if the address is given as --connect=host:port.
+         */
+        String address = getParameters().getNamed().get("connect");
+        if (address != null) {
+            try {
+                int colon = address.lastIndexOf(':');
+                client = new GameClient(new InetSocketAddress(address.substring(0, colon),
+                        Integer.parseInt(address.substring(colon + 1))));
+            } catch (IOException | RuntimeException exception) {
+                System.out.println("Could not connect to " + address + ": " + exception.getMessage());
+                Platform.exit();
+                return;
+            }
+        }
+
+        /*
+         * Creates a navigation bar with a button and labels.
+         * Adds a button for instructions, a label for the number of collected cheeses
+         * and a hidden label for the latencies.
          * Sets padding, spacing, and alignment for the navigation bar.
          */
         HBox nav = new HBox();
         Button instructions = new Button("Instructions");
         instructions.setOnAction(event -> instructions());
         cheeseLabel = new Label();
-        cheeseLabel.setText("Collected Cheeses: " + game.getCollectedCheesesCount());
-        nav.getChildren().addAll(instructions, cheeseLabel);
+        updateCheeseLabel(cheeseLabel);
+        latencyLabel = new Label();
+        latencyLabel.setVisible(false);
+        latencyLabel.setManaged(false);
+        nav.getChildren().addAll(instructions, cheeseLabel, latencyLabel);
         nav.setPadding(new Insets(12, 10, 12, 10));
         nav.setSpacing(10);
         nav.setAlignment(Pos.CENTER);
 
         /*
-         * Creates a grid for the game.
-         * Sets the horizontal and vertical gap for the grid.
-         * Initializes a 2D array of ImageViews for the grid.
-         * Sets padding for the grid.
+         * Creates a renderer for the grid of the game.
+         * Small boards get one ImageView per cell.
+         * Larger boards are drawn on a canvas that only shows a viewport around the mouse.
+         * The renderers show placeholders until the sprites are decoded, then the grid is drawn again.
          */
-        GridPane gridPane = new GridPane();
-        gridPane.setHgap(1);
-        gridPane.setVgap(1);
-        grid = new ImageView[10][10];
-
-        for (int i = 0; i < 10; i++) {
-            for (int j = 0; j < 10; j++) {
-                grid[i][j] = new ImageView(imageEmpty);
-                grid[i][j].setFitWidth(45);
-                grid[i][j].setFitHeight(45);
-                gridPane.add(grid[i][j], j, i);
-            }
+        assets = new Assets(CELL_SIZE);
+        Board board = client != null ? client.getBoard() : game.getBoard();
+        if (board.getWidth() <= VIEWPORT_CELLS && board.getHeight() <= VIEWPORT_CELLS) {
+            renderer = new ImageViewRenderer(board, assets);
+        } else {
+            renderer = new CanvasRenderer(board, assets, VIEWPORT_CELLS);
         }
-
-        gridPane.setPadding(new Insets(0, 10, 10, 10));
+        assets.setOnLoaded(() -> {
+            if (STARTUP_TIMING) {
+                System.out.printf("Sprites loaded after %.1f ms%n", (System.nanoTime() - LAUNCH_NANOS) / 1e6);
+            }
+            renderer.invalidate();
+            updateGrid();
+        });
 
         /*
          * Creates a VBox layout as the root node to hold the navigation bar and grid.
          * Sets the scene with the root node.
          */
-        VBox root = new VBox(nav, gridPane);
-        this.scene = new Scene(root, 485, 525);
+        int columns = Math.min(board.getWidth(), VIEWPORT_CELLS);
+        int rows = Math.min(board.getHeight(), VIEWPORT_CELLS);
+        VBox root = new VBox(nav, renderer.getNode());
+        this.scene = new Scene(root, columns * (CELL_SIZE + 1) + 25, rows * (CELL_SIZE + 1) + 65);
 
         /*
          * Handles key events for moving the mouse.
-         * When arrow keys are pressed, move the mouse.
+         * When arrow keys are pressed, the move is queued for the next tick of the simulation.
+         * The A key switches the autopilot on and off, the F3 key the latency overlay.
          */
         scene.setOnKeyPressed(event -> {
             if (event.getCode() == KeyCode.UP) {
-                moveMouse(0, -1);
+                press(Direction.UP);
             } else if (event.getCode() == KeyCode.DOWN) {
-                moveMouse(0, 1);
+                press(Direction.DOWN);
             } else if (event.getCode() == KeyCode.LEFT) {
-                moveMouse(-1, 0);
+                press(Direction.LEFT);
             } else if (event.getCode() == KeyCode.RIGHT) {
-                moveMouse(1, 0);
+                press(Direction.RIGHT);
+            } else if (event.getCode() == KeyCode.A && simulation != null) {
+                simulation.setAutopilotEnabled(!simulation.isAutopilotEnabled());
+            } else if (event.getCode() == KeyCode.F3) {
+                toggleLatencyOverlay();
             }
         });
 
+        /*
+         * Times the ticks of the game and makes the latencies available through JMX.
+         */
+        game.setLatencyStats(latencyStats);
+        try {
+            latencyStats.register();
+        } catch (JMException exception) {
+            System.out.println("The latencies are not available through JMX: " + exception.getMessage());
+        }
+
+        /*
+         * Creates the timer that is called once per frame, in sync with the screen refresh.
+         * It takes the newest frame of the simulation and redraws the grid at most once per frame.
+         * A client redraws the grid when the server sent a change instead.
+         * With -Dtomandjerry.startupTiming=true, the time from the launch to the first frame is printed once.
+         */
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                if (STARTUP_TIMING && !firstFrameShown) {
+                    firstFrameShown = true;
+                    System.out.printf("First frame after %.1f ms%n", (System.nanoTime() - LAUNCH_NANOS) / 1e6);
+                }
+                if (simulation != null) {
+                    GameFrame frame = simulation.takeFrame();
+                    if (frame != null) {
+                        showFrame(frame);
+                    }
+                } else if (client.takeDirty()) {
+                    updateGrid();
+                    updateCheeseLabel(cheeseLabel);
+                }
+            }
+        };
+
         /*
          * Sets the stage for the game.
          * Sets the title, icon, scene, and prevent resizing of the window.
@@ -145,18 +278,187 @@ public class GameGUI extends Application {
     }
 
     /**
-     * Initializes the game state.
-     * The method resets the game state, generates cheeses, and updates the grid.
-     * Then, it sets the initial positions of the mouse and cat.
+     * Starts the game.
+     * The new game already has the mouse and cat in opposite corners of the board and a cheese,
+     * so the method opens the replay log and the leaderboard, starts the simulation and starts the timer.
+     * A client has none of them, the server keeps the game going.
      */
     private void startGame() {
-        game.reset();
-        game.generateCheese();
+        if (client == null) {
+            openRecorder();
+            openLeaderboard();
+            simulation = new SimulationThread(game, TICKS_PER_SECOND, VIEWPORT_CELLS, recorder,
+                    new MouseAutopilot(AUTOPILOT_BUDGET_NANOS), frame -> Platform.runLater(() -> gameOver(frame)));
+            simulation.setLatencyStats(latencyStats);
+            simulation.start();
+        }
         updateGrid();
-        game.getMouse().setX(0);
-        game.getMouse().setY(0);
-        game.getCat().setX(9);
-        game.getCat().setY(9);
+        timer.start();
+    }
+
+    /**
+     * Stops the simulation and closes the replay log when the application exits.
+     */
+    @Override
+    public void stop() {
+        stopSimulation();
+        if (client != null) {
+            try {
+                client.close();
+            } catch (IOException exception) {
+                System.out.println("The connection could not be closed: " + exception.getMessage());
+            }
+        }
+        closeRecorder();
+        closeLeaderboard();
+    }
+
+    /**
+     * Stops the simulation and waits for its last tick, so the game and the replay log are no longer in use.
+     */
+    private void stopSimulation() {
+        if (simulation != null) {
+            simulation.close();
+        }
+    }
+
+    /**
+     * Opens the replay log of the game in the replay directory.
+     * If the log cannot be created, the game is played without recording.
+     */
+    private void openRecorder() {
+        try {
+            Path directory = Files.createDirectories(Path.of(REPLAY_DIRECTORY));
+            recorder = new ReplayRecorder(directory.resolve("game-" + seed + ".tjr"), game, seed);
+        } catch (IOException exception) {
+            System.out.println("The game is not recorded: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Opens the leaderboard.
+     * If it cannot be opened, the game is played without keeping scores.
+     */
+    private void openLeaderboard() {
+        try {
+            leaderboard = new Leaderboard(Path.of(LEADERBOARD_FILE));
+        } catch (IOException exception) {
+            System.out.println("The scores are not kept: " + exception.getMessage());
+        }
+    }
+
+    /**
+     * Writes the leaderboard to the disk and closes it.
+     */
+    private void closeLeaderboard() {
+        if (leaderboard != null) {
+            try {
+                leaderboard.close();
+            } catch (IOException exception) {
+                System.out.println("The leaderboard could not be saved: " + exception.getMessage());
+            }
+            leaderboard = null;
+        }
+    }
+
+    /**
+     * Adds the finished game to the leaderboard and describes how it ranks.
+     *
+     * @param frame the last frame of the game
+     * @return the rank of the game, or an empty text if there is no leaderboard
+     */
+    private String addScore(GameFrame frame) {
+        if (leaderboard == null) {
+            return "";
+        }
+        int cheeses = frame.getCollectedCheeses();
+        try {
+            leaderboard.add(System.getProperty("user.name"), cheeses, frame.getTickCount(), seed);
+            Score best = leaderboard.top(1).get(0);
+            return String.format("That is better than %.0f%% of all %d games, the best game had %d cheeses.%n",
+                    100 * leaderboard.getPercentile(cheeses), leaderboard.size(), best.cheeses());
+        } catch (IOException exception) {
+            System.out.println("The score could not be saved: " + exception.getMessage());
+            return "";
+        }
+    }
+
+    /**
+     * Writes the rest of the replay log and closes it.
+     */
+    private void closeRecorder() {
+        if (recorder != null) {
+            try {
+                recorder.close();
+            } catch (IOException exception) {
+                System.out.println("The replay could not be saved: " + exception.getMessage());
+            }
+            recorder = null;
+        }
+    }
+
+    /**
+     * Stops the game clock, e.g. while a dialog is shown.
+     */
+    private void pause() {
+        if (simulation != null) {
+            simulation.setPaused(true);
+        }
+    }
+
+    /**
+     * Queues a key press for the next tick of the simulation, with the time it happened.
+     * A client sends the key to the server right away.
+     *
+     * @param direction the direction of the key
+     */
+    private void press(Direction direction) {
+        if (client != null) {
+            try {
+                client.send(direction);
+            } catch (IOException exception) {
+                System.out.println("The move could not be sent: " + exception.getMessage());
+            }
+            return;
+        }
+        simulation.press(direction, latencyStats.start());
+    }
+
+    /**
+     * Shows or hides the latency label and switches the recording of latencies with it.
+     * The recorded latencies are kept while the label is hidden.
+     */
+    private void toggleLatencyOverlay() {
+        boolean enabled = !latencyLabel.isVisible();
+        latencyLabel.setVisible(enabled);
+        latencyLabel.setManaged(enabled);
+        latencyStats.setEnabled(enabled);
+        latencyLabelAge = LATENCY_LABEL_FRAMES;
+        updateLatencyLabel();
+    }
+
+    /**
+     * Updates the latency label every few frames with ticks while it is shown.
+     */
+    private void updateLatencyLabel() {
+        if (!latencyLabel.isVisible() || ++latencyLabelAge < LATENCY_LABEL_FRAMES) {
+            return;
+        }
+        latencyLabelAge = 0;
+        latencyLabel.setText("Key to frame: " + latencyStats.getKeyToFrame() + "\n"
+                + "p99 input " + LatencySummary.format(latencyStats.getHistogram(LatencyStage.INPUT).getPercentile(0.99))
+                + " move " + LatencySummary.format(latencyStats.getHistogram(LatencyStage.MOVE).getPercentile(0.99))
+                + " update " + LatencySummary.format(latencyStats.getHistogram(LatencyStage.UPDATE).getPercentile(0.99))
+                + " render " + LatencySummary.format(latencyStats.getHistogram(LatencyStage.RENDER).getPercentile(0.99)));
+    }
+
+    /**
+     * Starts the game clock again, the simulation discards inputs and time of the pause.
+     */
+    private void resume() {
+        if (simulation != null) {
+            simulation.setPaused(false);
+        }
     }
 
     /**
@@ -174,57 +476,109 @@ public class GameGUI extends Application {
         alert.setHeaderText("How to play");
         alert.setContentText("""
                 Use the arrow keys to move Jerry.
+                Press A to let the autopilot move Jerry.
                 Tom will move randomly.
                 Collect as many cheeses as you can.
                 The game ends when Tom catches Jerry.""");
         alert.setResizable(false);
-        alert.setOnHidden(e -> scene.getRoot().requestFocus());
+        alert.setOnHidden(e -> {
+            scene.getRoot().requestFocus();
+            resume();
+        });
+        pause();
         alert.show();
     }
 
     /**
-     * Moves the mouse on the game grid.
-     * The method updates the game state, grid, and cheese count label.
+     * Draws a frame published by the simulation.
+     * The grid and cheese count label are updated once for all ticks of the frame.
+     * The latency of a played key press is measured until the grid is updated,
+     * JavaFX paints the updated grid at the end of the same pulse.
      *
-     * @param mouseX the x-coordinate to move the mouse
-     * @param mouseY the y-coordinate to move the mouse
+     * @param frame the frame to draw
      */
-    private void moveMouse(int mouseX, int mouseY) {
-        game.moveMouse(mouseX, mouseY);
-        game.update();
+    private void showFrame(GameFrame frame) {
+        shownFrame = frame;
+        long renderStart = latencyStats.start();
         updateGrid();
+        latencyStats.record(LatencyStage.RENDER, renderStart);
+        latencyStats.record(LatencyStage.KEY_TO_FRAME, frame.getInputTime());
         updateCheeseLabel(cheeseLabel);
+        updateLatencyLabel();
+    }
+
+    /**
+     * Displays the Game Over dialog.
+     * It is called on the JavaFX application thread after the simulation delivered the last frame of the game,
+     * the simulation waits for a restart in the meantime.
+     * The game is added to the leaderboard first.
+     * The dialog shows the collected cheeses and how they rank, and asks the user if they want to play again.
+     * If the user clicks the restart button, the simulation resets the game and starts the clock again.
+     * If the dialog is closed instead, the application exits.
+     *
+     * @param frame the last frame of the game
+     */
+    private void gameOver(GameFrame frame) {
+        try {
+            Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+            ImageView imageView = new ImageView(imageGameOver);
+            alert.getDialogPane().setGraphic(imageView);
+            Stage stage = (Stage) alert.getDialogPane().getScene().getWindow();
+            stage.getIcons().add(icon);
+            ButtonType restart = new ButtonType("Restart Game");
+            alert.getButtonTypes().setAll(restart);
+            alert.setTitle("Game Over");
+            alert.setHeaderText("You were caught :(");
+            alert.setContentText(game.getMouse().getName() + " collected " + frame.getCollectedCheeses() + " cheeses.\n"
+                    + addScore(frame) + "Do you want to play again?");
+            alert.showAndWait();
+
+            if (alert.getResult() == restart) {
+                simulation.restart();
+            } else {
+                throw new RuntimeException("The game was closed.");
+            }
+
+        } catch (RuntimeException exception) {
+            System.out.println(exception.getMessage());
+            stopSimulation();
+            closeRecorder();
+            closeLeaderboard();
+            System.exit(1);
+        }
     }
 
     /**
      * Updates the game grid.
-     * The method iterates through the grid and updates the images.
-     * If there is a cheese, it updates the grid with the cheese image.
-     * It updates the grid with the mouse and cat images.
+     * The renderer only redraws the cells whose sprite changed since the last update.
+     * A local game draws the frame shown last, with the viewport on the mouse,
+     * a client draws the arena it received, with the viewport on its own mouse.
      */
     private void updateGrid() {
-        for (ImageView[] images : grid) {
-            for (ImageView image : images) {
-                image.setImage(imageEmpty);
+        if (client == null) {
+            if (shownFrame != null) {
+                renderer.render(shownFrame);
             }
+            return;
         }
-
-        if (game.getCheese() != null) {
-            grid[game.getCheese().getY()][game.getCheese().getX()].setImage(imageCheese);
+        synchronized (client) {
+            renderer.render(client.getEntities(), client.getLocalMouseId());
         }
-
-        grid[game.getMouse().getY()][game.getMouse().getX()].setImage(imageMouse);
-        grid[game.getCat().getY()][game.getCat().getX()].setImage(imageCat);
     }
 
     /**
      * Updates the cheese count label.
      * The method sets the text of the label to display the number of collected cheeses.
+     * The text is only built again when the number changed, so frames without a pickup allocate no strings.
      *
      * @param cheeseLabel the label to display the number of collected cheeses
      */
     private void updateCheeseLabel(Label cheeseLabel) {
-        cheeseLabel.setText("Collected Cheeses: " + game.getCollectedCheesesCount());
+        int cheeses = client != null ? client.getScore() : shownFrame != null ? shownFrame.getCollectedCheeses() : 0;
+        if (cheeses != shownCheeses) {
+            shownCheeses = cheeses;
+            cheeseLabel.setText("Collected Cheeses: " + cheeses);
+        }
     }
 
     /**
@@ -0,0 +1,144 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The {@code GameLoop} class ticks a game at a fixed rate without a GUI.
+ * Every tick takes the coalesced input from the {@code InputBuffer}, moves the mouse and the cat,
+ * and notifies the {@code GameOverListener} when the cat catches the mouse.
+ * The loop stops before the listener is notified, so no tick runs on a game that is over,
+ * and the next game only starts when the listener or another thread calls {@link #restart()}.
+ * An exception thrown by a tick or by the listener also stops the loop, and is passed to the uncaught exception
+ * handler of the thread of the loop instead of being swallowed by the scheduler.
+ * The game is only accessed by the thread of the loop, other threads talk to it through the input buffer.
+ * The GUI uses the same {@code FixedTimestep} logic driven by its animation timer instead.
+ *
+ * @see         FixedTimestep
+ * @see         InputBuffer
+ * @see         GameOverListener
+ * @author      Tania Argot
+ */
+public final class GameLoop implements AutoCloseable {
+
+    /** The game that is ticked. */
+    private final Game game;
+
+    /** The inputs of the user. */
+    private final InputBuffer input = new InputBuffer();
+
+    /** The listener that is notified when the game is over. */
+    private final GameOverListener listener;
+
+    /** The scheduler that runs the ticks. */
+    private final ScheduledExecutorService scheduler;
+
+    /** The duration of one tick in nanoseconds. */
+    private final long tickNanos;
+
+    /** The thread that runs the ticks, or null before the first tick. */
+    private volatile Thread thread;
+
+    /** The scheduled ticks, or null if the loop is not running. */
+    private ScheduledFuture<?> ticks;
+
+    /**
+     * Constructor of the {@code GameLoop} class.
+     *
+     * @param game           the game to tick
+     * @param ticksPerSecond the tick rate
+     * @param listener       the listener that is notified when the game is over
+     * @throws IllegalArgumentException if the tick rate is not positive
+     */
+    public GameLoop(Game game, double ticksPerSecond, GameOverListener listener) {
+        if (!(ticksPerSecond > 0)) {
+            throw new IllegalArgumentException("The tick rate must be positive.");
+        }
+        this.game = game;
+        this.listener = listener;
+        this.tickNanos = (long) (1_000_000_000L / ticksPerSecond);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread created = new Thread(runnable, "game-loop");
+            created.setDaemon(true);
+            thread = created;
+            return created;
+        });
+    }
+
+    /**
+     * Returns the input buffer of the loop, where moves of the user are recorded.
+     *
+     * @return the input buffer
+     */
+    public InputBuffer getInput() {
+        return input;
+    }
+
+    /**
+     * Starts ticking the game at the fixed rate.
+     */
+    public synchronized void start() {
+        if (ticks == null) {
+            ticks = scheduler.scheduleAtFixedRate(this::tick, tickNanos, tickNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Resets the game, discards the moves of the last game and starts ticking again.
+     * Must only be called while the loop is stopped, e.g. by the listener after a game over.
+     */
+    public synchronized void restart() {
+        if (ticks != null) {
+            throw new IllegalStateException("The loop must be stopped before the game is reset.");
+        }
+        game.reset();
+        input.clear();
+        start();
+    }
+
+    /**
+     * Stops ticking the game. The loop can be started again.
+     */
+    public synchronized void stop() {
+        if (ticks != null) {
+            ticks.cancel(false);
+            ticks = null;
+        }
+    }
+
+    /**
+     * Stops the loop and releases its thread.
+     * Unless it is called by the loop itself, it waits until a running tick is done, so the game can be read afterwards.
+     */
+    @Override
+    public void close() {
+        stop();
+        scheduler.shutdown();
+        if (Thread.currentThread() == thread) {
+            return;
+        }
+        try {
+            scheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs one tick of the game. When the cat caught the mouse, the loop is stopped and the listener notified.
+     * An exception stops the loop and goes to the uncaught exception handler of the thread.
+     */
+    private void tick() {
+        try {
+            if (game.tick(input.take()) == TickResult.CAUGHT) {
+                stop();
+                listener.gameOver(game);
+            }
+        } catch (RuntimeException | Error exception) {
+            stop();
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, exception);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code GameOverListener} interface is notified when the cat catches the mouse.
+ * It replaces the dialog that used to be shown inside the game logic,
+ * so headless runs and the GUI can each decide what happens next.
+ *
+ * @see         GameLoop
+ * @see         TickResult
+ * @author      Tania Argot
+ */
+@FunctionalInterface
+public interface GameOverListener {
+
+    /**
+     * Called after the tick in which the cat caught the mouse.
+     * A {@code GameLoop} is already stopped when it calls the listener, it goes on after {@code GameLoop.restart()}.
+     *
+     * @param game the game that is over
+     */
+    void gameOver(Game game);
+}
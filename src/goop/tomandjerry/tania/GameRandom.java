@@ -0,0 +1,146 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code GameRandom} class is a small, seedable and splittable random number generator for the game.
+ * It implements the SplitMix64 algorithm, so a generator is a single {@code long} of state.
+ * Every game owns its own {@code GameRandom}, which makes games reproducible for a given seed.
+ * Independent streams can be derived with {@code split()} or {@code stream(long, long)},
+ * so games running on different threads never share a generator.
+ *
+ * @see         Game
+ * @see         Cat
+ * @see         MonteCarloRunner
+ * @author      Tania Argot
+ */
+public final class GameRandom {
+
+    /** The odd constant added to the state on every step (the golden ratio as a 64-bit fraction). */
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /** Current state of the generator. */
+    private long state;
+
+    /**
+     * Constructor of the {@code GameRandom} class.
+     *
+     * @param seed the seed of the generator
+     */
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * Returns a generator for the stream with the given index.
+     * The stream only depends on the seed and the index, so the same games are played
+     * no matter how the indices are distributed over threads.
+     *
+     * @param seed  the root seed
+     * @param index the index of the stream, e.g. the index of a game
+     * @return a new generator for the stream
+     */
+    public static GameRandom stream(long seed, long index) {
+        return new GameRandom(streamSeed(seed, index));
+    }
+
+    /**
+     * Returns the seed of the stream with the given index.
+     *
+     * @param seed  the root seed
+     * @param index the index of the stream
+     * @return the seed of the stream
+     */
+    public static long streamSeed(long seed, long index) {
+        return mix(seed + (index + 1) * GOLDEN_GAMMA);
+    }
+
+    /**
+     * Returns the next pseudorandom {@code long}.
+     *
+     * @return the next pseudorandom {@code long}
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix(state);
+    }
+
+    /**
+     * Returns a pseudorandom {@code int} between 0 (inclusive) and the bound (exclusive).
+     *
+     * @param bound the upper bound, must be positive
+     * @return a pseudorandom {@code int} in {@code [0, bound)}
+     */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Returns a pseudorandom {@code long} between 0 (inclusive) and the bound (exclusive),
+     * e.g. a random cell of a board with more than {@code Integer.MAX_VALUE} cells.
+     *
+     * @param bound the upper bound, must be positive and below {@code 2^62}
+     * @return a pseudorandom {@code long} in {@code [0, bound)}
+     */
+    public long nextLong(long bound) {
+        return Math.multiplyHigh(nextLong() >>> 1, bound << 1);
+    }
+
+    /**
+     * Returns the state after the next step of a generator, for callers that keep many states in a {@code long[]}.
+     * {@code intOf(nextState(state), bound)} is the number {@code nextInt(bound)} would return.
+     *
+     * @param state the state of the generator
+     * @return the next state
+     */
+    static long nextState(long state) {
+        return state + GOLDEN_GAMMA;
+    }
+
+    /**
+     * Returns the pseudorandom {@code int} of a state, see {@link #nextState(long)}.
+     *
+     * @param state the state after the step
+     * @param bound the upper bound, must be positive
+     * @return a pseudorandom {@code int} in {@code [0, bound)}
+     */
+    static int intOf(long state, int bound) {
+        return (int) (((mix(state) >>> 32) * bound) >>> 32);
+    }
+
+    /**
+     * Splits off a new generator whose stream is independent of this one.
+     *
+     * @return a new generator
+     */
+    public GameRandom split() {
+        return new GameRandom(nextLong());
+    }
+
+    /**
+     * Returns the state of the generator.
+     *
+     * @return the state of the generator
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Sets the state of the generator.
+     *
+     * @param newState the new state of the generator
+     */
+    public void setState(long newState) {
+        this.state = newState;
+    }
+
+    /**
+     * The SplitMix64 finalizer, which scrambles the bits of a {@code long}.
+     *
+     * @param z the value to scramble
+     * @return the scrambled value
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
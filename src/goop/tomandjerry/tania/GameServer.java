@@ -0,0 +1,482 @@
+package goop.tomandjerry.tania;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * The {@code GameServer} class lets many players control their own mouse in one shared {@code Arena}.
+ * It owns the arena on a single thread that runs a non-blocking NIO selector loop:
+ * it accepts clients, reads their inputs, ticks the arena at a fixed rate and broadcasts the changes.
+ * Every tick is encoded once into a delta with only the entities that changed since the last tick,
+ * and the same bytes are queued to every client. See {@code ArenaProtocol} for the messages.
+ *
+ * <p>A client whose socket does not keep up has its frames queued. If more than
+ * {@link #MAX_QUEUED_BYTES} are waiting, the client is disconnected instead of slowing down everyone else.</p>
+ *
+ * @see         Arena
+ * @see         ArenaProtocol
+ * @see         GameClient
+ * @author      Tania Argot
+ */
+public final class GameServer implements AutoCloseable {
+
+    /** Largest number of queued bytes of a client before it is disconnected. */
+    public static final int MAX_QUEUED_BYTES = 1 << 20;
+
+    /** Largest number of ticks the server catches up after it fell behind. */
+    private static final int MAX_CATCH_UP = 5;
+
+    /** The directions by ordinal. */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /** The arena, only used by the server thread. */
+    private final Arena arena;
+
+    /** The selector of the server socket and all clients. */
+    private final Selector selector;
+
+    /** The server socket. */
+    private final ServerSocketChannel server;
+
+    /** Time between two ticks in nanoseconds. */
+    private final long tickNanos;
+
+    /** The connected clients. */
+    private final List<Connection> connections = new ArrayList<>();
+
+    /** Time spent per tick on ticking the arena, encoding the delta and queueing it to all clients. */
+    private final LatencyHistogram broadcastNanos = new LatencyHistogram();
+
+    /** X-coordinates of all entities at the last broadcast, by ID. */
+    private int[] lastXs = new int[0];
+
+    /** Y-coordinates of all entities at the last broadcast, by ID. */
+    private int[] lastYs = new int[0];
+
+    /** Types of all entities at the last broadcast, by ID. */
+    private byte[] lastTypes = new byte[0];
+
+    /** Cheeses of all mice at the last broadcast, by ID. */
+    private int[] lastScores = new int[0];
+
+    /** Buffer the deltas are encoded into before they are copied into a frame of the right size. */
+    private ByteBuffer scratch = ByteBuffer.allocate(1024);
+
+    /** The thread that runs the server, or null if it was not started. */
+    private Thread thread;
+
+    /** False once the server is closed. */
+    private volatile boolean open = true;
+
+    /**
+     * Constructor of the {@code GameServer} class.
+     * It binds the server socket, the server starts with {@link #start()}.
+     *
+     * @param arena          the arena the players share
+     * @param address        the address to listen on, port 0 picks a free port
+     * @param ticksPerSecond the number of ticks per second
+     * @throws IOException if the socket cannot be bound
+     */
+    public GameServer(Arena arena, InetSocketAddress address, double ticksPerSecond) throws IOException {
+        this.arena = arena;
+        this.tickNanos = (long) (1_000_000_000L / ticksPerSecond);
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Returns the port the server listens on.
+     *
+     * @return the port
+     * @throws IOException if the address of the socket cannot be read
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Returns the time spent per tick on ticking the arena and queueing the delta to all clients.
+     *
+     * @return the histogram of the broadcast times
+     */
+    public LatencyHistogram getBroadcastNanos() {
+        return broadcastNanos;
+    }
+
+    /**
+     * Starts the server on its own thread.
+     */
+    public synchronized void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, "game-server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops the server and disconnects all clients.
+     *
+     * @throws IOException if the sockets cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        open = false;
+        selector.wakeup();
+        Thread running;
+        synchronized (this) {
+            running = thread;
+        }
+        if (running != null && running != Thread.currentThread()) {
+            try {
+                running.join();
+            } catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        for (Connection connection : connections) {
+            connection.channel.close();
+        }
+        server.close();
+        selector.close();
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     * Usage: {@code GameServer [port] [width] [height] [cats] [ticks per second]}.
+     *
+     * @param args the port, the size of the board, the number of cats and the ticks per second
+     * @throws IOException          if the socket cannot be bound
+     * @throws InterruptedException if the server is interrupted
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 4711;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int cats = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        double ticksPerSecond = args.length > 4 ? Double.parseDouble(args[4]) : 6;
+
+        GameServer server = new GameServer(new Arena(new Board(width, height), cats, System.nanoTime()),
+                new InetSocketAddress(port), ticksPerSecond);
+        server.start();
+        System.out.println("Listening on port " + server.getPort());
+        server.thread.join();
+    }
+
+    /**
+     * Runs the selector loop until the server is closed.
+     */
+    private void run() {
+        long nextTick = System.nanoTime() + tickNanos;
+        try {
+            while (open) {
+                long wait = nextTick - System.nanoTime();
+                if (wait >= 1_000_000) {
+                    selector.select(wait / 1_000_000);
+                } else {
+                    selector.selectNow();
+                }
+                handleKeys();
+
+                long now = System.nanoTime();
+                if (now >= nextTick) {
+                    broadcastTick();
+                    nextTick += tickNanos;
+                    if (now - nextTick > MAX_CATCH_UP * tickNanos) {
+                        nextTick = now + tickNanos;
+                    }
+                }
+            }
+        } catch (IOException exception) {
+            if (open) {
+                System.out.println("The server stopped: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Accepts new clients, reads inputs and writes queued frames.
+     *
+     * @throws IOException if the server socket fails
+     */
+    private void handleKeys() throws IOException {
+        Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+        while (keys.hasNext()) {
+            SelectionKey key = keys.next();
+            keys.remove();
+            if (!key.isValid()) {
+                continue;
+            }
+            if (key.isAcceptable()) {
+                accept();
+                continue;
+            }
+            Connection connection = (Connection) key.attachment();
+            try {
+                if (key.isReadable()) {
+                    read(connection);
+                }
+                if (key.isValid() && key.isWritable()) {
+                    flush(connection);
+                }
+            } catch (IOException | IllegalStateException exception) {
+                disconnect(connection);
+            }
+        }
+    }
+
+    /**
+     * Accepts a new client, adds its mouse and sends it the welcome and all entities.
+     *
+     * @throws IOException if the server socket fails
+     */
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+        Connection connection = new Connection(channel, arena.addMouse());
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+        connections.add(connection);
+
+        ByteBuffer welcome = ByteBuffer.allocate(ArenaProtocol.LENGTH_BYTES + 1 + 3 * Varints.MAX_BYTES);
+        welcome.position(ArenaProtocol.LENGTH_BYTES);
+        welcome.put(ArenaProtocol.WELCOME);
+        Varints.write(welcome, arena.getBoard().getWidth());
+        Varints.write(welcome, arena.getBoard().getHeight());
+        Varints.write(welcome, connection.mouseId);
+        try {
+            send(connection, frame(welcome));
+            ByteBuffer all = encode(true);
+            all.putLong(ArenaProtocol.LENGTH_BYTES + 1, System.nanoTime());
+            send(connection, all);
+        } catch (IOException | IllegalStateException exception) {
+            disconnect(connection);
+        }
+    }
+
+    /**
+     * Reads the inputs of a client, the last input of a tick wins.
+     *
+     * @param connection the client
+     * @throws IOException if the client closed the connection
+     */
+    private void read(Connection connection) throws IOException {
+        ByteBuffer input = connection.input;
+        input.clear();
+        if (connection.channel.read(input) < 0) {
+            throw new IOException("The client closed the connection.");
+        }
+        input.flip();
+        while (input.hasRemaining()) {
+            int ordinal = input.get();
+            if (ordinal < 0 || ordinal >= DIRECTIONS.length) {
+                throw new IllegalStateException("Invalid input " + ordinal + ".");
+            }
+            arena.setInput(connection.mouseId, DIRECTIONS[ordinal]);
+        }
+    }
+
+    /**
+     * Ticks the arena and queues the delta to every client.
+     */
+    private void broadcastTick() {
+        long start = System.nanoTime();
+        arena.tick();
+        ByteBuffer delta = encode(false);
+        delta.putLong(ArenaProtocol.LENGTH_BYTES + 1, System.nanoTime());
+        for (int i = connections.size() - 1; i >= 0; i--) {
+            Connection connection = connections.get(i);
+            try {
+                send(connection, delta.duplicate());
+            } catch (IOException | IllegalStateException exception) {
+                disconnect(connection);
+            }
+        }
+        broadcastNanos.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Encodes the entities that changed since the last broadcast into a delta frame.
+     * The send time is left empty.
+     *
+     * @param all true to encode all entities, e.g. for a new client, without changing what was broadcast
+     * @return the delta frame, including its length
+     */
+    private ByteBuffer encode(boolean all) {
+        EntityStore entities = arena.getEntities();
+        int size = entities.getSize();
+        if (!all && size > lastTypes.length) {
+            lastXs = Arrays.copyOf(lastXs, size);
+            lastYs = Arrays.copyOf(lastYs, size);
+            lastTypes = Arrays.copyOf(lastTypes, size);
+            lastScores = Arrays.copyOf(lastScores, size);
+        }
+        int capacity = ArenaProtocol.LENGTH_BYTES + 1 + Long.BYTES + 2 * Varints.MAX_BYTES + size * ArenaProtocol.MAX_ENTRY_BYTES;
+        if (scratch.capacity() < capacity) {
+            scratch = ByteBuffer.allocate(Math.max(capacity, scratch.capacity() * 2));
+        }
+
+        ByteBuffer entries = scratch.clear().position(capacity - size * ArenaProtocol.MAX_ENTRY_BYTES).slice();
+        int count = 0;
+        for (int id = 0; id < size; id++) {
+            byte type = entities.getType(id);
+            int x = type == EntityStore.FREE ? 0 : entities.getX(id);
+            int y = type == EntityStore.FREE ? 0 : entities.getY(id);
+            int score = type == EntityStore.MOUSE ? arena.getScore(id) : 0;
+            if (!all) {
+                if (type == lastTypes[id] && x == lastXs[id] && y == lastYs[id] && score == lastScores[id]) {
+                    continue;
+                }
+                lastTypes[id] = type;
+                lastXs[id] = x;
+                lastYs[id] = y;
+                lastScores[id] = score;
+            } else if (type == EntityStore.FREE) {
+                continue;
+            }
+
+            Varints.write(entries, id);
+            entries.put(type);
+            if (type != EntityStore.FREE) {
+                Varints.write(entries, x);
+                Varints.write(entries, y);
+            }
+            if (type == EntityStore.MOUSE) {
+                Varints.write(entries, score);
+            }
+            count++;
+        }
+        entries.flip();
+
+        ByteBuffer header = ByteBuffer.allocate(ArenaProtocol.LENGTH_BYTES + 1 + Long.BYTES + 2 * Varints.MAX_BYTES + entries.remaining());
+        header.position(ArenaProtocol.LENGTH_BYTES);
+        header.put(ArenaProtocol.DELTA);
+        header.putLong(0);
+        Varints.write(header, arena.getTickCount());
+        Varints.write(header, count);
+        header.put(entries);
+        return frame(header);
+    }
+
+    /**
+     * Writes the length in front of a frame and prepares it for sending.
+     *
+     * @param buffer the frame, written after {@link ArenaProtocol#LENGTH_BYTES} empty bytes
+     * @return the frame including its length, ready to be sent
+     */
+    private static ByteBuffer frame(ByteBuffer buffer) {
+        buffer.flip();
+        buffer.putInt(0, buffer.limit() - ArenaProtocol.LENGTH_BYTES);
+        return buffer;
+    }
+
+    /**
+     * Sends a frame to a client, or queues it if the socket is full.
+     *
+     * @param connection the client
+     * @param frame      the frame, which must not be changed afterwards
+     * @throws IOException           if the frame cannot be written
+     * @throws IllegalStateException if too many bytes are queued for the client
+     */
+    private void send(Connection connection, ByteBuffer frame) throws IOException {
+        if (connection.outbox.isEmpty()) {
+            connection.channel.write(frame);
+            if (!frame.hasRemaining()) {
+                return;
+            }
+            connection.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+        connection.outbox.add(frame);
+        connection.queuedBytes += frame.remaining();
+        if (connection.queuedBytes > MAX_QUEUED_BYTES) {
+            throw new IllegalStateException("The client does not keep up.");
+        }
+    }
+
+    /**
+     * Writes the queued frames of a client as far as the socket takes them.
+     *
+     * @param connection the client
+     * @throws IOException if the frames cannot be written
+     */
+    private void flush(Connection connection) throws IOException {
+        while (!connection.outbox.isEmpty()) {
+            ByteBuffer frame = connection.outbox.peek();
+            int before = frame.remaining();
+            connection.channel.write(frame);
+            connection.queuedBytes -= before - frame.remaining();
+            if (frame.hasRemaining()) {
+                return;
+            }
+            connection.outbox.poll();
+        }
+        connection.key.interestOps(SelectionKey.OP_READ);
+    }
+
+    /**
+     * Closes the connection of a client and removes its mouse.
+     *
+     * @param connection the client
+     */
+    private void disconnect(Connection connection) {
+        if (connections.remove(connection)) {
+            arena.removeMouse(connection.mouseId);
+            try {
+                connection.channel.close();
+            } catch (IOException exception) {
+                System.out.println("The connection could not be closed: " + exception.getMessage());
+            }
+        }
+    }
+
+    /**
+     * The {@code Connection} class is the state of one connected client.
+     */
+    private static final class Connection {
+
+        /** The socket of the client. */
+        private final SocketChannel channel;
+
+        /** The entity ID of the mouse of the client. */
+        private final int mouseId;
+
+        /** Buffer for the inputs of the client. */
+        private final ByteBuffer input = ByteBuffer.allocate(64);
+
+        /** Frames that did not fit into the socket yet. */
+        private final ArrayDeque<ByteBuffer> outbox = new ArrayDeque<>();
+
+        /** Number of bytes in the outbox. */
+        private int queuedBytes;
+
+        /** The selection key of the socket. */
+        private SelectionKey key;
+
+        /**
+         * Constructor of the {@code Connection} class.
+         *
+         * @param channel the socket of the client
+         * @param mouseId the entity ID of the mouse of the client
+         */
+        Connection(SocketChannel channel, int mouseId) {
+            this.channel = channel;
+            this.mouseId = mouseId;
+        }
+    }
+}
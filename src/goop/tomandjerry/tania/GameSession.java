@@ -0,0 +1,77 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code GameSession} class is one hosted game with an ID.
+ * All access to the {@code Game} of a session goes through the session and is guarded by the session itself,
+ * so different sessions never share a lock and can be ticked on different threads without contention.
+ * The session remembers when it was last used, so idle sessions can be evicted by {@code GameSessions}.
+ *
+ * @see         GameSessions
+ * @see         Game
+ * @author      Tania Argot
+ */
+public final class GameSession {
+
+    /** ID of the session. */
+    private final long id;
+
+    /** The game of the session, only accessed while holding the session lock. */
+    private final Game game;
+
+    /** Time of the last access in nanoseconds, see {@link System#nanoTime()}. */
+    private volatile long lastAccess;
+
+    /**
+     * Constructor of the {@code GameSession} class.
+     *
+     * @param id   the ID of the session
+     * @param seed the seed of the game
+     */
+    GameSession(long id, long seed) {
+        this.id = id;
+        this.game = new Game(seed);
+        this.lastAccess = System.nanoTime();
+    }
+
+    /**
+     * Returns the ID of the session.
+     *
+     * @return the ID of the session
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * Advances the game of the session by one step.
+     * If the cat caught the mouse, the game is reset and the result is still reported as caught.
+     *
+     * @param direction the direction of the mouse
+     * @return the result of the step
+     */
+    public synchronized TickResult tick(Direction direction) {
+        lastAccess = System.nanoTime();
+        TickResult result = game.tick(direction);
+        if (result == TickResult.CAUGHT) {
+            game.reset();
+        }
+        return result;
+    }
+
+    /**
+     * Returns the number of cheeses collected in the current game of the session.
+     *
+     * @return the number of collected cheeses
+     */
+    public synchronized int getCollectedCheesesCount() {
+        return game.getCollectedCheesesCount();
+    }
+
+    /**
+     * Returns the time of the last access.
+     *
+     * @return the time of the last access in nanoseconds
+     */
+    long getLastAccess() {
+        return lastAccess;
+    }
+}
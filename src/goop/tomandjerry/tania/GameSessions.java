@@ -0,0 +1,101 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code GameSessions} class is a registry that hosts many independent games in one process.
+ * It creates, looks up and evicts {@code GameSession}s by their ID.
+ * The registry itself is thread-safe, while the state of every game is confined to its session.
+ *
+ * @see         GameSession
+ * @see         Game
+ * @author      Tania Argot
+ */
+public final class GameSessions {
+
+    /** Sessions by their ID. */
+    private final ConcurrentHashMap<Long, GameSession> sessions = new ConcurrentHashMap<>();
+
+    /** The next session ID. */
+    private final AtomicLong nextId = new AtomicLong(1);
+
+    /** The seed from which the seeds of the games are derived. */
+    private final long seed;
+
+    /**
+     * Constructor of the {@code GameSessions} class with a seed based on the current time.
+     */
+    public GameSessions() {
+        this(System.nanoTime());
+    }
+
+    /**
+     * Constructor of the {@code GameSessions} class.
+     * The game of the session with ID {@code n} is seeded from this seed and {@code n}.
+     *
+     * @param seed the seed from which the seeds of the games are derived
+     */
+    public GameSessions(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates a new session with a new game.
+     *
+     * @return the new session
+     */
+    public GameSession create() {
+        long id = nextId.getAndIncrement();
+        GameSession session = new GameSession(id, GameRandom.streamSeed(seed, id));
+        sessions.put(id, session);
+        return session;
+    }
+
+    /**
+     * Returns the session with the given ID.
+     *
+     * @param id the ID of the session
+     * @return the session, or null if there is no session with this ID
+     */
+    public GameSession get(long id) {
+        return sessions.get(id);
+    }
+
+    /**
+     * Evicts the session with the given ID.
+     *
+     * @param id the ID of the session
+     * @return true if the session was evicted, false if there was no session with this ID
+     */
+    public boolean evict(long id) {
+        return sessions.remove(id) != null;
+    }
+
+    /**
+     * Evicts all sessions that were not used for the given time.
+     *
+     * @param idleTime the time a session may be unused
+     * @param unit     the unit of the idle time
+     * @return the number of evicted sessions
+     */
+    public int evictIdle(long idleTime, TimeUnit unit) {
+        long deadline = System.nanoTime() - unit.toNanos(idleTime);
+        int evicted = 0;
+        for (GameSession session : sessions.values()) {
+            if (session.getLastAccess() - deadline < 0 && sessions.remove(session.getId(), session)) {
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Returns the number of hosted sessions.
+     *
+     * @return the number of sessions
+     */
+    public int size() {
+        return sessions.size();
+    }
+}
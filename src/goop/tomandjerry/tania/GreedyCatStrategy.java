@@ -0,0 +1,31 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code GreedyCatStrategy} class moves every cat one step straight towards the mouse,
+ * diagonally if the mouse is not in the same row or column.
+ * A decision costs O(1) per cat, but the cat does not plan around obstacles, it waits in front of a wall.
+ *
+ * @see         CatStrategy
+ * @see         DistanceFieldCatStrategy
+ * @author      Tania Argot
+ */
+public final class GreedyCatStrategy implements CatStrategy {
+
+    @Override
+    public void moveCats(Game game) {
+        EntityStore entities = game.getEntities();
+        Board board = game.getBoard();
+        int mouseX = game.getMouse().getX();
+        int mouseY = game.getMouse().getY();
+        for (int id = 0; id < entities.getSize(); id++) {
+            if (entities.getType(id) == EntityStore.CAT) {
+                int x = entities.getX(id);
+                int y = entities.getY(id);
+                int nextX = x + Integer.signum(mouseX - x);
+                int nextY = y + Integer.signum(mouseY - y);
+                if (board.isPassable(nextX, nextY)) {
+                    entities.setPosition(id, nextX, nextY);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package goop.tomandjerry.tania;
+import javafx.scene.Node;
+import java.util.Arrays;
+
+/**
+ * The {@code GridRenderer} interface draws the game grid for the {@code GameGUI}.
+ * A renderer remembers what it drew last time and only updates what changed,
+ * so the cost of a frame does not grow with the size of the board.
+ *
+ * @see         ImageViewRenderer
+ * @see         CanvasRenderer
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public interface GridRenderer {
+
+    /**
+     * Returns the node that shows the grid, to be added to the scene.
+     *
+     * @return the node of the grid
+     */
+    Node getNode();
+
+    /**
+     * Draws all entities of a store, e.g. the shared arena of a {@code GameClient}.
+     * A renderer with a viewport centers it on the focused entity.
+     *
+     * @param entities the entities to draw
+     * @param focusId  the ID of the entity the viewport follows, or -1 for none
+     */
+    void render(EntityStore entities, int focusId);
+
+    /**
+     * Draws a frame of a game that is ticked on another thread, with the viewport on the mouse.
+     * The walls are read from the frame instead of the board, whose terrain may only be read by the thread of the game.
+     * The frame must stay unchanged until the next frame is drawn, because cells may be drawn again from it
+     * after {@code invalidate()}.
+     *
+     * @param frame the frame to draw
+     */
+    void render(GameFrame frame);
+
+    /**
+     * Forgets what was drawn before, so the next frame redraws the whole grid.
+     */
+    void invalidate();
+
+    /**
+     * Fills a window of cells with the sprite of the top entity on each cell.
+     * With a spatial index only the entities around the window are visited, otherwise all of them.
+     *
+     * @param entities the entities to draw
+     * @param left     the board x-coordinate of the left column of the window
+     * @param top      the board y-coordinate of the top row of the window
+     * @param columns  the number of columns of the window
+     * @param rows     the number of rows of the window
+     * @param cells    the sprites of the window by row and column, filled by this method
+     */
+    static void fillCells(EntityStore entities, int left, int top, int columns, int rows, Sprite[] cells) {
+        Arrays.fill(cells, 0, columns * rows, Sprite.EMPTY);
+        SpatialIndex index = entities.getIndex();
+        if (index == null) {
+            for (int id = 0; id < entities.getSize(); id++) {
+                putCell(entities, id, left, top, columns, rows, cells);
+            }
+        } else {
+            int radius = (Math.max(columns, rows) + 1) / 2;
+            index.forEachInRadius(left + columns / 2, top + rows / 2, radius,
+                    id -> putCell(entities, id, left, top, columns, rows, cells));
+        }
+    }
+
+    /**
+     * Puts the sprite of an entity into its cell of a window, unless the cell already shows a higher layer.
+     *
+     * @param entities the entities to draw
+     * @param id       the ID of the entity
+     * @param left     the board x-coordinate of the left column of the window
+     * @param top      the board y-coordinate of the top row of the window
+     * @param columns  the number of columns of the window
+     * @param rows     the number of rows of the window
+     * @param cells    the sprites of the window by row and column
+     */
+    private static void putCell(EntityStore entities, int id, int left, int top, int columns, int rows, Sprite[] cells) {
+        Sprite sprite = Sprite.of(entities.getType(id));
+        int column = entities.getX(id) - left;
+        int row = entities.getY(id) - top;
+        if (sprite == Sprite.EMPTY || column < 0 || row < 0 || column >= columns || row >= rows) {
+            return;
+        }
+        int cell = row * columns + column;
+        if (sprite.getLayer() > cells[cell].getLayer()) {
+            cells[cell] = sprite;
+        }
+    }
+}
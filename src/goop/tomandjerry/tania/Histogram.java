@@ -0,0 +1,120 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code Histogram} class counts non-negative integer values in buckets of width one.
+ * Values beyond the last bucket are counted in an overflow bucket, but still take part in the mean and maximum.
+ * It is not thread-safe, every worker fills its own histogram and the results are merged afterwards.
+ *
+ * @see         MonteCarloRunner
+ * @see         MonteCarloResult
+ * @author      Tania Argot
+ */
+public final class Histogram {
+
+    /** Counts per value, the last bucket is the overflow bucket. */
+    private final long[] counts;
+
+    /** Number of recorded values. */
+    private long totalCount;
+
+    /** Sum of all recorded values. */
+    private long sum;
+
+    /** Largest recorded value. */
+    private long max;
+
+    /**
+     * Constructor of the {@code Histogram} class.
+     *
+     * @param maxValue the largest value with its own bucket
+     */
+    public Histogram(int maxValue) {
+        counts = new long[maxValue + 2];
+    }
+
+    /**
+     * Records a value.
+     *
+     * @param value the value to record, must not be negative
+     */
+    public void record(long value) {
+        counts[(int) Math.min(value, counts.length - 1)]++;
+        totalCount++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values of another histogram with the same buckets to this histogram.
+     *
+     * @param other the histogram to merge
+     * @throws IllegalArgumentException if the histograms have different buckets
+     */
+    public void merge(Histogram other) {
+        if (other.counts.length != counts.length) {
+            throw new IllegalArgumentException("Histograms have different buckets.");
+        }
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the number of recorded values equal to the given value.
+     * For values beyond the last bucket, the overflow count is returned.
+     *
+     * @param value the value
+     * @return the number of recorded values in the bucket of the value
+     */
+    public long getCount(int value) {
+        return counts[Math.min(value, counts.length - 1)];
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the number of recorded values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the mean of the recorded values.
+     *
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Returns the largest recorded value.
+     *
+     * @return the largest recorded value
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Returns the smallest value such that at least the given fraction of values is less than or equal to it.
+     * Values in the overflow bucket are reported as the maximum.
+     *
+     * @param fraction the fraction between 0 and 1, e.g. 0.99 for the 99th percentile
+     * @return the value at the percentile, or 0 if nothing was recorded
+     */
+    public long getPercentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * totalCount);
+        long seen = 0;
+        for (int i = 0; i < counts.length - 1; i++) {
+            seen += counts[i];
+            if (seen >= rank && seen > 0) {
+                return i;
+            }
+        }
+        return max;
+    }
+}
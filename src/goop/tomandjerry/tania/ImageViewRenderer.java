@@ -0,0 +1,145 @@
+package goop.tomandjerry.tania;
+import javafx.geometry.Insets;
+import javafx.geometry.Rectangle2D;
+import javafx.scene.Node;
+import javafx.scene.image.ImageView;
+import javafx.scene.layout.GridPane;
+import java.util.Arrays;
+
+/**
+ * The {@code ImageViewRenderer} class draws the game grid with one {@code ImageView} per cell.
+ * Every cell shows a region of the atlas of {@code Assets}, so changing a cell only changes the viewport
+ * of its {@code ImageView} and no image is scaled.
+ * The entities are drawn by comparing the sprite of every cell with the sprite it shows,
+ * so only the viewports of the changed cells are set.
+ * It is meant for small boards, large boards use the {@code CanvasRenderer}.
+ * The walls of a {@code GameFrame} are read from the frame, which holds the whole board if it fits the viewport.
+ *
+ * @see         GridRenderer
+ * @see         CanvasRenderer
+ * @see         Assets
+ * @author      Tania Argot
+ */
+public class ImageViewRenderer implements GridRenderer {
+
+    /** The board to draw. */
+    private final Board board;
+
+    /** The frame drawn last, whose walls are drawn, or null to read the walls from the board. */
+    private GameFrame frame;
+
+    /** Cells of the grid, indexed by row and column. */
+    private final ImageView[][] grid;
+
+    /** The grid pane holding the cells. */
+    private final GridPane gridPane = new GridPane();
+
+    /** Regions of the atlas by sprite ordinal. */
+    private final Rectangle2D[] viewports = new Rectangle2D[Sprite.values().length];
+
+    /** Sprites shown by the cells when drawing entities, by row and column. */
+    private final Sprite[] shownCells;
+
+    /** Sprites of the next frame when drawing entities, by row and column. */
+    private final Sprite[] nextCells;
+
+    /**
+     * Constructor of the {@code ImageViewRenderer} class.
+     * It creates one {@code ImageView} per cell of the board showing an empty cell or a wall.
+     *
+     * @param board  the board to draw
+     * @param assets the assets with the atlas of the sprites
+     */
+    public ImageViewRenderer(Board board, Assets assets) {
+        this.board = board;
+        for (Sprite sprite : Sprite.values()) {
+            viewports[sprite.ordinal()] = assets.getViewport(sprite);
+        }
+        shownCells = new Sprite[board.getWidth() * board.getHeight()];
+        nextCells = new Sprite[shownCells.length];
+        Arrays.fill(shownCells, Sprite.EMPTY);
+
+        gridPane.setHgap(1);
+        gridPane.setVgap(1);
+        grid = new ImageView[board.getHeight()][board.getWidth()];
+
+        for (int i = 0; i < board.getHeight(); i++) {
+            for (int j = 0; j < board.getWidth(); j++) {
+                grid[i][j] = new ImageView(assets.getAtlas());
+                grid[i][j].setViewport(background(j, i));
+                gridPane.add(grid[i][j], j, i);
+            }
+        }
+
+        gridPane.setPadding(new Insets(0, 10, 10, 10));
+    }
+
+    @Override
+    public Node getNode() {
+        return gridPane;
+    }
+
+    /**
+     * Draws all entities of a store on the whole board, so the focused entity is ignored.
+     * Only the cells whose sprite changed since the last call are touched.
+     *
+     * @param entities the entities to draw
+     * @param focusId  the ID of the entity the viewport follows, not used
+     */
+    @Override
+    public void render(EntityStore entities, int focusId) {
+        frame = null;
+        renderEntities(entities);
+    }
+
+    @Override
+    public void render(GameFrame frame) {
+        this.frame = frame;
+        renderEntities(frame.getEntities());
+    }
+
+    /**
+     * Draws all entities of a store on the whole board.
+     * Only the cells whose sprite changed since the last call are touched.
+     *
+     * @param entities the entities to draw
+     */
+    private void renderEntities(EntityStore entities) {
+        int columns = grid[0].length;
+        GridRenderer.fillCells(entities, 0, 0, columns, grid.length, nextCells);
+        for (int cell = 0; cell < nextCells.length; cell++) {
+            Sprite sprite = nextCells[cell];
+            if (sprite != shownCells[cell]) {
+                int x = cell % columns;
+                int y = cell / columns;
+                grid[y][x].setViewport(sprite == Sprite.EMPTY ? background(x, y) : viewports[sprite.ordinal()]);
+                shownCells[cell] = sprite;
+            }
+        }
+    }
+
+    /**
+     * Clears the whole grid, so the next frame is drawn from scratch.
+     */
+    @Override
+    public void invalidate() {
+        for (int i = 0; i < grid.length; i++) {
+            for (int j = 0; j < grid[i].length; j++) {
+                grid[i][j].setViewport(background(j, i));
+            }
+        }
+        Arrays.fill(shownCells, Sprite.EMPTY);
+    }
+
+    /**
+     * Returns the region of the atlas a cell shows when no entity is on it.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the region with a wall if the frame or the terrain of the board has one there, an empty cell otherwise
+     */
+    private Rectangle2D background(int x, int y) {
+        boolean wall = frame != null ? frame.isWall(x, y) : !board.isPassable(x, y);
+        return viewports[(wall ? Sprite.WALL : Sprite.EMPTY).ordinal()];
+    }
+}
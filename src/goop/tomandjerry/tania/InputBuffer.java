@@ -0,0 +1,43 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The {@code InputBuffer} class collects the moves of the user between two ticks.
+ * All key presses within one tick are coalesced into a single input, the last pressed direction wins.
+ * Key auto-repeat therefore cannot cause more than one move per tick.
+ * It is thread-safe, so inputs may come from another thread than the one that ticks the game.
+ *
+ * @see         FixedTimestep
+ * @see         GameLoop
+ * @author      Tania Argot
+ */
+public final class InputBuffer {
+
+    /** The pending direction of the mouse. */
+    private final AtomicReference<Direction> pending = new AtomicReference<>(Direction.NONE);
+
+    /**
+     * Records a move of the user, replacing any earlier move of the same tick.
+     *
+     * @param direction the direction of the move
+     */
+    public void press(Direction direction) {
+        pending.set(direction);
+    }
+
+    /**
+     * Returns the input of the current tick and clears the buffer.
+     *
+     * @return the pending direction, or {@code Direction.NONE} if there was no move
+     */
+    public Direction take() {
+        return pending.getAndSet(Direction.NONE);
+    }
+
+    /**
+     * Discards the pending input.
+     */
+    public void clear() {
+        pending.set(Direction.NONE);
+    }
+}
@@ -0,0 +1,113 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The {@code InputQueue} class passes the moves of the user from one thread to another without locks.
+ * It is a ring of preallocated slots for exactly one producer, e.g. the JavaFX application thread,
+ * and exactly one consumer, e.g. the {@code SimulationThread}.
+ * Every move is kept with the time it was made, so the latency from the key press can be measured.
+ * The producer publishes a slot by increasing the tail with a release write after filling it,
+ * the consumer frees a slot the same way with the head, so neither ever waits for the other.
+ *
+ * @see         SimulationThread
+ * @see         InputBuffer
+ * @author      Tania Argot
+ */
+public final class InputQueue {
+
+    /** The directions of the moves, indexed by sequence number modulo the capacity. */
+    private final Direction[] directions;
+
+    /** The times of the moves in nanoseconds, or 0 if they are not measured. */
+    private final long[] times;
+
+    /** Capacity minus one, the capacity is a power of two. */
+    private final int mask;
+
+    /** Sequence number of the next move the consumer takes, only written by the consumer. */
+    private final AtomicLong head = new AtomicLong();
+
+    /** Sequence number of the next move the producer adds, only written by the producer. */
+    private final AtomicLong tail = new AtomicLong();
+
+    /** Time of the move taken last by {@link #poll()}. */
+    private long polledTime;
+
+    /**
+     * Constructor of the {@code InputQueue} class.
+     *
+     * @param capacity the largest number of moves that can wait, rounded up to a power of two
+     * @throws IllegalArgumentException if the capacity is not positive or too large
+     */
+    public InputQueue(int capacity) {
+        if (capacity <= 0 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("Invalid capacity " + capacity + ".");
+        }
+        int size = Integer.highestOneBit(capacity * 2 - 1);
+        directions = new Direction[size];
+        times = new long[size];
+        mask = size - 1;
+    }
+
+    /**
+     * Adds a move at the end of the queue. Must only be called by the producer thread.
+     *
+     * @param direction the direction of the move
+     * @param time      the time of the move in nanoseconds, or 0 if it is not measured
+     * @return true if the move was added, false if the queue is full and the move was dropped
+     */
+    public boolean offer(Direction direction, long time) {
+        long sequence = tail.get();
+        if (sequence - head.getAcquire() > mask) {
+            return false;
+        }
+        int slot = (int) sequence & mask;
+        directions[slot] = direction;
+        times[slot] = time;
+        tail.setRelease(sequence + 1);
+        return true;
+    }
+
+    /**
+     * Takes the first move of the queue. Must only be called by the consumer thread.
+     * The time of the move is available from {@link #getPolledTime()} afterwards.
+     *
+     * @return the direction of the move, or null if the queue is empty
+     */
+    public Direction poll() {
+        long sequence = head.get();
+        if (sequence == tail.getAcquire()) {
+            return null;
+        }
+        int slot = (int) sequence & mask;
+        Direction direction = directions[slot];
+        polledTime = times[slot];
+        head.setRelease(sequence + 1);
+        return direction;
+    }
+
+    /**
+     * Returns the time of the move taken last by {@link #poll()}. Must only be called by the consumer thread.
+     *
+     * @return the time in nanoseconds, or 0 if it was not measured
+     */
+    public long getPolledTime() {
+        return polledTime;
+    }
+
+    /**
+     * Discards all moves in the queue. Must only be called by the consumer thread.
+     */
+    public void clear() {
+        head.setRelease(tail.getAcquire());
+    }
+
+    /**
+     * Returns the largest number of moves that can wait in the queue.
+     *
+     * @return the capacity
+     */
+    public int getCapacity() {
+        return mask + 1;
+    }
+}
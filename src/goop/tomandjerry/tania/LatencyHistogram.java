@@ -0,0 +1,131 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The {@code LatencyHistogram} class counts durations in nanoseconds without locks.
+ * Values below 16 have their own bucket, larger values share a bucket with the values
+ * that agree in the highest five bits, so every bucket is at most 1/16 wider than its values,
+ * and the whole range of a {@code long} fits into 960 buckets.
+ * Recording a value is one atomic increment, plus a compare-and-set when it is a new maximum.
+ * Percentiles are read while values are recorded, so they may miss the values of the last moment.
+ *
+ * @see         LatencyStats
+ * @see         Histogram
+ * @author      Tania Argot
+ */
+public final class LatencyHistogram {
+
+    /** Number of bits of a value that select its bucket after the highest bit. */
+    private static final int SUB_BITS = 4;
+
+    /** Number of buckets per power of two. */
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Number of buckets. */
+    private static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    /** Count of every bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** Largest recorded value. */
+    private final AtomicLong max = new AtomicLong();
+
+    /** Default constructor for the {@code LatencyHistogram} class. */
+    public LatencyHistogram() {}
+
+    /**
+     * Records a duration.
+     *
+     * @param nanos the duration in nanoseconds, negative durations count as 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        counts.incrementAndGet(bucketOf(value));
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Returns the largest recorded duration.
+     *
+     * @return the largest duration in nanoseconds
+     */
+    public long getMax() {
+        return max.get();
+    }
+
+    /**
+     * Returns the duration that the given fraction of all recorded durations did not exceed.
+     * The result is the upper end of its bucket, but never more than the maximum.
+     *
+     * @param fraction the fraction of durations, between 0 and 1
+     * @return the duration in nanoseconds, or 0 if nothing was recorded
+     */
+    public long getPercentile(double fraction) {
+        long rank = Math.max(1, (long) Math.ceil(fraction * getCount()));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), getMax());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Forgets all recorded durations.
+     */
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    /**
+     * Returns the bucket of a value.
+     *
+     * @param value the value, not negative
+     * @return the bucket of the value
+     */
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * Returns the largest value of a bucket.
+     *
+     * @param bucket the bucket
+     * @return the largest value of the bucket
+     */
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BITS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << (exponent - SUB_BITS);
+        return lowest + (1L << (exponent - SUB_BITS)) - 1;
+    }
+}
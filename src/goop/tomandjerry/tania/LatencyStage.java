@@ -0,0 +1,24 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code LatencyStage} enum lists the measured steps between a key press and the repainted grid.
+ *
+ * @see         LatencyStats
+ * @author      Tania Argot
+ */
+public enum LatencyStage {
+
+    /** From the key press to the start of the tick that plays it. */
+    INPUT,
+
+    /** Moving the mouse and picking up the cheese in {@code Game.moveMouse(int, int)}. */
+    MOVE,
+
+    /** Moving the cats and checking for a capture in {@code Game.update()}. */
+    UPDATE,
+
+    /** Redrawing the grid after the ticks of a frame. */
+    RENDER,
+
+    /** From the key press to the repainted grid. */
+    KEY_TO_FRAME
+}
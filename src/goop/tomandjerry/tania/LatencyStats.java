@@ -0,0 +1,116 @@
+package goop.tomandjerry.tania;
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The {@code LatencyStats} class keeps one {@code LatencyHistogram} per {@code LatencyStage}.
+ * The recording can be switched off, then {@link #start()} returns 0 without reading the clock
+ * and {@link #record(LatencyStage, long)} ignores it, so the cost is one field read per measured step.
+ * The stats can be registered as an MXBean, so they can be watched and switched on in a JMX client.
+ *
+ * @see         LatencyHistogram
+ * @see         LatencyStage
+ * @see         LatencyStatsMXBean
+ * @author      Tania Argot
+ */
+public final class LatencyStats implements LatencyStatsMXBean {
+
+    /** Name the stats are registered with in JMX. */
+    public static final String OBJECT_NAME = "goop.tomandjerry.tania:type=Latency";
+
+    /** Histograms of the stages, indexed by the ordinal of the stage. */
+    private final LatencyHistogram[] histograms = new LatencyHistogram[LatencyStage.values().length];
+
+    /** True if latencies are recorded. */
+    private volatile boolean enabled;
+
+    /** Default constructor for the {@code LatencyStats} class, with the recording switched off. */
+    public LatencyStats() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Registers the stats with the platform MBean server under {@link #OBJECT_NAME}.
+     *
+     * @throws JMException if the stats cannot be registered
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+    /**
+     * Starts measuring a step.
+     *
+     * @return the current time in nanoseconds, or 0 if the recording is switched off
+     */
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time since the start of a step.
+     *
+     * @param stage      the stage of the step
+     * @param startNanos the time returned by {@link #start()}, nothing is recorded for 0
+     */
+    public void record(LatencyStage stage, long startNanos) {
+        if (startNanos != 0) {
+            histograms[stage.ordinal()].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * Returns the histogram of a stage.
+     *
+     * @param stage the stage
+     * @return the histogram of the stage
+     */
+    public LatencyHistogram getHistogram(LatencyStage stage) {
+        return histograms[stage.ordinal()];
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public LatencySummary getInput() {
+        return new LatencySummary(getHistogram(LatencyStage.INPUT));
+    }
+
+    @Override
+    public LatencySummary getMove() {
+        return new LatencySummary(getHistogram(LatencyStage.MOVE));
+    }
+
+    @Override
+    public LatencySummary getUpdate() {
+        return new LatencySummary(getHistogram(LatencyStage.UPDATE));
+    }
+
+    @Override
+    public LatencySummary getRender() {
+        return new LatencySummary(getHistogram(LatencyStage.RENDER));
+    }
+
+    @Override
+    public LatencySummary getKeyToFrame() {
+        return new LatencySummary(getHistogram(LatencyStage.KEY_TO_FRAME));
+    }
+
+    @Override
+    public void reset() {
+        for (LatencyHistogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code LatencyStatsMXBean} interface exposes the latencies of the game through JMX.
+ * Every stage is an attribute with its count, percentiles and maximum in nanoseconds.
+ *
+ * @see         LatencyStats
+ * @see         LatencySummary
+ * @author      Tania Argot
+ */
+public interface LatencyStatsMXBean {
+
+    /**
+     * Returns true if latencies are recorded.
+     *
+     * @return true if latencies are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Switches the recording of latencies on or off.
+     *
+     * @param enabled true to record latencies
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the latencies from a key press to the tick that plays it.
+     *
+     * @return the summary of the stage
+     */
+    LatencySummary getInput();
+
+    /**
+     * Returns the latencies of moving the mouse.
+     *
+     * @return the summary of the stage
+     */
+    LatencySummary getMove();
+
+    /**
+     * Returns the latencies of moving the cats.
+     *
+     * @return the summary of the stage
+     */
+    LatencySummary getUpdate();
+
+    /**
+     * Returns the latencies of redrawing the grid.
+     *
+     * @return the summary of the stage
+     */
+    LatencySummary getRender();
+
+    /**
+     * Returns the latencies from a key press to the repainted grid.
+     *
+     * @return the summary of the stage
+     */
+    LatencySummary getKeyToFrame();
+
+    /**
+     * Forgets all recorded latencies.
+     */
+    void reset();
+}
@@ -0,0 +1,105 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code LatencySummary} class is a snapshot of the percentiles of one {@code LatencyHistogram}.
+ * It is the type of the attributes of the {@code LatencyStatsMXBean}, so its getters show up in JMX clients.
+ *
+ * @see         LatencyHistogram
+ * @see         LatencyStatsMXBean
+ * @author      Tania Argot
+ */
+public final class LatencySummary {
+
+    /** Number of recorded durations. */
+    private final long count;
+
+    /** Median duration in nanoseconds. */
+    private final long p50;
+
+    /** 99th percentile in nanoseconds. */
+    private final long p99;
+
+    /** 99.9th percentile in nanoseconds. */
+    private final long p999;
+
+    /** Largest duration in nanoseconds. */
+    private final long max;
+
+    /**
+     * Constructor of the {@code LatencySummary} class, reading the current percentiles of a histogram.
+     *
+     * @param histogram the histogram
+     */
+    public LatencySummary(LatencyHistogram histogram) {
+        count = histogram.getCount();
+        p50 = histogram.getPercentile(0.5);
+        p99 = histogram.getPercentile(0.99);
+        p999 = histogram.getPercentile(0.999);
+        max = histogram.getMax();
+    }
+
+    /**
+     * Returns the number of recorded durations.
+     *
+     * @return the number of recorded durations
+     */
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * Returns the median duration.
+     *
+     * @return the median in nanoseconds
+     */
+    public long getP50() {
+        return p50;
+    }
+
+    /**
+     * Returns the 99th percentile.
+     *
+     * @return the 99th percentile in nanoseconds
+     */
+    public long getP99() {
+        return p99;
+    }
+
+    /**
+     * Returns the 99.9th percentile.
+     *
+     * @return the 99.9th percentile in nanoseconds
+     */
+    public long getP999() {
+        return p999;
+    }
+
+    /**
+     * Returns the largest duration.
+     *
+     * @return the largest duration in nanoseconds
+     */
+    public long getMax() {
+        return max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("p50 %s p99 %s p999 %s max %s",
+                format(p50), format(p99), format(p999), format(max));
+    }
+
+    /**
+     * Formats a duration with a unit that keeps it short.
+     *
+     * @param nanos the duration in nanoseconds
+     * @return the formatted duration
+     */
+    static String format(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        } else if (nanos < 10_000_000) {
+            return nanos / 1_000 + "us";
+        }
+        return nanos / 1_000_000 + "ms";
+    }
+}
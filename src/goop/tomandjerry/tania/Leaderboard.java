@@ -0,0 +1,396 @@
+package goop.tomandjerry.tania;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code Leaderboard} class keeps the score of every finished game in a memory-mapped, append-only file.
+ * The file starts with a header, followed by one record of {@link #RECORD_SIZE} bytes per game.
+ * The header holds the number of records, the indexes of the {@link #TOP_K} best records in order,
+ * and a histogram of the collected cheeses. Both are updated with every new record,
+ * so the best scores and the percentiles are read from the header without looking at the other records,
+ * and opening the file never scans it.
+ *
+ * <p>The records are mapped in segments of {@link #SEGMENT_RECORDS} records when they are first used.
+ * A new record is written before the number of records is increased, so a game that was not written
+ * completely is not counted. The parts of the header a new record changes are saved to an undo area first,
+ * and the number of records is only increased after the sum, the histogram and the best records are updated.
+ * If the program dies in between, opening the file restores them from the undo area,
+ * so the header never counts or ranks a record that is not counted. The leaderboard is thread-safe.</p>
+ *
+ * <p>Layout of the header:</p>
+ * <pre>
+ *   0  int    magic "TJL1"
+ *   4  int    record size
+ *   8  long   number of records
+ *  16  long   sum of all cheeses
+ *  24  int    number of top records
+ *  32  long[] indexes of the top records, best first
+ * 832  long[] histogram of the cheeses, the last bucket counts all larger values
+ * 9024 long   undo area: index + 1 of the record being added, 0 if none
+ * 9032 long   undo area: sum of all cheeses before the record
+ * 9040 long   undo area: histogram bucket of the record before the record
+ * 9048 int    undo area: histogram bucket of the record
+ * 9052 int    undo area: number of top records before the record
+ * 9056 long[] undo area: indexes of the top records before the record
+ * </pre>
+ * <p>Layout of a record: the UTF-8 name of the player in 32 bytes padded with zeros,
+ * the cheeses and ticks as ints, the seed and the time as longs, and 8 reserved bytes.</p>
+ *
+ * @see         Score
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public final class Leaderboard implements AutoCloseable {
+
+    /** Number of best records kept in the header. */
+    public static final int TOP_K = 100;
+
+    /** Size of a record in bytes. */
+    public static final int RECORD_SIZE = 64;
+
+    /** Number of records mapped together. */
+    public static final int SEGMENT_RECORDS = 1 << 16;
+
+    /** Magic number at the start of the file, "TJL1". */
+    private static final int MAGIC = 0x544a4c31;
+
+    /** Largest number of bytes of a player name. */
+    private static final int NAME_BYTES = 32;
+
+    /** Number of buckets of the cheese histogram. */
+    private static final int HISTOGRAM_BUCKETS = 1024;
+
+    /** Position of the number of records in the header. */
+    private static final int COUNT = 8;
+
+    /** Position of the sum of all cheeses in the header. */
+    private static final int CHEESE_SUM = 16;
+
+    /** Position of the number of top records in the header. */
+    private static final int TOP_COUNT = 24;
+
+    /** Position of the indexes of the top records in the header. */
+    private static final int TOP = 32;
+
+    /** Position of the cheese histogram in the header. */
+    private static final int HISTOGRAM = TOP + TOP_K * Long.BYTES;
+
+    /** Position of the index + 1 of the record being added in the header, 0 if no record is being added. */
+    private static final int UNDO = HISTOGRAM + HISTOGRAM_BUCKETS * Long.BYTES;
+
+    /** Position of the sum of all cheeses before the record being added. */
+    private static final int UNDO_SUM = UNDO + 8;
+
+    /** Position of the histogram bucket of the record being added, before the record. */
+    private static final int UNDO_BUCKET_VALUE = UNDO + 16;
+
+    /** Position of the index of the histogram bucket of the record being added. */
+    private static final int UNDO_BUCKET = UNDO + 24;
+
+    /** Position of the number of top records before the record being added. */
+    private static final int UNDO_TOP_COUNT = UNDO + 28;
+
+    /** Position of the indexes of the top records before the record being added. */
+    private static final int UNDO_TOP = UNDO + 32;
+
+    /** Size of the header in bytes, rounded up to whole pages so the segments start on a page. */
+    private static final int HEADER_SIZE = (UNDO_TOP + TOP_K * Long.BYTES + 4095) & ~4095;
+
+    /** The file of the leaderboard. */
+    private final FileChannel channel;
+
+    /** The mapped header. */
+    private final MappedByteBuffer header;
+
+    /** The mapped segments of records, {@code null} until they are used. */
+    private MappedByteBuffer[] segments = new MappedByteBuffer[1];
+
+    /**
+     * Constructor of the {@code Leaderboard} class.
+     * It opens the file or creates a new empty leaderboard if the file does not exist.
+     * If the program died while adding a record, the header is restored to the state before that record.
+     *
+     * @param file the file of the leaderboard
+     * @throws IOException if the file cannot be opened or is not a leaderboard
+     */
+    public Leaderboard(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean created = channel.size() == 0;
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+            if (created) {
+                header.putInt(0, MAGIC);
+                header.putInt(4, RECORD_SIZE);
+            } else if (header.getInt(0) != MAGIC || header.getInt(4) != RECORD_SIZE) {
+                throw new IOException(file + " is not a leaderboard.");
+            } else {
+                recover();
+            }
+        } catch (IOException | RuntimeException exception) {
+            channel.close();
+            throw exception;
+        }
+    }
+
+    /**
+     * Adds the score of a finished game and updates the best scores and the histogram.
+     * Names longer than 32 bytes are shortened.
+     *
+     * @param player  the name of the player
+     * @param cheeses the number of collected cheeses
+     * @param ticks   the number of ticks the mouse survived
+     * @param seed    the seed of the game
+     * @return the index of the new record
+     * @throws IOException if the file cannot be extended
+     */
+    public synchronized long add(String player, int cheeses, int ticks, long seed) throws IOException {
+        if (cheeses < 0 || ticks < 0) {
+            throw new IllegalArgumentException("Cheeses and ticks must not be negative.");
+        }
+        long index = size();
+        ByteBuffer record = record(index);
+        byte[] name = encode(player);
+        record.put(name);
+        record.put(new byte[NAME_BYTES - name.length]);
+        record.putInt(cheeses);
+        record.putInt(ticks);
+        record.putLong(seed);
+        record.putLong(System.currentTimeMillis());
+        record.putLong(0);
+
+        int bucket = Math.min(cheeses, HISTOGRAM_BUCKETS - 1);
+        long bucketValue = header.getLong(HISTOGRAM + bucket * Long.BYTES);
+        int topCount = header.getInt(TOP_COUNT);
+        header.putLong(UNDO_SUM, header.getLong(CHEESE_SUM));
+        header.putLong(UNDO_BUCKET_VALUE, bucketValue);
+        header.putInt(UNDO_BUCKET, bucket);
+        header.putInt(UNDO_TOP_COUNT, topCount);
+        for (int i = 0; i < topCount; i++) {
+            header.putLong(UNDO_TOP + i * Long.BYTES, header.getLong(TOP + i * Long.BYTES));
+        }
+        header.putLong(UNDO, index + 1);
+
+        header.putLong(HISTOGRAM + bucket * Long.BYTES, bucketValue + 1);
+        header.putLong(CHEESE_SUM, header.getLong(CHEESE_SUM) + cheeses);
+        insertTop(index, cheeses, ticks);
+        header.putLong(COUNT, index + 1);
+        header.putLong(UNDO, 0);
+        return index;
+    }
+
+    /**
+     * Returns the number of scores.
+     *
+     * @return the number of scores
+     */
+    public synchronized long size() {
+        return header.getLong(COUNT);
+    }
+
+    /**
+     * Returns the score with the given index, in the order the games were added.
+     *
+     * @param index the index of the score
+     * @return the score
+     * @throws IOException if the record cannot be mapped
+     */
+    public synchronized Score get(long index) throws IOException {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("No score with index " + index + ".");
+        }
+        ByteBuffer record = record(index);
+        byte[] name = new byte[NAME_BYTES];
+        record.get(name);
+        int length = 0;
+        while (length < NAME_BYTES && name[length] != 0) {
+            length++;
+        }
+        return new Score(new String(name, 0, length, StandardCharsets.UTF_8),
+                record.getInt(), record.getInt(), record.getLong(), record.getLong());
+    }
+
+    /**
+     * Returns the best scores, with the most cheeses first and the longest game first among equal cheeses.
+     *
+     * @param count the largest number of scores, at most {@link #TOP_K}
+     * @return the best scores
+     * @throws IOException if a record cannot be mapped
+     */
+    public synchronized List<Score> top(int count) throws IOException {
+        int size = Math.min(count, header.getInt(TOP_COUNT));
+        List<Score> scores = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            scores.add(get(header.getLong(TOP + i * Long.BYTES)));
+        }
+        return scores;
+    }
+
+    /**
+     * Returns the fraction of all games with fewer cheeses than the given number.
+     *
+     * @param cheeses the number of cheeses
+     * @return the fraction of games with fewer cheeses, between 0 and 1
+     */
+    public synchronized double getPercentile(int cheeses) {
+        long total = size();
+        if (total == 0) {
+            return 0;
+        }
+        long fewer = 0;
+        for (int bucket = 0; bucket < Math.min(cheeses, HISTOGRAM_BUCKETS - 1); bucket++) {
+            fewer += header.getLong(HISTOGRAM + bucket * Long.BYTES);
+        }
+        return (double) fewer / total;
+    }
+
+    /**
+     * Returns the smallest number of cheeses that at least the given fraction of all games did not exceed.
+     * Games with 1023 or more cheeses are all counted as 1023.
+     *
+     * @param fraction the fraction of games, between 0 and 1
+     * @return the number of cheeses at the fraction, or 0 if there are no games
+     */
+    public synchronized int getCheesesAtPercentile(double fraction) {
+        long rank = (long) Math.ceil(fraction * size());
+        long seen = 0;
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            seen += header.getLong(HISTOGRAM + bucket * Long.BYTES);
+            if (seen >= rank && seen > 0) {
+                return bucket;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the mean number of cheeses of all games.
+     *
+     * @return the mean number of cheeses, or 0 if there are no games
+     */
+    public synchronized double getMeanCheeses() {
+        long total = size();
+        return total == 0 ? 0 : (double) header.getLong(CHEESE_SUM) / total;
+    }
+
+    /**
+     * Writes all changes to the disk and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        header.force();
+        for (MappedByteBuffer segment : segments) {
+            if (segment != null) {
+                segment.force();
+            }
+        }
+        channel.close();
+    }
+
+    /**
+     * Restores the header after the program died while adding a record.
+     * If the record was not counted yet, the sum, its histogram bucket and the best records are set back
+     * from the undo area. Best records that are not counted, which a file written before the undo area
+     * may have, are dropped.
+     */
+    private void recover() {
+        long pending = header.getLong(UNDO);
+        long count = header.getLong(COUNT);
+        if (pending != 0 && pending != count) {
+            header.putLong(CHEESE_SUM, header.getLong(UNDO_SUM));
+            header.putLong(HISTOGRAM + header.getInt(UNDO_BUCKET) * Long.BYTES, header.getLong(UNDO_BUCKET_VALUE));
+            int topCount = header.getInt(UNDO_TOP_COUNT);
+            for (int i = 0; i < topCount; i++) {
+                header.putLong(TOP + i * Long.BYTES, header.getLong(UNDO_TOP + i * Long.BYTES));
+            }
+            header.putInt(TOP_COUNT, topCount);
+        }
+        header.putLong(UNDO, 0);
+
+        int kept = 0;
+        int topCount = header.getInt(TOP_COUNT);
+        for (int i = 0; i < topCount; i++) {
+            long index = header.getLong(TOP + i * Long.BYTES);
+            if (index >= 0 && index < count) {
+                header.putLong(TOP + kept++ * Long.BYTES, index);
+            }
+        }
+        header.putInt(TOP_COUNT, kept);
+    }
+
+    /**
+     * Inserts a new record into the best records if it is good enough.
+     *
+     * @param index   the index of the new record
+     * @param cheeses the cheeses of the new record
+     * @param ticks   the ticks of the new record
+     * @throws IOException if a record cannot be mapped
+     */
+    private void insertTop(long index, int cheeses, int ticks) throws IOException {
+        int count = header.getInt(TOP_COUNT);
+        int position = count;
+        while (position > 0) {
+            ByteBuffer other = record(header.getLong(TOP + (position - 1) * Long.BYTES));
+            int otherCheeses = other.getInt(NAME_BYTES);
+            int otherTicks = other.getInt(NAME_BYTES + Integer.BYTES);
+            if (otherCheeses > cheeses || (otherCheeses == cheeses && otherTicks >= ticks)) {
+                break;
+            }
+            position--;
+        }
+        if (position >= TOP_K) {
+            return;
+        }
+
+        for (int i = Math.min(count, TOP_K - 1); i > position; i--) {
+            header.putLong(TOP + i * Long.BYTES, header.getLong(TOP + (i - 1) * Long.BYTES));
+        }
+        header.putLong(TOP + position * Long.BYTES, index);
+        header.putInt(TOP_COUNT, Math.min(count + 1, TOP_K));
+    }
+
+    /**
+     * Returns a view of the {@link #RECORD_SIZE} bytes of the record with the given index.
+     * The segment of the record is mapped if it is not mapped yet, which extends the file if needed.
+     *
+     * @param index the index of the record
+     * @return the view of the record
+     * @throws IOException if the segment cannot be mapped
+     */
+    private ByteBuffer record(long index) throws IOException {
+        int segment = (int) (index / SEGMENT_RECORDS);
+        if (segment >= segments.length) {
+            segments = Arrays.copyOf(segments, Math.max(segment + 1, segments.length * 2));
+        }
+        if (segments[segment] == null) {
+            long offset = HEADER_SIZE + (long) segment * SEGMENT_RECORDS * RECORD_SIZE;
+            segments[segment] = channel.map(FileChannel.MapMode.READ_WRITE, offset, (long) SEGMENT_RECORDS * RECORD_SIZE);
+        }
+        return segments[segment].slice((int) (index % SEGMENT_RECORDS) * RECORD_SIZE, RECORD_SIZE);
+    }
+
+    /**
+     * Encodes a player name in UTF-8 with at most 32 bytes, without cutting a character in half.
+     *
+     * @param player the name of the player
+     * @return the encoded name
+     */
+    private static byte[] encode(String player) {
+        String name = player;
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        while (bytes.length > NAME_BYTES) {
+            name = name.substring(0, name.offsetByCodePoints(name.length(), -1));
+            bytes = name.getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,361 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntToDoubleFunction;
+
+/**
+ * The {@code MarkovChain} class computes exact statistics of the game for a fixed mouse policy,
+ * such as the probability that the cat catches the mouse within a number of ticks
+ * or the expected number of cheeses collected before that.
+ * Together with the random cat, the policy turns the game into a Markov chain over the positions of
+ * mouse, cat and cheese, so the statistics follow from iterating vectors over all states instead of sampling games.
+ *
+ * <p>A tick moves the mouse with the policy as in {@code Mouse.moveByUser(int, int, Board)}.
+ * If the mouse reaches the cheese, the cheese is collected and a new one appears with equal probability
+ * on any cell without a wall, the mouse or the cat, like a {@code Game} with a single cheese draws it from its free cells.
+ * Then the cat takes one of its nine steps of {@code Cat.moveRandomly(GameRandom, Board)}
+ * with equal probability, and catches the mouse if it lands on it. A step onto a wall keeps the animal in place.
+ * The walls are read once when the chain is built, later changes of the terrain do not apply to it.</p>
+ *
+ * <p>The transitions are not stored per state. Every state keeps only the move of the policy in one byte,
+ * and the nine steps of the cat are shared by all states with the cat on the same cell.
+ * A new cheese leads to the average over the free cheese cells. The sum over all cheese cells without a wall is computed
+ * once per iteration for every mouse and cat cell, and the two occupied cells are subtracted from it.
+ * The cheese is the innermost coordinate of a state,
+ * so the successors of neighbouring states are close to each other in memory.
+ * The iterations run in parallel over the cells of the mouse.</p>
+ *
+ * @see         MousePolicy
+ * @see         MonteCarloRunner
+ * @author      Tania Argot
+ */
+public final class MarkovChain {
+
+    /** Number of states a task updates sequentially before it is split further. */
+    private static final int STATES_PER_TASK = 1 << 14;
+
+    /** The mouse moves in the order of their index in the policy table. */
+    private static final Direction[] MOVES = Direction.values();
+
+    /** The board of the game. */
+    private final Board board;
+
+    /** Number of cells of the board. */
+    private final int cells;
+
+    /** True for every cell without a wall. */
+    private final boolean[] passable;
+
+    /** Number of cells without a wall. */
+    private final int passableCount;
+
+    /** Number of states, the cells of the board to the power of three. */
+    private final int states;
+
+    /** Index of the move of the policy in every state. */
+    private final byte[] moves;
+
+    /** Cell of the mouse after every move from every cell, five entries per cell. */
+    private final int[] mouseSteps;
+
+    /** Cell of the cat after every random step from every cell, nine entries per cell. */
+    private final int[] catSteps;
+
+    /** The pool that runs the iterations. */
+    private final ForkJoinPool pool;
+
+    /**
+     * Constructor of the {@code MarkovChain} class using the common fork/join pool.
+     *
+     * @param board  the board of the game
+     * @param policy the policy that moves the mouse
+     */
+    public MarkovChain(Board board, MousePolicy policy) {
+        this(board, policy, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor of the {@code MarkovChain} class.
+     * It asks the policy for its move in every state, so the policy must only depend on the positions.
+     *
+     * @param board  the board of the game
+     * @param policy the policy that moves the mouse
+     * @param pool   the pool that runs the iterations
+     * @throws IllegalArgumentException if the board is too large or has no cell without a wall for a cheese
+     *                                  next to the mouse and the cat
+     */
+    public MarkovChain(Board board, MousePolicy policy, ForkJoinPool pool) {
+        long cellCount = board.getCellCount();
+        if (cellCount * cellCount * cellCount > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("The board is too large for an exact Markov chain.");
+        }
+        this.board = board;
+        this.pool = pool;
+        cells = (int) cellCount;
+        passable = new boolean[cells];
+        int count = 0;
+        for (int cell = 0; cell < cells; cell++) {
+            passable[cell] = board.isPassable(cell % board.getWidth(), cell / board.getWidth());
+            count += passable[cell] ? 1 : 0;
+        }
+        if (count < 3) {
+            throw new IllegalArgumentException("The board needs at least three cells without a wall.");
+        }
+        passableCount = count;
+        states = cells * cells * cells;
+        moves = new byte[states];
+        mouseSteps = new int[cells * MOVES.length];
+        catSteps = new int[cells * 9];
+
+        for (int cell = 0; cell < cells; cell++) {
+            int x = cell % board.getWidth();
+            int y = cell / board.getWidth();
+            for (int move = 0; move < MOVES.length; move++) {
+                int target = cellOf(board.clampX(x + MOVES[move].getDx()), board.clampY(y + MOVES[move].getDy()));
+                mouseSteps[cell * MOVES.length + move] = passable[target] ? target : cell;
+            }
+            int step = 0;
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    int target = cellOf(board.clampX(x + dx), board.clampY(y + dy));
+                    catSteps[cell * 9 + step++] = passable[target] ? target : cell;
+                }
+            }
+        }
+
+        run(mouse -> {
+            Game game = new Game(board, 0);
+            for (int cat = 0; cat < cells; cat++) {
+                for (int cheese = 0; cheese < cells; cheese++) {
+                    game.getMouse().setPosition(mouse % board.getWidth(), mouse / board.getWidth());
+                    game.getCat().setPosition(cat % board.getWidth(), cat / board.getWidth());
+                    game.placeCheese(cheese % board.getWidth(), cheese / board.getWidth());
+                    moves[(mouse * cells + cat) * cells + cheese] = (byte) policy.nextMove(game).ordinal();
+                }
+            }
+            return 0;
+        });
+    }
+
+    /**
+     * Returns the number of states of the chain.
+     *
+     * @return the number of states
+     */
+    public int getStateCount() {
+        return states;
+    }
+
+    /**
+     * Returns the index of the state with the given positions.
+     *
+     * @param mouseX  the x-coordinate of the mouse
+     * @param mouseY  the y-coordinate of the mouse
+     * @param catX    the x-coordinate of the cat
+     * @param catY    the y-coordinate of the cat
+     * @param cheeseX the x-coordinate of the cheese
+     * @param cheeseY the y-coordinate of the cheese
+     * @return the index of the state
+     */
+    public int stateOf(int mouseX, int mouseY, int catX, int catY, int cheeseX, int cheeseY) {
+        return (cellOf(mouseX, mouseY) * cells + cellOf(catX, catY)) * cells + cellOf(cheeseX, cheeseY);
+    }
+
+    /**
+     * Returns for every state the probability that the cat catches the mouse within the given number of ticks.
+     *
+     * @param ticks the number of ticks
+     * @return the capture probabilities, indexed by state
+     */
+    public double[] captureProbabilities(int ticks) {
+        double[] values = new double[states];
+        double[] next = new double[states];
+        for (int i = 0; i < ticks; i++) {
+            step(values, next, 0, 1);
+            double[] swap = values;
+            values = next;
+            next = swap;
+        }
+        return values;
+    }
+
+    /**
+     * Returns for every state the expected number of cheeses the mouse collects before the cat catches it.
+     * The values are iterated until no value changes by more than the tolerance,
+     * or the given number of iterations is reached.
+     *
+     * @param tolerance     the largest change of a value in the last iteration
+     * @param maxIterations the largest number of iterations
+     * @return the expected numbers of cheeses, indexed by state
+     */
+    public double[] expectedCheeses(double tolerance, int maxIterations) {
+        double[] values = new double[states];
+        double[] next = new double[states];
+        for (int i = 0; i < maxIterations; i++) {
+            double change = step(values, next, 1, 0);
+            double[] swap = values;
+            values = next;
+            next = swap;
+            if (change <= tolerance) {
+                break;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns the value at the start of a game, where the mouse is in the top left corner,
+     * the cat in the bottom right corner and the cheese on any other cell without a wall with equal probability.
+     *
+     * @param values the values, indexed by state
+     * @return the average value over all start states
+     */
+    public double startValue(double[] values) {
+        int first = stateOf(0, 0, board.getWidth() - 1, board.getHeight() - 1, 0, 0);
+        double sum = 0;
+        int count = 0;
+        for (int cheese = 1; cheese < cells - 1; cheese++) {
+            if (passable[cheese]) {
+                sum += values[first + cheese];
+                count++;
+            }
+        }
+        return sum / count;
+    }
+
+    /**
+     * Runs one iteration of the values over a tick.
+     * A collected cheese adds the reward and a capture ends with the capture value.
+     *
+     * @param values       the values of the previous iteration
+     * @param next         the array the new values are written to
+     * @param reward       the value of a collected cheese
+     * @param captureValue the value of a capture
+     * @return the largest change of a value
+     */
+    private double step(double[] values, double[] next, double reward, double captureValue) {
+        double[] newCheese = new double[cells * cells];
+        run(mouse -> {
+            for (int cat = 0; cat < cells; cat++) {
+                int first = (mouse * cells + cat) * cells;
+                double sum = 0;
+                for (int cheese = 0; cheese < cells; cheese++) {
+                    if (passable[cheese]) {
+                        sum += values[first + cheese];
+                    }
+                }
+                newCheese[mouse * cells + cat] = sum;
+            }
+            return 0;
+        });
+
+        return run(mouse -> {
+            double change = 0;
+            for (int cat = 0; cat < cells; cat++) {
+                int first = (mouse * cells + cat) * cells;
+                for (int cheese = 0; cheese < cells; cheese++) {
+                    int state = first + cheese;
+                    double value;
+                    if (mouse == cat) {
+                        value = captureValue;
+                    } else {
+                        int nextMouse = mouseSteps[mouse * MOVES.length + moves[state]];
+                        boolean collected = nextMouse == cheese;
+                        double sum = 0;
+                        for (int step = 0; step < 9; step++) {
+                            int nextCat = catSteps[cat * 9 + step];
+                            if (nextCat == nextMouse) {
+                                sum += captureValue;
+                            } else if (collected) {
+                                int nextFirst = (nextMouse * cells + nextCat) * cells;
+                                double free = newCheese[nextMouse * cells + nextCat];
+                                int freeCount = passableCount;
+                                if (passable[nextMouse]) {
+                                    free -= values[nextFirst + nextMouse];
+                                    freeCount--;
+                                }
+                                if (cat != nextMouse && passable[cat]) {
+                                    free -= values[nextFirst + cat];
+                                    freeCount--;
+                                }
+                                sum += free / freeCount;
+                            } else {
+                                sum += values[(nextMouse * cells + nextCat) * cells + cheese];
+                            }
+                        }
+                        value = (collected ? reward : 0) + sum / 9;
+                    }
+                    change = Math.max(change, Math.abs(value - values[state]));
+                    next[state] = value;
+                }
+            }
+            return change;
+        });
+    }
+
+    /**
+     * Runs the given work for every cell of the mouse in parallel.
+     *
+     * @param work the work for one cell of the mouse, returning a change
+     * @return the largest change returned by the work
+     */
+    private double run(IntToDoubleFunction work) {
+        return pool.invoke(new Sweep(0, cells, work));
+    }
+
+    /**
+     * Returns the index of the given cell.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the index of the cell
+     */
+    private int cellOf(int x, int y) {
+        return y * board.getWidth() + x;
+    }
+
+    /**
+     * The {@code Sweep} class is a fork/join task that runs the work for the mouse cells in the range {@code [from, to)}.
+     */
+    private final class Sweep extends RecursiveTask<Double> {
+
+        /** First mouse cell (inclusive). */
+        private final int from;
+
+        /** Last mouse cell (exclusive). */
+        private final int to;
+
+        /** The work for one mouse cell. */
+        private final IntToDoubleFunction work;
+
+        /**
+         * Constructor of the {@code Sweep} class.
+         *
+         * @param from first mouse cell (inclusive)
+         * @param to   last mouse cell (exclusive)
+         * @param work the work for one mouse cell
+         */
+        Sweep(int from, int to, IntToDoubleFunction work) {
+            this.from = from;
+            this.to = to;
+            this.work = work;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from == 1 || (long) (to - from) * cells * cells <= STATES_PER_TASK) {
+                double change = 0;
+                for (int mouse = from; mouse < to; mouse++) {
+                    change = Math.max(change, work.applyAsDouble(mouse));
+                }
+                return change;
+            }
+
+            int middle = (from + to) >>> 1;
+            Sweep left = new Sweep(from, middle, work);
+            left.fork();
+            double right = new Sweep(middle, to, work).compute();
+            return Math.max(right, left.join());
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code MonteCarloResult} class holds the statistics of many headless games.
+ * It has a histogram of game lengths in ticks, a histogram of collected cheeses,
+ * and the number of games that reached the tick limit before the cat caught the mouse.
+ * Results of different workers are combined with {@code merge(MonteCarloResult)}.
+ *
+ * @see         MonteCarloRunner
+ * @see         Histogram
+ * @author      Tania Argot
+ */
+public final class MonteCarloResult {
+
+    /** Histogram of the number of ticks per game. */
+    private final Histogram gameLengths;
+
+    /** Histogram of the number of collected cheeses per game. */
+    private final Histogram cheeses;
+
+    /** Number of games that were stopped at the tick limit. */
+    private long truncatedGames;
+
+    /**
+     * Constructor of the {@code MonteCarloResult} class.
+     *
+     * @param maxTicks   the tick limit of a game, which is the largest game length bucket
+     * @param maxCheeses the largest cheese count with its own bucket
+     */
+    public MonteCarloResult(int maxTicks, int maxCheeses) {
+        gameLengths = new Histogram(maxTicks);
+        cheeses = new Histogram(maxCheeses);
+    }
+
+    /**
+     * Records the outcome of one game.
+     *
+     * @param ticks      the number of ticks the game lasted
+     * @param cheeseCount the number of collected cheeses
+     * @param caught     true if the cat caught the mouse, false if the game reached the tick limit
+     */
+    public void record(int ticks, int cheeseCount, boolean caught) {
+        gameLengths.record(ticks);
+        cheeses.record(cheeseCount);
+        if (!caught) {
+            truncatedGames++;
+        }
+    }
+
+    /**
+     * Adds the statistics of another result to this result.
+     *
+     * @param other the result to merge
+     * @return this result
+     */
+    public MonteCarloResult merge(MonteCarloResult other) {
+        gameLengths.merge(other.gameLengths);
+        cheeses.merge(other.cheeses);
+        truncatedGames += other.truncatedGames;
+        return this;
+    }
+
+    /**
+     * Returns the histogram of game lengths in ticks.
+     *
+     * @return the histogram of game lengths
+     */
+    public Histogram getGameLengths() {
+        return gameLengths;
+    }
+
+    /**
+     * Returns the histogram of collected cheeses.
+     *
+     * @return the histogram of collected cheeses
+     */
+    public Histogram getCheeses() {
+        return cheeses;
+    }
+
+    /**
+     * Returns the number of played games.
+     *
+     * @return the number of played games
+     */
+    public long getGames() {
+        return gameLengths.getTotalCount();
+    }
+
+    /**
+     * Returns the number of games that reached the tick limit.
+     *
+     * @return the number of truncated games
+     */
+    public long getTruncatedGames() {
+        return truncatedGames;
+    }
+
+    @Override
+    public String toString() {
+        return "games=" + getGames()
+                + ", mean cheeses=" + cheeses.getMean()
+                + ", mean ticks=" + gameLengths.getMean()
+                + ", p99 ticks=" + gameLengths.getPercentile(0.99)
+                + ", truncated=" + truncatedGames;
+    }
+}
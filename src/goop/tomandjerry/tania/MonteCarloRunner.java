@@ -0,0 +1,133 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * The {@code MonteCarloRunner} class plays many independent headless games in parallel
+ * and collects statistics about them, such as the number of cheeses collected before the cat catches the mouse.
+ * The games are split into batches with fork/join. Every game {@code i} is played with
+ * its own random stream derived from the seed and {@code i}, so the result for a given seed is
+ * the same no matter how many threads play the games.
+ * Each batch reuses one {@code Game} and fills its own {@code MonteCarloResult}, which are merged at the end.
+ *
+ * @see         MonteCarloResult
+ * @see         MousePolicy
+ * @see         GameRandom
+ * @author      Tania Argot
+ */
+public final class MonteCarloRunner {
+
+    /** Number of games a batch plays sequentially before it is split further. */
+    private static final int BATCH_SIZE = 1024;
+
+    /** Largest cheese count with its own histogram bucket. */
+    private static final int MAX_CHEESES = 1000;
+
+    /** The policy that moves the mouse. */
+    private final MousePolicy policy;
+
+    /** Largest number of ticks of a single game. */
+    private final int maxTicks;
+
+    /**
+     * Constructor of the {@code MonteCarloRunner} class.
+     *
+     * @param policy   the policy that moves the mouse
+     * @param maxTicks the largest number of ticks of a single game
+     */
+    public MonteCarloRunner(MousePolicy policy, int maxTicks) {
+        if (maxTicks <= 0) {
+            throw new IllegalArgumentException("maxTicks must be positive.");
+        }
+        this.policy = policy;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Plays the given number of games on the common fork/join pool.
+     *
+     * @param games the number of games to play
+     * @param seed  the seed of the run
+     * @return the statistics of all games
+     */
+    public MonteCarloResult run(long games, long seed) {
+        return run(games, seed, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Plays the given number of games on the given fork/join pool.
+     *
+     * @param games the number of games to play
+     * @param seed  the seed of the run
+     * @param pool  the pool that plays the games
+     * @return the statistics of all games
+     */
+    public MonteCarloResult run(long games, long seed, ForkJoinPool pool) {
+        return pool.invoke(new Batch(seed, 0, games));
+    }
+
+    /**
+     * Plays one game to the end, starting from a reset game.
+     *
+     * @param game   the game to play, which is reset first
+     * @param seed   the seed of the game
+     * @param result the result to record the game in
+     */
+    private void play(Game game, long seed, MonteCarloResult result) {
+        game.reset(seed);
+
+        int ticks = 0;
+        boolean caught = false;
+        while (!caught && ticks < maxTicks) {
+            caught = game.tick(policy.nextMove(game)) == TickResult.CAUGHT;
+            ticks++;
+        }
+        result.record(ticks, game.getCollectedCheesesCount(), caught);
+    }
+
+    /**
+     * The {@code Batch} class is a fork/join task that plays the games in the range {@code [from, to)}.
+     */
+    private final class Batch extends RecursiveTask<MonteCarloResult> {
+
+        /** The seed of the run. */
+        private final long seed;
+
+        /** Index of the first game (inclusive). */
+        private final long from;
+
+        /** Index of the last game (exclusive). */
+        private final long to;
+
+        /**
+         * Constructor of the {@code Batch} class.
+         *
+         * @param seed the seed of the run
+         * @param from index of the first game (inclusive)
+         * @param to   index of the last game (exclusive)
+         */
+        Batch(long seed, long from, long to) {
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected MonteCarloResult compute() {
+            if (to - from <= BATCH_SIZE) {
+                MonteCarloResult result = new MonteCarloResult(maxTicks, MAX_CHEESES);
+                Game game = new Game(seed);
+                for (long i = from; i < to; i++) {
+                    play(game, GameRandom.streamSeed(seed, i), result);
+                }
+                return result;
+            }
+
+            long middle = (from + to) >>> 1;
+            Batch left = new Batch(seed, from, middle);
+            left.fork();
+            MonteCarloResult right = new Batch(seed, middle, to).compute();
+            return right.merge(left.join());
+        }
+    }
+}
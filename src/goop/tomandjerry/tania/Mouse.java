@@ -2,9 +2,10 @@ package goop.tomandjerry.tania;
 /**
  * The {@code Mouse} class represents a mouse in the game.
  * The subclass {@code Mouse} extends the abstract {@code Animal} class, inheriting its attributes and methods.
- * It contains a {@code moveByUser(int mouseX, int mouseY)} method that allows the mouse to move based on user input.
+ * It contains a {@code moveByUser(int mouseX, int mouseY, Board board)} method that allows the mouse to move based on user input.
  *
  * @see         Animal
+ * @see         Board
  * @see         Game
  * @see         GameGUI
  * @author      Tania Argot
@@ -20,18 +21,33 @@ public class Mouse extends Animal {
      * @param mouseY     y-coordinate of the mouse
      */
     public Mouse(String mouseName, int mouseX, int mouseY) {
-        super(mouseName, mouseX, mouseY);
+        super(mouseName, EntityStore.MOUSE, mouseX, mouseY);
     }
 
     /**
-     * Allows the user to move the mouse on the grid within the bounds [0, 9],
-     * because the grid of the game is 10x10.
+     * Constructor of subclass {@code Mouse} as a view over an entity of a shared store.
      *
-     * @param mouseX    x-coordinate of the mouse
-     * @param mouseY    y-coordinate of the mouse
+     * @param mouseName  name of the mouse
+     * @param store      the store that holds the coordinates of the mouse
+     * @param id         ID of the mouse in the store
+     */
+    public Mouse(String mouseName, EntityStore store, int id) {
+        super(mouseName, store, id);
+    }
+
+    /**
+     * Allows the user to move the mouse on the grid within the bounds of the board.
+     * The mouse stays where it is if the new cell is a wall.
+     *
+     * @param mouseX    x-offset of the mouse
+     * @param mouseY    y-offset of the mouse
+     * @param board     the board the mouse moves on
      */
-    public void moveByUser(int mouseX, int mouseY) {
-        setX(Math.max(0, Math.min(9, getX() + mouseX)));
-        setY(Math.max(0, Math.min(9, getY() + mouseY)));
+    public void moveByUser(int mouseX, int mouseY, Board board) {
+        int x = board.clampX(getX() + mouseX);
+        int y = board.clampY(getY() + mouseY);
+        if (board.isPassable(x, y)) {
+            setPosition(x, y);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,447 @@
+package goop.tomandjerry.tania;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * The {@code MouseAutopilot} class plays Jerry with an expectimax search against the random cat.
+ * Mouse moves are max nodes, and the nine equally likely steps of {@code Cat.moveRandomly(GameRandom, Board)}
+ * are chance nodes, and like in the game, a step onto a wall keeps the animal in place. A collected cheese is worth one point and being caught costs {@link #CAPTURE_PENALTY}.
+ * Searched positions are kept in a transposition table keyed by the packed positions of mouse, cat and cheese.
+ * The search deepens iteratively until the time budget of the move is used up
+ * and returns the best move of the deepest completed search, which suits the GUI, where a move must be ready in time.
+ * An autopilot of {@link #ofDepth(int)} searches a fixed number of moves deep without looking at the clock instead,
+ * so its moves only depend on the positions and a batch run such as the {@code MonteCarloRunner} plays
+ * the same games on any machine and under any load.
+ *
+ * <p>The search only looks at the mouse, the main cat and the cheese of the game.
+ * A search on another thread does not read the terrain of the board, which is only safe to read on the thread
+ * of the game: the walls within reach of the deepest search are copied around the mouse and the cat first.
+ * An autopilot is not thread-safe, use {@code policy(long)} to share one between threads.</p>
+ *
+ * @see         MousePolicy
+ * @see         Direction
+ * @author      Tania Argot
+ */
+public final class MouseAutopilot {
+
+    /** Value of a position where the cat catches the mouse. */
+    public static final double CAPTURE_PENALTY = 10;
+
+    /** Deepest search in mouse moves. */
+    private static final int MAX_DEPTH = 15;
+
+    /** Number of entries of the transposition table, a power of two. */
+    private static final int TABLE_SIZE = 1 << 16;
+
+    /** Time budget of an autopilot that searches a fixed depth. */
+    private static final long NO_BUDGET = -1;
+
+    /** Coordinate of a cheese that was collected during the search. */
+    private static final int NO_CHEESE = -1;
+
+    /** The mouse moves that are searched. */
+    private static final Direction[] MOVES = Direction.values();
+
+    /** Time budget of a move in nanoseconds, or {@link #NO_BUDGET} for a fixed depth. */
+    private final long budgetNanos;
+
+    /** Deepest search in mouse moves, the only depth that is searched without a time budget. */
+    private final int maxDepth;
+
+    /** Keys of the transposition table, 0 for an empty entry. */
+    private final long[] tableKeys = new long[TABLE_SIZE];
+
+    /** Values of the transposition table. */
+    private final double[] tableValues = new double[TABLE_SIZE];
+
+    /** The board of the current search. */
+    private Board board;
+
+    /** Walls around the mouse of the current search, or null to read them from the board. */
+    private WallWindow mouseWalls;
+
+    /** Walls around the cat of the current search, or null to read them from the board. */
+    private WallWindow catWalls;
+
+    /** Width of the board of the current search. */
+    private int width;
+
+    /** Height of the board of the current search. */
+    private int height;
+
+    /** Time in nanoseconds when the current search has to stop. */
+    private long deadline;
+
+    /** Number of nodes visited by the current search. */
+    private long nodes;
+
+    /** True if the current search ran out of time. */
+    private boolean aborted;
+
+    /**
+     * Constructor of the {@code MouseAutopilot} class.
+     *
+     * @param budgetNanos the time budget of a move in nanoseconds
+     */
+    public MouseAutopilot(long budgetNanos) {
+        this(budgetNanos, MAX_DEPTH);
+    }
+
+    /**
+     * Constructor of the {@code MouseAutopilot} class.
+     *
+     * @param budgetNanos the time budget of a move in nanoseconds, or {@link #NO_BUDGET} for a fixed depth
+     * @param maxDepth    the deepest search in mouse moves
+     */
+    private MouseAutopilot(long budgetNanos, int maxDepth) {
+        this.budgetNanos = budgetNanos;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns an autopilot that searches every move exactly the given number of mouse moves deep,
+     * however long it takes, so the moves do not depend on the speed of the machine.
+     *
+     * @param depth the depth of the search in mouse moves
+     * @return the autopilot
+     * @throws IllegalArgumentException if the depth is not between 1 and 15
+     */
+    public static MouseAutopilot ofDepth(int depth) {
+        if (depth < 1 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("The depth must be between 1 and " + MAX_DEPTH + ".");
+        }
+        return new MouseAutopilot(NO_BUDGET, depth);
+    }
+
+    /**
+     * Returns a policy that moves the mouse with one autopilot per thread, each with a time budget per move.
+     * How deep it searches depends on the speed and the load of the machine, use {@link #policyOfDepth(int)}
+     * for results that can be reproduced.
+     *
+     * @param budgetNanos the time budget of a move in nanoseconds
+     * @return a thread-safe policy
+     */
+    public static MousePolicy policy(long budgetNanos) {
+        ThreadLocal<MouseAutopilot> autopilots = ThreadLocal.withInitial(() -> new MouseAutopilot(budgetNanos));
+        return game -> autopilots.get().nextMove(game);
+    }
+
+    /**
+     * Returns a policy that moves the mouse with one autopilot of {@link #ofDepth(int)} per thread,
+     * so it can be used by the {@code MonteCarloRunner} and the {@code MarkovChain}
+     * and plays the same moves on any machine.
+     *
+     * @param depth the depth of the search in mouse moves
+     * @return a thread-safe policy
+     * @throws IllegalArgumentException if the depth is not between 1 and 15
+     */
+    public static MousePolicy policyOfDepth(int depth) {
+        ofDepth(depth);
+        ThreadLocal<MouseAutopilot> autopilots = ThreadLocal.withInitial(() -> ofDepth(depth));
+        return game -> autopilots.get().nextMove(game);
+    }
+
+    /**
+     * Returns the best move of the mouse in the given game within the time budget or at the fixed depth.
+     *
+     * @param game the game
+     * @return the best move found
+     */
+    public Direction nextMove(Game game) {
+        Cheese cheese = game.getCheese();
+        return search(game.getBoard(), null, null,
+                game.getMouse().getX(), game.getMouse().getY(),
+                game.getCat().getX(), game.getCat().getY(),
+                cheese != null ? cheese.getX() : NO_CHEESE, cheese != null ? cheese.getY() : NO_CHEESE);
+    }
+
+    /**
+     * Searches the best move on another thread.
+     * The positions are read from the game right away, so the game may change while the search runs.
+     *
+     * @param game     the game
+     * @param executor the executor that runs the search
+     * @return the best move found, when the search is done
+     */
+    public CompletableFuture<Direction> nextMoveAsync(Game game, Executor executor) {
+        Board board = game.getBoard();
+        int mouseX = game.getMouse().getX();
+        int mouseY = game.getMouse().getY();
+        int catX = game.getCat().getX();
+        int catY = game.getCat().getY();
+        Cheese cheese = game.getCheese();
+        int cheeseX = cheese != null ? cheese.getX() : NO_CHEESE;
+        int cheeseY = cheese != null ? cheese.getY() : NO_CHEESE;
+        WallWindow mouseWalls = board.getTerrain() != null ? new WallWindow(board, mouseX, mouseY) : null;
+        WallWindow catWalls = board.getTerrain() != null ? new WallWindow(board, catX, catY) : null;
+        return CompletableFuture.supplyAsync(
+                () -> search(board, mouseWalls, catWalls, mouseX, mouseY, catX, catY, cheeseX, cheeseY), executor);
+    }
+
+    /**
+     * Searches with iterative deepening until the time budget is used up,
+     * or only at the fixed depth if the autopilot has no time budget.
+     *
+     * @param board      the board
+     * @param mouseWalls the walls around the mouse, or null to read them from the board
+     * @param catWalls   the walls around the cat, or null to read them from the board
+     * @param mouseX     the x-coordinate of the mouse
+     * @param mouseY     the y-coordinate of the mouse
+     * @param catX       the x-coordinate of the cat
+     * @param catY       the y-coordinate of the cat
+     * @param cheeseX    the x-coordinate of the cheese, or -1 if there is none
+     * @param cheeseY    the y-coordinate of the cheese, or -1 if there is none
+     * @return the best move of the deepest completed search
+     */
+    private synchronized Direction search(Board board, WallWindow mouseWalls, WallWindow catWalls,
+                                          int mouseX, int mouseY, int catX, int catY, int cheeseX, int cheeseY) {
+        this.board = board;
+        this.mouseWalls = mouseWalls;
+        this.catWalls = catWalls;
+        width = board.getWidth();
+        height = board.getHeight();
+        deadline = budgetNanos == NO_BUDGET ? Long.MAX_VALUE : System.nanoTime() + budgetNanos;
+        aborted = false;
+        nodes = 0;
+        Arrays.fill(tableKeys, 0);
+
+        Direction best = Direction.NONE;
+        for (int depth = budgetNanos == NO_BUDGET ? maxDepth : 1; depth <= maxDepth; depth++) {
+            Direction bestOfDepth = Direction.NONE;
+            double bestValue = Double.NEGATIVE_INFINITY;
+            for (Direction move : MOVES) {
+                double value = moveValue(mouseX, mouseY, catX, catY, cheeseX, cheeseY, move, depth);
+                if (aborted) {
+                    return best;
+                }
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestOfDepth = move;
+                }
+            }
+            best = bestOfDepth;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the value of a max node, where the mouse chooses its move.
+     *
+     * @param mouseX  the x-coordinate of the mouse
+     * @param mouseY  the y-coordinate of the mouse
+     * @param catX    the x-coordinate of the cat
+     * @param catY    the y-coordinate of the cat
+     * @param cheeseX the x-coordinate of the cheese, or -1 if it was collected
+     * @param cheeseY the y-coordinate of the cheese, or -1 if it was collected
+     * @param depth   the number of mouse moves left to search
+     * @return the expected value of the position
+     */
+    private double maxValue(int mouseX, int mouseY, int catX, int catY, int cheeseX, int cheeseY, int depth) {
+        if (depth == 0) {
+            return evaluate(mouseX, mouseY, catX, catY, cheeseX, cheeseY);
+        }
+        if ((++nodes & 1023) == 0 && deadline != Long.MAX_VALUE && System.nanoTime() > deadline) {
+            aborted = true;
+        }
+        if (aborted) {
+            return 0;
+        }
+
+        long key = key(mouseX, mouseY, catX, catY, cheeseX, cheeseY, depth);
+        int slot = (int) (key ^ (key >>> 29)) & (TABLE_SIZE - 1);
+        if (tableKeys[slot] == key) {
+            return tableValues[slot];
+        }
+
+        double best = Double.NEGATIVE_INFINITY;
+        for (Direction move : MOVES) {
+            best = Math.max(best, moveValue(mouseX, mouseY, catX, catY, cheeseX, cheeseY, move, depth));
+        }
+
+        if (!aborted) {
+            tableKeys[slot] = key;
+            tableValues[slot] = best;
+        }
+        return best;
+    }
+
+    /**
+     * Returns the value of a mouse move, which is the collected cheese plus the chance node of the cat.
+     *
+     * @param mouseX  the x-coordinate of the mouse
+     * @param mouseY  the y-coordinate of the mouse
+     * @param catX    the x-coordinate of the cat
+     * @param catY    the y-coordinate of the cat
+     * @param cheeseX the x-coordinate of the cheese, or -1 if it was collected
+     * @param cheeseY the y-coordinate of the cheese, or -1 if it was collected
+     * @param move    the move of the mouse
+     * @param depth   the number of mouse moves left to search, including this one
+     * @return the expected value of the move
+     */
+    private double moveValue(int mouseX, int mouseY, int catX, int catY, int cheeseX, int cheeseY, Direction move, int depth) {
+        int nextMouseX = Math.max(0, Math.min(width - 1, mouseX + move.getDx()));
+        int nextMouseY = Math.max(0, Math.min(height - 1, mouseY + move.getDy()));
+        if (!isPassable(nextMouseX, nextMouseY)) {
+            nextMouseX = mouseX;
+            nextMouseY = mouseY;
+        }
+
+        double reward = 0;
+        if (nextMouseX == cheeseX && nextMouseY == cheeseY) {
+            reward = 1;
+            cheeseX = NO_CHEESE;
+            cheeseY = NO_CHEESE;
+        }
+
+        double expected = 0;
+        for (int dy = -1; dy <= 1; dy++) {
+            for (int dx = -1; dx <= 1; dx++) {
+                int nextCatX = Math.max(0, Math.min(width - 1, catX + dx));
+                int nextCatY = Math.max(0, Math.min(height - 1, catY + dy));
+                if (!isPassable(nextCatX, nextCatY)) {
+                    nextCatX = catX;
+                    nextCatY = catY;
+                }
+                if (nextCatX == nextMouseX && nextCatY == nextMouseY) {
+                    expected -= CAPTURE_PENALTY;
+                } else {
+                    expected += maxValue(nextMouseX, nextMouseY, nextCatX, nextCatY, cheeseX, cheeseY, depth - 1);
+                }
+            }
+        }
+        return reward + expected / 9;
+    }
+
+    /**
+     * Checks if an animal can stand on a cell of the board, from the copied walls if the search has them.
+     *
+     * @param x the x-coordinate of the cell, which must be on the board
+     * @param y the y-coordinate of the cell, which must be on the board
+     * @return true if the cell is not a wall, false otherwise
+     */
+    private boolean isPassable(int x, int y) {
+        if (mouseWalls == null) {
+            return board.isPassable(x, y);
+        }
+        return !(mouseWalls.contains(x, y) ? mouseWalls.isWall(x, y) : catWalls.isWall(x, y));
+    }
+
+    /**
+     * Estimates the value of a position at the end of the search.
+     * Being close to the cheese is good and being within reach of the cat is bad.
+     *
+     * @param mouseX  the x-coordinate of the mouse
+     * @param mouseY  the y-coordinate of the mouse
+     * @param catX    the x-coordinate of the cat
+     * @param catY    the y-coordinate of the cat
+     * @param cheeseX the x-coordinate of the cheese, or -1 if it was collected
+     * @param cheeseY the y-coordinate of the cheese, or -1 if it was collected
+     * @return the estimated value
+     */
+    private double evaluate(int mouseX, int mouseY, int catX, int catY, int cheeseX, int cheeseY) {
+        double value = 0;
+        if (cheeseX != NO_CHEESE) {
+            value += 0.5 / (1 + Math.abs(cheeseX - mouseX) + Math.abs(cheeseY - mouseY));
+        }
+        int catDistance = Math.max(Math.abs(catX - mouseX), Math.abs(catY - mouseY));
+        if (catDistance <= 1) {
+            value -= CAPTURE_PENALTY / 9;
+        }
+        return value + 0.01 * Math.min(catDistance, 5);
+    }
+
+    /**
+     * Packs a position and the search depth into a key of the transposition table.
+     * On boards up to 1023x1023 the key holds the coordinates exactly, larger boards are hashed.
+     *
+     * @param mouseX  the x-coordinate of the mouse
+     * @param mouseY  the y-coordinate of the mouse
+     * @param catX    the x-coordinate of the cat
+     * @param catY    the y-coordinate of the cat
+     * @param cheeseX the x-coordinate of the cheese, or -1 if it was collected
+     * @param cheeseY the y-coordinate of the cheese, or -1 if it was collected
+     * @param depth   the search depth
+     * @return the key, never 0
+     */
+    private long key(int mouseX, int mouseY, int catX, int catY, int cheeseX, int cheeseY, int depth) {
+        if (width < 1024 && height < 1024) {
+            long key = mouseX;
+            key = key << 10 | mouseY;
+            key = key << 10 | catX;
+            key = key << 10 | catY;
+            key = key << 10 | (cheeseX & 0x3ff);
+            key = key << 10 | (cheeseY & 0x3ff);
+            return key << 4 | depth;
+        }
+        long key = ((long) mouseX << 40) ^ ((long) mouseY << 20) ^ catX;
+        key = key * 0x9e3779b97f4a7c15L ^ (((long) catY << 40) ^ ((long) cheeseX << 20) ^ cheeseY);
+        key = key * 0xbf58476d1ce4e5b9L ^ depth;
+        return key == 0 ? 1 : key;
+    }
+
+    /**
+     * The {@code WallWindow} class is a copy of the walls in the square of cells an animal can reach
+     * within the deepest search, so a search on another thread never reads the terrain.
+     */
+    private static final class WallWindow {
+
+        /** Width and height of the square, the cell of the animal and {@code MAX_DEPTH} cells to every side. */
+        private static final int SIZE = 2 * MAX_DEPTH + 1;
+
+        /** Board x-coordinate of the top left cell of the square. */
+        private final int left;
+
+        /** Board y-coordinate of the top left cell of the square. */
+        private final int top;
+
+        /** One bit per cell of the square by row and column, set if the cell is a wall. */
+        private final long[] walls = new long[(SIZE * SIZE + Long.SIZE - 1) / Long.SIZE];
+
+        /**
+         * Constructor of the {@code WallWindow} class. Must be called on the thread of the game.
+         *
+         * @param board the board
+         * @param x     the x-coordinate of the animal
+         * @param y     the y-coordinate of the animal
+         */
+        WallWindow(Board board, int x, int y) {
+            left = x - MAX_DEPTH;
+            top = y - MAX_DEPTH;
+            for (int row = 0; row < SIZE; row++) {
+                for (int column = 0; column < SIZE; column++) {
+                    if (board.contains(left + column, top + row) && !board.isPassable(left + column, top + row)) {
+                        int cell = row * SIZE + column;
+                        walls[cell >>> 6] |= 1L << cell;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Checks if a cell is in the square.
+         *
+         * @param x the x-coordinate of the cell
+         * @param y the y-coordinate of the cell
+         * @return true if the cell is in the square, false otherwise
+         */
+        boolean contains(int x, int y) {
+            return x >= left && y >= top && x < left + SIZE && y < top + SIZE;
+        }
+
+        /**
+         * Checks if a cell is a wall.
+         *
+         * @param x the x-coordinate of the cell
+         * @param y the y-coordinate of the cell
+         * @return true if the cell is a wall, false if it is not or outside the square
+         */
+        boolean isWall(int x, int y) {
+            if (!contains(x, y)) {
+                return false;
+            }
+            int cell = (y - top) * SIZE + x - left;
+            return (walls[cell >>> 6] & 1L << cell) != 0;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code MousePolicy} interface decides how the mouse moves when nobody is playing.
+ * It is used by headless runs such as the {@code MonteCarloRunner}.
+ * A policy must not keep state between games, because one policy is shared by all threads.
+ *
+ * @see         Direction
+ * @see         MonteCarloRunner
+ * @author      Tania Argot
+ */
+@FunctionalInterface
+public interface MousePolicy {
+
+    /**
+     * Returns the next move of the mouse for the given game.
+     *
+     * @param game the game the mouse is playing
+     * @return the next move of the mouse
+     */
+    Direction nextMove(Game game);
+
+    /**
+     * Returns a policy that moves the mouse straight towards the cheese,
+     * first along the axis with the larger distance.
+     *
+     * @return a policy that moves towards the cheese
+     */
+    static MousePolicy towardsCheese() {
+        return game -> {
+            Cheese cheese = game.getCheese();
+            if (cheese == null) {
+                return Direction.NONE;
+            }
+
+            int dx = cheese.getX() - game.getMouse().getX();
+            int dy = cheese.getY() - game.getMouse().getY();
+
+            if (Math.abs(dx) >= Math.abs(dy) && dx != 0) {
+                return dx > 0 ? Direction.RIGHT : Direction.LEFT;
+            } else if (dy != 0) {
+                return dy > 0 ? Direction.DOWN : Direction.UP;
+            }
+            return Direction.NONE;
+        };
+    }
+}
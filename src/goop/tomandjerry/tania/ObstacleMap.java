@@ -0,0 +1,261 @@
+package goop.tomandjerry.tania;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * The {@code ObstacleMap} class stores the walls of a board as a packed bitset, one bit per cell in row-major order.
+ * Checking a cell is a single bit test, and a 10,000 x 10,000 map takes 12.5 MB.
+ * A map is either generated as a maze with {@link #maze(int, int, long)}, loaded from a text file
+ * with {@link #load(Path)}, or built cell by cell with {@link #setWall(int, int, boolean)}.
+ * A {@code Board} created with a map lets animals only move onto cells without a wall.
+ *
+ * @see         Terrain
+ * @see         Board
+ * @see         DistanceFieldCatStrategy
+ * @author      Tania Argot
+ */
+public final class ObstacleMap implements Terrain {
+
+    /** Character of a wall in a map file. */
+    public static final char WALL = '#';
+
+    /** Character of a free cell written to a map file, every character other than {@link #WALL} is free. */
+    public static final char FREE = '.';
+
+    /** Width of the map. */
+    private final int width;
+
+    /** Height of the map. */
+    private final int height;
+
+    /** The walls, bit {@code y * width + x} is set if the cell is a wall. */
+    private final long[] bits;
+
+    /**
+     * Constructor of the {@code ObstacleMap} class for a map without walls.
+     *
+     * @param width  the width of the map
+     * @param height the height of the map
+     * @throws IllegalArgumentException if a dimension is not between 1 and {@code Board.MAX_SIZE}
+     *                                  or the map has too many cells for one bitset
+     */
+    public ObstacleMap(int width, int height) {
+        if (width < 1 || height < 1 || width > Board.MAX_SIZE || height > Board.MAX_SIZE) {
+            throw new IllegalArgumentException("Map dimensions must be between 1 and " + Board.MAX_SIZE + ".");
+        }
+        long words = ((long) width * height + Long.SIZE - 1) / Long.SIZE;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("A map of " + width + "x" + height + " cells is too large.");
+        }
+        this.width = width;
+        this.height = height;
+        this.bits = new long[(int) words];
+    }
+
+    /**
+     * Generates a maze with the sidewinder algorithm.
+     * Rooms are the cells with two even coordinates, and every row of rooms is carved as runs of
+     * horizontal corridors, each connected to the row above by one passage at a random room of the run.
+     * The top row is a single corridor. Every room is reachable from every other room on exactly one path.
+     * If a dimension is even, the last column or row is left open as a corridor,
+     * so both corners where the mouse and the cat start are always free.
+     * Each run is cleared a word at a time, so a map with 100 million cells takes well under a second.
+     *
+     * @param width  the width of the maze
+     * @param height the height of the maze
+     * @param seed   the seed of the random number generator
+     * @return the maze
+     * @throws IllegalArgumentException if a dimension is not valid
+     */
+    public static ObstacleMap maze(int width, int height, long seed) {
+        ObstacleMap map = new ObstacleMap(width, height);
+        map.fill();
+        GameRandom random = new GameRandom(seed);
+        int rooms = (width + 1) / 2;
+
+        map.clear(0, 0, 2 * (rooms - 1));
+        for (int y = 2; y < height; y += 2) {
+            int start = 0;
+            for (int room = 0; room < rooms; room++) {
+                if (room == rooms - 1 || random.nextInt(2) == 0) {
+                    map.clear(y, 2 * start, 2 * room);
+                    int passage = start + random.nextInt(room - start + 1);
+                    map.setWall(2 * passage, y - 1, false);
+                    start = room + 1;
+                }
+            }
+        }
+
+        if (width % 2 == 0) {
+            for (int y = 0; y < height; y++) {
+                map.setWall(width - 1, y, false);
+            }
+        }
+        if (height % 2 == 0) {
+            map.clear(height - 1, 0, width - 1);
+        }
+        return map;
+    }
+
+    /**
+     * Loads a map from a text file with one line per row, where {@link #WALL} marks a wall
+     * and every other character a free cell. The width is the length of the longest line,
+     * shorter lines are free at their end. The top left and bottom right corners, where the mouse
+     * and the cat of a {@code Game} start, should be free.
+     *
+     * @param file the map file
+     * @return the map
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is empty or too large
+     */
+    public static ObstacleMap load(Path file) throws IOException {
+        int width = 0;
+        int height = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                width = Math.max(width, line.length());
+                height++;
+            }
+        }
+
+        ObstacleMap map = new ObstacleMap(width, height);
+        try (BufferedReader reader = Files.newBufferedReader(file)) {
+            for (int y = 0; y < height; y++) {
+                String line = reader.readLine();
+                if (line == null) {
+                    throw new IOException("The file changed while it was read.");
+                }
+                for (int x = 0; x < line.length(); x++) {
+                    if (line.charAt(x) == WALL) {
+                        map.setWall(x, y, true);
+                    }
+                }
+            }
+        }
+        return map;
+    }
+
+    /**
+     * Saves the map as a text file that {@link #load(Path)} reads back.
+     *
+     * @param file the map file
+     * @throws IOException if the file cannot be written
+     */
+    public void save(Path file) throws IOException {
+        char[] row = new char[width];
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    row[x] = isWall(x, y) ? WALL : FREE;
+                }
+                writer.write(row);
+                writer.newLine();
+            }
+        }
+    }
+
+    /**
+     * Returns the width of the map.
+     *
+     * @return the width of the map
+     */
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the height of the map.
+     *
+     * @return the height of the map
+     */
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Checks if a cell is a wall with a single bit test.
+     * The cell must be on the map, {@code Board.isPassable(int, int)} also checks the bounds.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return true if the cell is a wall, false otherwise
+     */
+    @Override
+    public boolean isWall(int x, int y) {
+        long bit = (long) y * width + x;
+        return (bits[(int) (bit >>> 6)] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Puts a wall on a cell or removes it.
+     *
+     * @param x    the x-coordinate of the cell
+     * @param y    the y-coordinate of the cell
+     * @param wall true for a wall, false for a free cell
+     * @throws IndexOutOfBoundsException if the cell is not on the map
+     */
+    public void setWall(int x, int y, boolean wall) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            throw new IndexOutOfBoundsException("Cell (" + x + ", " + y + ") is not on the map.");
+        }
+        long bit = (long) y * width + x;
+        if (wall) {
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        } else {
+            bits[(int) (bit >>> 6)] &= ~(1L << bit);
+        }
+    }
+
+    /**
+     * Returns the number of walls.
+     *
+     * @return the number of walls
+     */
+    public long getWallCount() {
+        long count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Puts a wall on every cell.
+     */
+    private void fill() {
+        Arrays.fill(bits, -1L);
+        int tail = (int) ((long) width * height % Long.SIZE);
+        if (tail != 0) {
+            bits[bits.length - 1] = (1L << tail) - 1;
+        }
+    }
+
+    /**
+     * Removes the walls of a horizontal run of cells, a whole word at a time where possible.
+     *
+     * @param y    the y-coordinate of the row
+     * @param from the x-coordinate of the first cell (inclusive)
+     * @param to   the x-coordinate of the last cell (inclusive)
+     */
+    private void clear(int y, int from, int to) {
+        long first = (long) y * width + from;
+        long last = (long) y * width + to;
+        int firstWord = (int) (first >>> 6);
+        int lastWord = (int) (last >>> 6);
+        long firstMask = -1L << first;
+        long lastMask = -1L >>> (63 - (last & 63));
+        if (firstWord == lastWord) {
+            bits[firstWord] &= ~(firstMask & lastMask);
+            return;
+        }
+        bits[firstWord] &= ~firstMask;
+        Arrays.fill(bits, firstWord + 1, lastWord, 0L);
+        bits[lastWord] &= ~lastMask;
+    }
+}
@@ -0,0 +1,192 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * The {@code ParallelCatStrategy} class lets every cat walk randomly like the {@code RandomCatStrategy},
+ * but splits the cats of a large game over the threads of a {@code ForkJoinPool}.
+ * Every tick draws one number from the generator of the game, and every cat derives its own random stream
+ * from that number and its ID, so the moves do not depend on which thread computes them.
+ *
+ * <p>A tick has three passes. First, every cat picks the cell it wants to move to, in parallel.
+ * Then, also in parallel and only reading the positions before the tick, a move is accepted
+ * if no cat is on the wanted cell yet and no cat with a lower ID wants the same cell.
+ * Finally, the accepted moves are applied in order of the IDs on the thread of the game,
+ * and a cat whose wanted cell is a wall stays where it is, because a terrain may not be safe to read from many threads.
+ * So two cats never move onto the same cell, a cat does not follow another one into the cell it just left,
+ * and of the cats that jump at the mouse, only the one with the lowest ID catches it.
+ * The result is the same for any number of threads, but it is not the same game as with the {@code RandomCatStrategy},
+ * which draws all cats from the one generator of the game and lets cats share cells.</p>
+ *
+ * @see         CatStrategy
+ * @see         RandomCatStrategy
+ * @see         GameRandom
+ * @author      Tania Argot
+ */
+public final class ParallelCatStrategy implements CatStrategy {
+
+    /** Largest number of IDs one task handles without splitting. */
+    private static final int TASK_IDS = 4096;
+
+    /** The pool the passes run in. */
+    private final ForkJoinPool pool;
+
+    /** The cell every cat wants to move to, by ID, as {@code x << 32 | y}. */
+    private long[] targets = new long[0];
+
+    /** True for every cat whose move was accepted, by ID. */
+    private boolean[] accepted = new boolean[0];
+
+    /** The entities of the game of the current tick. */
+    private EntityStore entities;
+
+    /** The board of the game of the current tick. */
+    private Board board;
+
+    /** The number drawn from the generator of the game for the current tick. */
+    private long tickSeed;
+
+    /**
+     * Constructor of the {@code ParallelCatStrategy} class that runs in the common pool.
+     */
+    public ParallelCatStrategy() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructor of the {@code ParallelCatStrategy} class.
+     *
+     * @param pool the pool the passes run in, its parallelism is the number of threads used
+     */
+    public ParallelCatStrategy(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    @Override
+    public void moveCats(Game game) {
+        entities = game.getEntities();
+        board = game.getBoard();
+        tickSeed = game.getRandom().nextLong();
+        int size = entities.getSize();
+        if (targets.length < size) {
+            targets = new long[Math.max(size, targets.length * 2)];
+            accepted = new boolean[targets.length];
+        }
+
+        pool.invoke(new Pass(true, 0, size));
+        pool.invoke(new Pass(false, 0, size));
+
+        for (int id = 0; id < size; id++) {
+            if (accepted[id]) {
+                int x = (int) (targets[id] >>> 32);
+                int y = (int) targets[id];
+                if (board.isPassable(x, y)) {
+                    entities.setPosition(id, x, y);
+                }
+            }
+        }
+        entities = null;
+        board = null;
+    }
+
+    /**
+     * Picks the cell a cat wants to move to, from the random stream of the cat in this tick.
+     *
+     * @param id the ID of the cat
+     */
+    private void pickTarget(int id) {
+        long state = GameRandom.nextState(GameRandom.streamSeed(tickSeed, id));
+        int dx = GameRandom.intOf(state, 3) - 1;
+        state = GameRandom.nextState(state);
+        int dy = GameRandom.intOf(state, 3) - 1;
+        int x = board.clampX(entities.getX(id) + dx);
+        int y = board.clampY(entities.getY(id) + dy);
+        targets[id] = (long) x << 32 | y;
+    }
+
+    /**
+     * Decides if the move of a cat is accepted: the cat moves, no cat is on its cell yet,
+     * and no cat with a lower ID wants the same cell. Only reads the positions before the tick.
+     *
+     * @param id the ID of the cat
+     * @return true if the cat may move to its cell
+     */
+    private boolean accept(int id) {
+        int x = (int) (targets[id] >>> 32);
+        int y = (int) targets[id];
+        if ((x == entities.getX(id) && y == entities.getY(id)) || entities.isOccupiedBy(EntityStore.CAT, x, y)) {
+            return false;
+        }
+
+        SpatialIndex index = entities.getIndex();
+        if (index == null) {
+            for (int other = 0; other < id; other++) {
+                if (entities.getType(other) == EntityStore.CAT && targets[other] == targets[id]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        for (int cellY = y - 1; cellY <= y + 1; cellY++) {
+            for (int cellX = x - 1; cellX <= x + 1; cellX++) {
+                if (cellX < 0 || cellY < 0 || cellX >= board.getWidth() || cellY >= board.getHeight()) {
+                    continue;
+                }
+                for (int other = index.first(cellX, cellY); other >= 0; other = index.next(other)) {
+                    if (other < id && entities.getType(other) == EntityStore.CAT && targets[other] == targets[id]) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The {@code Pass} class runs one of the two parallel passes over a range of IDs,
+     * splitting it in halves until the range is small enough.
+     */
+    private final class Pass extends RecursiveAction {
+
+        /** True to pick the targets, false to accept the moves. */
+        private final boolean pick;
+
+        /** The first ID of the range. */
+        private final int from;
+
+        /** The ID after the last one of the range. */
+        private final int to;
+
+        /**
+         * Constructor of the {@code Pass} class.
+         *
+         * @param pick true to pick the targets, false to accept the moves
+         * @param from the first ID of the range
+         * @param to   the ID after the last one of the range
+         */
+        Pass(boolean pick, int from, int to) {
+            this.pick = pick;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TASK_IDS) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Pass(pick, from, middle), new Pass(pick, middle, to));
+                return;
+            }
+            for (int id = from; id < to; id++) {
+                boolean cat = entities.getType(id) == EntityStore.CAT;
+                if (pick) {
+                    if (cat) {
+                        pickTarget(id);
+                    }
+                } else {
+                    accepted[id] = cat && accept(id);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code RandomCatStrategy} class lets every cat walk randomly, like {@code Cat.moveRandomly(GameRandom, Board)}.
+ * It is the default strategy of a game.
+ *
+ * @see         CatStrategy
+ * @author      Tania Argot
+ */
+public final class RandomCatStrategy implements CatStrategy {
+
+    @Override
+    public void moveCats(Game game) {
+        game.getEntities().stepCats(game.getRandom(), game.getBoard());
+    }
+}
@@ -0,0 +1,171 @@
+package goop.tomandjerry.tania;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The {@code ReplayRecorder} class writes everything needed to replay a game into an append-only binary log.
+ * The log starts with a header holding the board size, the number of cheeses and the seed of the game,
+ * followed by the inputs of every tick and the resets of the game.
+ * Equal consecutive inputs are packed into one varint of {@code (count << 3) | code},
+ * so a tick usually takes one byte or less.
+ * The log is streamed to the file through a {@code FileChannel} with a small buffer.
+ *
+ * <p>A game can only be replayed exactly if the recorder is told about every tick and every reset,
+ * starting from a new {@code Game} created with the recorded board, seed and number of cheeses.
+ * The header does not hold a terrain, added cats or a cat strategy,
+ * so the recorder rejects games with any of them.</p>
+ *
+ * @see         Replayer
+ * @see         Varints
+ * @author      Tania Argot
+ */
+public final class ReplayRecorder implements AutoCloseable {
+
+    /** Magic number at the start of every log, "TJR4" since the header holds the number of cheeses. */
+    static final int MAGIC = 0x544a5234;
+
+    /** Code of a reset of the game, the codes below are the ordinals of {@code Direction}. */
+    static final int RESET = 7;
+
+    /** Number of bits of the code in an event. */
+    static final int CODE_BITS = 3;
+
+    /** Size of the write buffer in bytes. */
+    private static final int BUFFER_SIZE = 4096;
+
+    /** The file the log is written to. */
+    private final FileChannel channel;
+
+    /** The write buffer. */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /** Code of the pending run of equal events, or -1 if there is none. */
+    private int pendingCode = -1;
+
+    /** Length of the pending run of equal events. */
+    private long pendingCount;
+
+    /**
+     * Constructor of the {@code ReplayRecorder} class.
+     * It creates the log file and writes the header.
+     *
+     * @param file the log file, which must not exist yet
+     * @param game the new game to record
+     * @param seed the seed the game was created with
+     * @throws IOException if the file cannot be created
+     * @throws IllegalArgumentException if the board of the game has a terrain, the game has added cats
+     *                                  or its cats do not walk randomly
+     */
+    public ReplayRecorder(Path file, Game game, long seed) throws IOException {
+        Board board = game.getBoard();
+        if (board.getTerrain() != null) {
+            throw new IllegalArgumentException("A game on a board with a terrain cannot be recorded.");
+        }
+        if (game.getCatCount() != 1) {
+            throw new IllegalArgumentException("A game with " + game.getCatCount() + " cats cannot be recorded.");
+        }
+        if (!(game.getCatStrategy() instanceof RandomCatStrategy)) {
+            throw new IllegalArgumentException("A game whose cats do not walk randomly cannot be recorded.");
+        }
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        buffer.putInt(MAGIC);
+        Varints.write(buffer, board.getWidth());
+        Varints.write(buffer, board.getHeight());
+        Varints.write(buffer, game.getCheeseTarget());
+        buffer.putLong(seed);
+    }
+
+    /**
+     * Records the input of one tick.
+     *
+     * @param direction the direction of the mouse in this tick
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void recordTick(Direction direction) {
+        record(direction.ordinal());
+    }
+
+    /**
+     * Records a reset of the game.
+     *
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void recordReset() {
+        record(RESET);
+    }
+
+    /**
+     * Writes all buffered events to the file.
+     *
+     * @throws UncheckedIOException if the log cannot be written
+     */
+    public void flush() {
+        writePending();
+        drain();
+    }
+
+    /**
+     * Writes all buffered events and closes the file.
+     *
+     * @throws IOException if the log cannot be written
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } catch (UncheckedIOException exception) {
+            throw exception.getCause();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Records one event, extending the pending run if it has the same code.
+     *
+     * @param code the code of the event
+     */
+    private void record(int code) {
+        if (code == pendingCode) {
+            pendingCount++;
+            return;
+        }
+        writePending();
+        pendingCode = code;
+        pendingCount = 1;
+    }
+
+    /**
+     * Moves the pending run into the buffer.
+     */
+    private void writePending() {
+        if (pendingCode < 0) {
+            return;
+        }
+        if (buffer.remaining() < Varints.MAX_BYTES) {
+            drain();
+        }
+        Varints.write(buffer, (pendingCount << CODE_BITS) | pendingCode);
+        pendingCode = -1;
+        pendingCount = 0;
+    }
+
+    /**
+     * Writes the buffer to the file.
+     */
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+        buffer.clear();
+    }
+}
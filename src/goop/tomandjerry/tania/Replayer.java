@@ -0,0 +1,243 @@
+package goop.tomandjerry.tania;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The {@code Replayer} class re-simulates a log written by the {@code ReplayRecorder} headlessly at full speed.
+ * When a log is opened, it is played once and a snapshot of the game is kept every {@link #SNAPSHOT_INTERVAL} ticks,
+ * so {@code seek(long)} only has to simulate the ticks since the nearest snapshot.
+ * The snapshots are packed into one buffer, so a long log costs a few bytes per snapshot and no objects.
+ *
+ * @see         ReplayRecorder
+ * @see         Game
+ * @author      Tania Argot
+ */
+public final class Replayer {
+
+    /** Number of ticks between two snapshots. */
+    public static final int SNAPSHOT_INTERVAL = 1024;
+
+    /** The board of the recorded game. */
+    private final Board board;
+
+    /** The number of cheeses of the recorded game. */
+    private final int cheeses;
+
+    /** The seed of the recorded game. */
+    private final long seed;
+
+    /** Codes of the runs of events. */
+    private byte[] codes = new byte[64];
+
+    /** Lengths of the runs of events. */
+    private long[] counts = new long[64];
+
+    /** Number of runs. */
+    private int runCount;
+
+    /** Number of recorded ticks. */
+    private long tickCount;
+
+    /** Positions in the log of the snapshots every {@link #SNAPSHOT_INTERVAL} ticks, the first one is the new game. */
+    private final List<Snapshot> snapshots = new ArrayList<>();
+
+    /** The game snapshots, one every {@code snapshotSize} bytes in the order of {@code snapshots}. */
+    private ByteBuffer states;
+
+    /** Size of a game snapshot, a replayed game never adds cats so all snapshots have the same size. */
+    private int snapshotSize;
+
+    /**
+     * The position in the log of a snapshot of the game after {@code tick} ticks,
+     * taken before the event at {@code offset} of run {@code run}.
+     *
+     * @param tick   the number of ticks played
+     * @param run    the index of the next run
+     * @param offset the number of events of the run that were already played
+     */
+    private record Snapshot(long tick, int run, long offset) {}
+
+    /**
+     * Constructor of the {@code Replayer} class.
+     *
+     * @param log the content of the log
+     * @throws IllegalArgumentException if the log is not a replay log
+     */
+    private Replayer(ByteBuffer log) {
+        if (log.remaining() < Integer.BYTES || log.getInt() != ReplayRecorder.MAGIC) {
+            throw new IllegalArgumentException("Not a replay log.");
+        }
+        board = new Board((int) Varints.read(log), (int) Varints.read(log));
+        cheeses = (int) Varints.read(log);
+        seed = log.getLong();
+
+        while (log.hasRemaining()) {
+            long event = Varints.read(log);
+            int code = (int) (event & ((1 << ReplayRecorder.CODE_BITS) - 1));
+            if (code != ReplayRecorder.RESET && code >= Direction.values().length) {
+                throw new IllegalArgumentException("Unknown event code " + code + ".");
+            }
+            if (runCount == codes.length) {
+                codes = Arrays.copyOf(codes, runCount * 2);
+                counts = Arrays.copyOf(counts, runCount * 2);
+            }
+            codes[runCount] = (byte) code;
+            counts[runCount] = event >>> ReplayRecorder.CODE_BITS;
+            if (code != ReplayRecorder.RESET) {
+                tickCount += counts[runCount];
+            }
+            runCount++;
+        }
+
+        takeSnapshots();
+    }
+
+    /**
+     * Opens a replay log and indexes it.
+     *
+     * @param file the log file
+     * @return the replayer of the log
+     * @throws IOException if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a replay log
+     */
+    public static Replayer open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer log = ByteBuffer.allocate((int) channel.size());
+            while (log.hasRemaining()) {
+                if (channel.read(log) < 0) {
+                    throw new IOException("The log ended early.");
+                }
+            }
+            log.flip();
+            return new Replayer(log);
+        }
+    }
+
+    /**
+     * Returns the board of the recorded game.
+     *
+     * @return the board of the recorded game
+     */
+    public Board getBoard() {
+        return board;
+    }
+
+    /**
+     * Returns the number of cheeses of the recorded game.
+     *
+     * @return the number of cheeses of the recorded game
+     */
+    public int getCheeseCount() {
+        return cheeses;
+    }
+
+    /**
+     * Returns the seed of the recorded game.
+     *
+     * @return the seed of the recorded game
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Returns the number of recorded ticks.
+     *
+     * @return the number of recorded ticks
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Plays the whole log.
+     *
+     * @return the game after the last event
+     */
+    public Game play() {
+        return seek(tickCount);
+    }
+
+    /**
+     * Returns the game after the given number of ticks, including resets that directly follow the last tick.
+     *
+     * @param tick the number of ticks to play, between 0 and {@code getTickCount()}
+     * @return a new game in the state after the ticks
+     * @throws IllegalArgumentException if the tick is out of range
+     */
+    public Game seek(long tick) {
+        if (tick < 0 || tick > tickCount) {
+            throw new IllegalArgumentException("Tick " + tick + " is not in [0, " + tickCount + "].");
+        }
+        int index = (int) (tick / SNAPSHOT_INTERVAL);
+        Snapshot snapshot = snapshots.get(index);
+        Game game = new Game(board, seed, cheeses);
+        game.readSnapshot(states, index * snapshotSize);
+        play(game, snapshot.tick(), snapshot.run(), snapshot.offset(), tick, null);
+        return game;
+    }
+
+    /**
+     * Plays the log once from the start and keeps a snapshot every {@link #SNAPSHOT_INTERVAL} ticks.
+     */
+    private void takeSnapshots() {
+        Game game = new Game(board, seed, cheeses);
+        snapshotSize = game.getSnapshotSize();
+        states = ByteBuffer.allocate(Math.multiplyExact((int) (tickCount / SNAPSHOT_INTERVAL) + 1, snapshotSize));
+        addSnapshot(game, 0, 0, 0);
+        play(game, 0, 0, 0, tickCount, snapshots);
+    }
+
+    /**
+     * Writes a snapshot of the game into the next slot of the states and remembers its position in the log.
+     *
+     * @param game   the game
+     * @param tick   the number of ticks played
+     * @param run    the index of the next run
+     * @param offset the number of events of the run that were already played
+     */
+    private void addSnapshot(Game game, long tick, int run, long offset) {
+        game.writeSnapshot(states, snapshots.size() * snapshotSize);
+        snapshots.add(new Snapshot(tick, run, offset));
+    }
+
+    /**
+     * Plays the events from a position of the log until the given number of ticks is reached.
+     * Resets that directly follow the last tick are played as well.
+     *
+     * @param game      the game to play
+     * @param tick      the number of ticks already played
+     * @param run       the index of the next run
+     * @param offset    the number of events of the run that were already played
+     * @param target    the number of ticks to reach
+     * @param snapshots the list to add snapshots to, or null to take no snapshots
+     */
+    private void play(Game game, long tick, int run, long offset, long target, List<Snapshot> snapshots) {
+        Direction[] directions = Direction.values();
+        for (; run < runCount; run++, offset = 0) {
+            int code = codes[run];
+            if (code == ReplayRecorder.RESET) {
+                game.reset();
+                continue;
+            }
+            for (; offset < counts[run]; offset++) {
+                if (tick == target) {
+                    return;
+                }
+                game.tick(directions[code]);
+                tick++;
+
+                if (snapshots != null && tick % SNAPSHOT_INTERVAL == 0) {
+                    addSnapshot(game, tick, offset + 1 == counts[run] ? run + 1 : run,
+                            offset + 1 == counts[run] ? 0 : offset + 1);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code Score} record is one finished game on the {@code Leaderboard}.
+ *
+ * @param player  the name of the player
+ * @param cheeses the number of collected cheeses
+ * @param ticks   the number of ticks the mouse survived
+ * @param seed    the seed of the game
+ * @param time    the time the game ended, in milliseconds since the epoch
+ * @see         Leaderboard
+ * @author      Tania Argot
+ */
+public record Score(String player, int cheeses, int ticks, long seed, long time) {}
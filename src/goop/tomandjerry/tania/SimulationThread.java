@@ -0,0 +1,289 @@
+package goop.tomandjerry.tania;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * The {@code SimulationThread} class ticks a game on its own thread, so a slow tick never delays input or painting.
+ * The game, its replay log and the autopilot searches are only touched by this thread.
+ * The moves of the user come in through an {@code InputQueue}, and after every batch of ticks
+ * a copy of the game is published to the renderer through a {@code FrameRing}.
+ * Like the {@code InputBuffer}, all moves of one tick are coalesced and the last one wins.
+ * When the cat catches the mouse, the thread stops ticking and notifies the game over listener with the last frame,
+ * the game only goes on after {@link #restart()}.
+ *
+ * @see         InputQueue
+ * @see         FrameRing
+ * @see         GameFrame
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public final class SimulationThread implements AutoCloseable {
+
+    /** Largest number of moves that can wait for the next tick, more are dropped. */
+    private static final int INPUT_CAPACITY = 64;
+
+    /** The game, only accessed by the thread. */
+    private final Game game;
+
+    /** Recorder of the replay log, or null if the game is not recorded. */
+    private final ReplayRecorder recorder;
+
+    /** The moves of the user. */
+    private final InputQueue input = new InputQueue(INPUT_CAPACITY);
+
+    /** The moves planned by the autopilot. */
+    private final InputBuffer autopilotInput = new InputBuffer();
+
+    /** The frames published to the renderer. */
+    private final FrameRing frames;
+
+    /** Clock that decides when the next tick of the game is due. */
+    private final FixedTimestep timestep;
+
+    /** Autopilot that moves the mouse when it is switched on. */
+    private final MouseAutopilot autopilot;
+
+    /** Thread that runs the searches of the autopilot, so the ticks are not delayed. */
+    private final ExecutorService autopilotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autopilot");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The listener that gets the last frame of a game, called on the thread of the simulation. */
+    private final Consumer<GameFrame> gameOverListener;
+
+    /** The thread that ticks the game. */
+    private final Thread thread;
+
+    /** Latencies of the played inputs. */
+    private LatencyStats latencyStats = new LatencyStats();
+
+    /** False once the thread is asked to stop. */
+    private volatile boolean running = true;
+
+    /** True while the game clock is stopped, e.g. while a dialog is shown. */
+    private volatile boolean paused;
+
+    /** True if the autopilot moves the mouse. */
+    private volatile boolean autopilotEnabled;
+
+    /** True if the game should be reset before the next tick. */
+    private final AtomicBoolean restartRequested = new AtomicBoolean();
+
+    /** True if the cat caught the mouse and the game waits for a restart. */
+    private boolean caught;
+
+    /** Time of the first move that was not played yet in nanoseconds, or 0 if there is none. */
+    private long inputTime;
+
+    /**
+     * Constructor of the {@code SimulationThread} class.
+     * The thread is not started yet, and the game must not be accessed by other threads once it is.
+     *
+     * @param game             the game to tick
+     * @param ticksPerSecond   the tick rate
+     * @param viewportCells    the largest number of cells per row and column around the mouse the renderer shows,
+     *                         whose walls are copied into the frames
+     * @param recorder         the recorder of the replay log, or null if the game is not recorded
+     * @param autopilot        the autopilot that moves the mouse when it is switched on
+     * @param gameOverListener the listener that gets the last frame of a game, on the thread of the simulation
+     * @throws IllegalArgumentException if the tick rate is not positive
+     */
+    public SimulationThread(Game game, double ticksPerSecond, int viewportCells, ReplayRecorder recorder,
+                            MouseAutopilot autopilot, Consumer<GameFrame> gameOverListener) {
+        this.game = game;
+        this.recorder = recorder;
+        this.autopilot = autopilot;
+        this.gameOverListener = gameOverListener;
+        this.timestep = new FixedTimestep(ticksPerSecond);
+        this.frames = new FrameRing(game.getBoard(), game.getEntities().getSize(), viewportCells);
+        this.thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Sets the latency stats the played inputs are recorded in. Must be called before the thread is started.
+     *
+     * @param latencyStats the latency stats
+     */
+    public void setLatencyStats(LatencyStats latencyStats) {
+        this.latencyStats = latencyStats;
+    }
+
+    /**
+     * Starts the thread, which publishes the first frame right away and then ticks the game.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Passes a move of the user to the next tick. Must only be called by one thread, e.g. the JavaFX application thread.
+     *
+     * @param direction the direction of the move
+     * @param time      the time of the key press in nanoseconds, or 0 if it is not measured
+     * @return true if the move was queued, false if too many moves are waiting and it was dropped
+     */
+    public boolean press(Direction direction, long time) {
+        return input.offer(direction, time);
+    }
+
+    /**
+     * Takes the newest frame of the game. Must only be called by one thread, e.g. the JavaFX application thread.
+     *
+     * @return the newest frame, which stays unchanged until the next call, or null if there is no new frame
+     */
+    public GameFrame takeFrame() {
+        return frames.take();
+    }
+
+    /**
+     * Stops or starts the game clock. The moves and the time of a pause are discarded.
+     *
+     * @param paused true to stop the clock, false to start it again
+     */
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Checks if the autopilot moves the mouse.
+     *
+     * @return true if the autopilot is switched on, false otherwise
+     */
+    public boolean isAutopilotEnabled() {
+        return autopilotEnabled;
+    }
+
+    /**
+     * Switches the autopilot on or off. It plans its first move after the next tick.
+     *
+     * @param enabled true to switch the autopilot on, false to switch it off
+     */
+    public void setAutopilotEnabled(boolean enabled) {
+        autopilotEnabled = enabled;
+    }
+
+    /**
+     * Resets the game after it is over, records the reset and starts the clock again.
+     */
+    public void restart() {
+        restartRequested.set(true);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Stops the thread and waits until it finished its last tick, so the replay log can be closed afterwards.
+     */
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        autopilotExecutor.shutdownNow();
+    }
+
+    /**
+     * Runs the ticks that are due until the thread is stopped, and sleeps in between.
+     * While the clock is stopped or the game is over, the thread sleeps until it is woken up by a call.
+     */
+    private void run() {
+        frames.publish(game, 0);
+        boolean idle = true;
+        while (running) {
+            if (restartRequested.getAndSet(false) && caught) {
+                game.reset();
+                if (recorder != null) {
+                    recorder.recordReset();
+                }
+                caught = false;
+                frames.publish(game, 0);
+            }
+            if (paused || caught) {
+                idle = true;
+                LockSupport.park(this);
+                continue;
+            }
+            if (idle) {
+                idle = false;
+                input.clear();
+                autopilotInput.clear();
+                inputTime = 0;
+                timestep.reset();
+                planAutopilotMove();
+            }
+            int ticks = timestep.advance(System.nanoTime());
+            if (ticks > 0) {
+                runTicks(ticks);
+            }
+            LockSupport.parkNanos(this, timestep.nanosUntilNextTick(System.nanoTime()));
+        }
+    }
+
+    /**
+     * Runs the ticks that are due and publishes one frame after them.
+     * The input of every tick is written to the replay log.
+     * If the cat caught the mouse, the listener is notified with the frame,
+     * otherwise the autopilot starts planning the next move.
+     *
+     * @param ticks the number of ticks to run
+     */
+    private void runTicks(int ticks) {
+        long playedTime = 0;
+        for (int i = 0; i < ticks && !caught; i++) {
+            Direction direction = takeInput();
+            if (direction != Direction.NONE && inputTime != 0) {
+                latencyStats.record(LatencyStage.INPUT, inputTime);
+                playedTime = inputTime;
+                inputTime = 0;
+            }
+            if (recorder != null) {
+                recorder.recordTick(direction);
+            }
+            caught = game.tick(direction) == TickResult.CAUGHT;
+        }
+
+        GameFrame frame = frames.publish(game, playedTime);
+        if (caught) {
+            gameOverListener.accept(frame);
+        } else {
+            planAutopilotMove();
+        }
+    }
+
+    /**
+     * Takes all moves that arrived since the last tick and coalesces them into one.
+     * The last move of the user wins, without one the move of the autopilot is played.
+     *
+     * @return the move of the tick, or {@code Direction.NONE} if there was none
+     */
+    private Direction takeInput() {
+        Direction direction = Direction.NONE;
+        for (Direction next = input.poll(); next != null; next = input.poll()) {
+            direction = next;
+            if (inputTime == 0) {
+                inputTime = input.getPolledTime();
+            }
+        }
+        Direction planned = autopilotInput.take();
+        return direction != Direction.NONE ? direction : planned;
+    }
+
+    /**
+     * Lets the autopilot search the next move in the background, if it is switched on.
+     */
+    private void planAutopilotMove() {
+        if (autopilotEnabled) {
+            autopilot.nextMoveAsync(game, autopilotExecutor).thenAccept(autopilotInput::press);
+        }
+    }
+}
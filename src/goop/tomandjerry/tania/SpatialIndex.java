@@ -0,0 +1,407 @@
+package goop.tomandjerry.tania;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The {@code SpatialIndex} class finds the entities on a cell without comparing every pair of entities.
+ * It maps each occupied cell to a linked list of the IDs on that cell.
+ * On boards with up to {@link #DENSE_CELLS} cells, the heads of the lists are kept in a uniform grid,
+ * one {@code int} per cell, together with a dense list of the occupied cells. Larger boards use a primitive open-addressing hash table keyed by the packed
+ * cell coordinates, where only occupied cells have an entry, so the index stays small on huge boards.
+ * The index is updated incrementally, moving an entity to another cell costs O(1).
+ * An index can keep a {@code FreeCellSet} up to date, it takes a cell when the first entity enters it
+ * and frees the cell when the last entity leaves it.
+ *
+ * @see         EntityStore
+ * @see         FreeCellSet
+ * @see         Game
+ * @author      Tania Argot
+ */
+public final class SpatialIndex {
+
+    /** Marker for an empty slot of the hash table, no cell has this key. */
+    private static final long EMPTY = -1L;
+
+    /** Marker for the end of a list. */
+    private static final int NONE = -1;
+
+    /** Largest number of cells of a board that is indexed with a uniform grid. */
+    public static final long DENSE_CELLS = 1 << 20;
+
+    /** Heads of the lists by cell index {@code y * width + x}, or null if the hash table is used. */
+    private final int[] grid;
+
+    /** Width of the board, used to index the grid. */
+    private final int width;
+
+    /** Height of the board. */
+    private final int height;
+
+    /** Packed cell keys of the hash table. */
+    private long[] keys;
+
+    /** First ID of the list of each cell in the hash table. */
+    private int[] heads;
+
+    /** Next ID in the list of the same cell, by ID. */
+    private int[] next;
+
+    /** Previous ID in the list of the same cell, by ID. */
+    private int[] previous;
+
+    /** Indexes of the occupied cells of the grid in no particular order, the first {@code cellCount} are used. */
+    private int[] occupied;
+
+    /** Place of the cell in {@code occupied} by the ID at the head of the list of the cell, used with the grid. */
+    private int[] places;
+
+    /** Number of occupied cells. */
+    private int cellCount;
+
+    /** Shift that turns a 32-bit hash into a slot, {@code 32 - log2(slots)}. */
+    private int shift;
+
+    /** The set of the cells without an entity, or null if the index keeps none. */
+    private final FreeCellSet freeCells;
+
+    /**
+     * Constructor of the {@code SpatialIndex} class.
+     *
+     * @param board    the board of the entities
+     * @param capacity the expected number of entities
+     */
+    public SpatialIndex(Board board, int capacity) {
+        this(board, capacity, null);
+    }
+
+    /**
+     * Constructor of the {@code SpatialIndex} class that keeps a set of the free cells up to date.
+     *
+     * @param board     the board of the entities
+     * @param capacity  the expected number of entities
+     * @param freeCells the set of the free cells of the board with no cell taken yet, or null for none
+     */
+    public SpatialIndex(Board board, int capacity, FreeCellSet freeCells) {
+        this.freeCells = freeCells;
+        width = board.getWidth();
+        height = board.getHeight();
+        if (board.getCellCount() <= DENSE_CELLS) {
+            grid = new int[(int) board.getCellCount()];
+            Arrays.fill(grid, NONE);
+        } else {
+            grid = null;
+        }
+        int slots = Integer.highestOneBit(Math.max(capacity, 4) * 2 - 1) * 2;
+        keys = new long[slots];
+        Arrays.fill(keys, EMPTY);
+        heads = new int[slots];
+        shift = Integer.numberOfLeadingZeros(slots) + 1;
+        next = new int[Math.max(capacity, 1)];
+        previous = new int[Math.max(capacity, 1)];
+        occupied = new int[next.length];
+        places = new int[next.length];
+    }
+
+    /**
+     * Adds an entity on a cell.
+     *
+     * @param id the ID of the entity
+     * @param x  the x-coordinate of the cell
+     * @param y  the y-coordinate of the cell
+     */
+    public void insert(int id, int x, int y) {
+        if (id >= next.length) {
+            int capacity = Math.max(id + 1, next.length * 2);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            occupied = Arrays.copyOf(occupied, capacity);
+            places = Arrays.copyOf(places, capacity);
+        }
+
+        if (grid != null) {
+            int cell = y * width + x;
+            if (grid[cell] == NONE) {
+                occupied[cellCount] = cell;
+                places[id] = cellCount++;
+                if (freeCells != null) {
+                    freeCells.take(x, y);
+                }
+            } else {
+                places[id] = places[grid[cell]];
+                previous[grid[cell]] = id;
+            }
+            next[id] = grid[cell];
+            previous[id] = NONE;
+            grid[cell] = id;
+            return;
+        }
+
+        long key = key(x, y);
+        int slot = find(key);
+        if (keys[slot] == EMPTY) {
+            keys[slot] = key;
+            heads[slot] = NONE;
+            cellCount++;
+            if (freeCells != null) {
+                freeCells.take(x, y);
+            }
+            if (cellCount * 2 > keys.length) {
+                rehash(keys.length * 2);
+                slot = find(key);
+            }
+        }
+
+        int head = heads[slot];
+        next[id] = head;
+        previous[id] = NONE;
+        if (head != NONE) {
+            previous[head] = id;
+        }
+        heads[slot] = id;
+    }
+
+    /**
+     * Removes an entity from a cell.
+     *
+     * @param id the ID of the entity
+     * @param x  the x-coordinate of the cell the entity is on
+     * @param y  the y-coordinate of the cell the entity is on
+     */
+    public void remove(int id, int x, int y) {
+        if (next[id] != NONE) {
+            previous[next[id]] = previous[id];
+        }
+        if (previous[id] != NONE) {
+            next[previous[id]] = next[id];
+            return;
+        }
+
+        if (grid != null) {
+            int cell = y * width + x;
+            grid[cell] = next[id];
+            if (grid[cell] != NONE) {
+                places[grid[cell]] = places[id];
+                return;
+            }
+            int last = occupied[--cellCount];
+            if (last != cell) {
+                occupied[places[id]] = last;
+                places[grid[last]] = places[id];
+            }
+            if (freeCells != null) {
+                freeCells.free(x, y);
+            }
+            return;
+        }
+
+        int slot = find(key(x, y));
+        heads[slot] = next[id];
+        if (heads[slot] == NONE) {
+            deleteSlot(slot);
+            if (freeCells != null) {
+                freeCells.free(x, y);
+            }
+        }
+    }
+
+    /**
+     * Moves an entity from one cell to another.
+     *
+     * @param id   the ID of the entity
+     * @param oldX the old x-coordinate
+     * @param oldY the old y-coordinate
+     * @param newX the new x-coordinate
+     * @param newY the new y-coordinate
+     */
+    public void move(int id, int oldX, int oldY, int newX, int newY) {
+        if (oldX != newX || oldY != newY) {
+            remove(id, oldX, oldY);
+            insert(id, newX, newY);
+        }
+    }
+
+    /**
+     * Returns the first entity on a cell. The others follow with {@code next(int)}.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the ID of the first entity on the cell, or -1 if the cell is empty
+     */
+    public int first(int x, int y) {
+        if (grid != null) {
+            return x >= 0 && y >= 0 && x < width && y < height ? grid[y * width + x] : NONE;
+        }
+        int slot = find(key(x, y));
+        return keys[slot] == EMPTY ? NONE : heads[slot];
+    }
+
+    /**
+     * Returns the next entity on the same cell.
+     *
+     * @param id the ID of an entity
+     * @return the ID of the next entity on the cell, or -1 if there is none
+     */
+    public int next(int id) {
+        return next[id];
+    }
+
+    /**
+     * Visits every entity whose cell is within the given Chebyshev distance of a cell,
+     * which is the square a cat can reach in {@code radius} moves.
+     * The square is cut to the board first. If it has more cells than there are occupied cells,
+     * the occupied cells of the grid or the slots of the hash table are scanned instead of the square,
+     * so a query costs O(min(area, occupied cells)) plus the number of visited entities.
+     * The entities are visited in no particular order.
+     *
+     * @param x       the x-coordinate of the center cell
+     * @param y       the y-coordinate of the center cell
+     * @param radius  the largest distance, 0 for the cell itself
+     * @param visitor the visitor that is called with the ID of every entity in range
+     */
+    public void forEachInRadius(int x, int y, int radius, IntConsumer visitor) {
+        int left = (int) Math.max(0, (long) x - radius);
+        int top = (int) Math.max(0, (long) y - radius);
+        int right = (int) Math.min(width - 1, (long) x + radius);
+        int bottom = (int) Math.min(height - 1, (long) y + radius);
+        if (left > right || top > bottom) {
+            return;
+        }
+        long area = (long) (right - left + 1) * (bottom - top + 1);
+        if (grid != null && area > cellCount) {
+            for (int i = 0; i < cellCount; i++) {
+                int cellX = occupied[i] % width;
+                int cellY = occupied[i] / width;
+                if (cellX >= left && cellX <= right && cellY >= top && cellY <= bottom) {
+                    for (int id = grid[occupied[i]]; id != NONE; id = next[id]) {
+                        visitor.accept(id);
+                    }
+                }
+            }
+            return;
+        }
+        if (grid != null || area <= keys.length) {
+            for (int cellY = top; cellY <= bottom; cellY++) {
+                for (int cellX = left; cellX <= right; cellX++) {
+                    for (int id = first(cellX, cellY); id != NONE; id = next[id]) {
+                        visitor.accept(id);
+                    }
+                }
+            }
+            return;
+        }
+
+        for (int slot = 0; slot < keys.length; slot++) {
+            long key = keys[slot];
+            if (key != EMPTY && Math.abs((int) (key >>> 32) - x) <= radius && Math.abs((int) key - y) <= radius) {
+                for (int id = heads[slot]; id != NONE; id = next[id]) {
+                    visitor.accept(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the number of occupied cells.
+     *
+     * @return the number of occupied cells
+     */
+    public int getCellCount() {
+        return cellCount;
+    }
+
+    /**
+     * Removes all entities. The grid is cleared through the list of the occupied cells.
+     */
+    public void clear() {
+        if (grid != null) {
+            for (int i = 0; i < cellCount; i++) {
+                grid[occupied[i]] = NONE;
+            }
+        }
+        Arrays.fill(keys, EMPTY);
+        cellCount = 0;
+        if (freeCells != null) {
+            freeCells.clear();
+        }
+    }
+
+    /**
+     * Packs the coordinates of a cell into a key.
+     *
+     * @param x the x-coordinate of the cell
+     * @param y the y-coordinate of the cell
+     * @return the key of the cell
+     */
+    private static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xffffffffL);
+    }
+
+    /**
+     * Returns the slot of a key, or the empty slot where it would be inserted.
+     *
+     * @param key the key
+     * @return the slot of the key
+     */
+    private int find(long key) {
+        int mask = keys.length - 1;
+        int slot = home(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the home slot of a key with Fibonacci hashing, taking the top bits of the product.
+     *
+     * @param key the key
+     * @return the home slot of the key
+     */
+    private int home(long key) {
+        int hash = ((int) (key >>> 32) * 0x85ebca6b) ^ ((int) key * 0x9e3779b9);
+        return hash >>> shift;
+    }
+
+    /**
+     * Deletes a slot and shifts the following entries back, so that no tombstones are needed.
+     *
+     * @param slot the slot to delete
+     */
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        keys[slot] = EMPTY;
+        cellCount--;
+
+        int hole = slot;
+        for (int current = (slot + 1) & mask; keys[current] != EMPTY; current = (current + 1) & mask) {
+            int home = home(keys[current]);
+            if (((current - home) & mask) >= ((current - hole) & mask)) {
+                keys[hole] = keys[current];
+                heads[hole] = heads[current];
+                keys[current] = EMPTY;
+                hole = current;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the hash table with a new number of slots.
+     *
+     * @param slots the new number of slots, a power of two
+     */
+    private void rehash(int slots) {
+        long[] oldKeys = keys;
+        int[] oldHeads = heads;
+        keys = new long[slots];
+        Arrays.fill(keys, EMPTY);
+        heads = new int[slots];
+        shift = Integer.numberOfLeadingZeros(slots) + 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = find(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+    }
+}
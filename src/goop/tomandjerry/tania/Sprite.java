@@ -0,0 +1,97 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code Sprite} enum lists the images drawn into the cells of the grid.
+ * Each sprite has the path of its image and a plain color that is shown until the image is loaded,
+ * a sprite without an image always shows its color.
+ * The sprites are packed into the atlas of {@code Assets} in the order of this enum.
+ * When several entities share a cell, the sprite with the highest layer is drawn.
+ *
+ * @see         Assets
+ * @see         GridRenderer
+ * @author      Tania Argot
+ */
+public enum Sprite {
+
+    /** Tom, the cat. */
+    CAT("resources/1.png", 0xff8a8a8a, 3),
+
+    /** Jerry, the mouse. */
+    MOUSE("resources/2.png", 0xff9c6b3f, 2),
+
+    /** An empty cell. */
+    EMPTY("resources/3.png", 0xffececec, 0),
+
+    /** A cheese. */
+    CHEESE("resources/4.png", 0xfff2c94c, 1),
+
+    /** A wall of the terrain, which has no image. */
+    WALL(null, 0xff4a4a4a, 0);
+
+    /** Path of the image on the class path, or null if there is no image. */
+    private final String path;
+
+    /** Color of the placeholder as ARGB. */
+    private final int placeholder;
+
+    /** Layer of the sprite, a higher layer is drawn over a lower one. */
+    private final int layer;
+
+    /**
+     * Constructor of the {@code Sprite} enum.
+     *
+     * @param path        path of the image on the class path, or null if there is no image
+     * @param placeholder color of the placeholder as ARGB
+     * @param layer       layer of the sprite
+     */
+    Sprite(String path, int placeholder, int layer) {
+        this.path = path;
+        this.placeholder = placeholder;
+        this.layer = layer;
+    }
+
+    /**
+     * Returns the sprite of an entity type of an {@code EntityStore}.
+     *
+     * @param type the type tag of the entity
+     * @return the sprite of the type, {@link #EMPTY} for a free ID
+     */
+    public static Sprite of(byte type) {
+        switch (type) {
+            case EntityStore.CAT:
+                return CAT;
+            case EntityStore.MOUSE:
+                return MOUSE;
+            case EntityStore.CHEESE:
+                return CHEESE;
+            default:
+                return EMPTY;
+        }
+    }
+
+    /**
+     * Returns the path of the image on the class path.
+     *
+     * @return the path of the image, or null if the sprite is only its placeholder color
+     */
+    public String getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the color of the placeholder.
+     *
+     * @return the color of the placeholder as ARGB
+     */
+    public int getPlaceholder() {
+        return placeholder;
+    }
+
+    /**
+     * Returns the layer of the sprite, a higher layer is drawn over a lower one.
+     *
+     * @return the layer
+     */
+    public int getLayer() {
+        return layer;
+    }
+}
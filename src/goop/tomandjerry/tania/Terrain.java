@@ -0,0 +1,62 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code Terrain} interface describes the walls of a board, which animals cannot move onto.
+ * An {@code ObstacleMap} keeps all walls of the board in memory,
+ * a {@code ChunkedWorld} generates them in chunks around the animals and forgets the chunks nobody visits.
+ * The default methods let a terrain choose where new cheeses appear and see where the mouse is heading,
+ * a terrain that is fully in memory does not need them.
+ *
+ * @see         Board
+ * @see         ObstacleMap
+ * @see         ChunkedWorld
+ * @author      Tania Argot
+ */
+public interface Terrain {
+
+    /**
+     * Returns the width of the terrain.
+     *
+     * @return the width
+     */
+    int getWidth();
+
+    /**
+     * Returns the height of the terrain.
+     *
+     * @return the height
+     */
+    int getHeight();
+
+    /**
+     * Checks if a cell is a wall.
+     *
+     * @param x the x-coordinate of the cell, which must be on the terrain
+     * @param y the y-coordinate of the cell, which must be on the terrain
+     * @return true if the cell is a wall, false otherwise
+     */
+    boolean isWall(int x, int y);
+
+    /**
+     * Chooses the cell of a new cheese near the mouse.
+     * The cell must not be a wall, and it must only depend on the terrain and the numbers drawn from the generator.
+     *
+     * @param random the random number generator of the game
+     * @param mouseX the x-coordinate of the mouse
+     * @param mouseY the y-coordinate of the mouse
+     * @return the cell as {@code x << 32 | y}, or -1 to let the game draw a random cell of the whole board
+     */
+    default long nextCheese(GameRandom random, int mouseX, int mouseY) {
+        return -1;
+    }
+
+    /**
+     * Tells the terrain where the mouse is and where it is heading, after every move of the mouse.
+     *
+     * @param x  the x-coordinate of the mouse
+     * @param y  the y-coordinate of the mouse
+     * @param dx the x-direction of the last move, between -1 and 1
+     * @param dy the y-direction of the last move, between -1 and 1
+     */
+    default void follow(int x, int y, int dx, int dy) {
+    }
+}
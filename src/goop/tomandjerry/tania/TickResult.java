@@ -0,0 +1,18 @@
+package goop.tomandjerry.tania;
+/**
+ * The {@code TickResult} enum represents the outcome of a single step of the {@code Game}.
+ * It is returned by {@code Game.update()} instead of showing a dialog,
+ * so the game logic can run without a user interface.
+ *
+ * @see         Game
+ * @see         GameGUI
+ * @author      Tania Argot
+ */
+public enum TickResult {
+
+    /** The game continues. */
+    RUNNING,
+
+    /** The cat caught the mouse and the game is over. */
+    CAUGHT
+}
@@ -0,0 +1,53 @@
+package goop.tomandjerry.tania;
+import java.nio.ByteBuffer;
+
+/**
+ * The {@code Varints} class writes and reads unsigned variable-length integers (LEB128).
+ * Every byte carries seven bits of the value and a flag that tells if another byte follows,
+ * so small values, which are by far the most common in logs and messages, take a single byte.
+ *
+ * @see         ReplayRecorder
+ * @see         Replayer
+ * @author      Tania Argot
+ */
+public final class Varints {
+
+    /** Largest number of bytes of an encoded {@code long}. */
+    public static final int MAX_BYTES = 10;
+
+    /** Private constructor, the class only has static methods. */
+    private Varints() {}
+
+    /**
+     * Writes an unsigned value.
+     *
+     * @param buffer the buffer to write to, with at least {@link #MAX_BYTES} bytes remaining
+     * @param value  the value, interpreted as unsigned
+     */
+    public static void write(ByteBuffer buffer, long value) {
+        while ((value & ~0x7fL) != 0) {
+            buffer.put((byte) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an unsigned value.
+     *
+     * @param buffer the buffer to read from
+     * @return the value
+     * @throws IllegalArgumentException if the value is longer than {@link #MAX_BYTES} bytes
+     */
+    public static long read(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 7 * MAX_BYTES; shift += 7) {
+            byte b = buffer.get();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+}